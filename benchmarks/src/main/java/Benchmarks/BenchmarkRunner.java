@@ -0,0 +1,52 @@
+package Benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+// Runs the benchmarks and writes the results in two forms:
+//   target/jmh-result.json  the full JMH output (can be opened in the JMH visualizer)
+//   target/jmh-summary.txt  one sorted line per benchmark, small enough to commit and diff between commits
+// Regular JMH command line options (e.g. a benchmark name filter) are passed through.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        Path target = Paths.get("target");
+        Files.createDirectories(target);
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(target.resolve("jmh-result.json").toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        List<String> lines = new ArrayList<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark().replace("Benchmarks.", "");
+            StringBuilder params = new StringBuilder();
+            for (String key : result.getParams().getParamsKeys()) {
+                params.append(' ').append(key).append('=').append(result.getParams().getParam(key));
+            }
+            lines.add(String.format(Locale.ROOT, "%s%s\t%.3f ± %.3f %s", benchmark, params,
+                    result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreError(),
+                    result.getPrimaryResult().getScoreUnit()));
+        }
+        lines.sort(null);
+        Files.write(target.resolve("jmh-summary.txt"), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,24 @@
+package Benchmarks;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+// Creates the browser the benchmarks run against.
+// HtmlUnit (an in-process DOM) is the default so the numbers measure the framework, not Chrome;
+// run with -Dbenchmark.browser=chrome to measure against headless Chrome instead.
+final class Browsers {
+
+    private Browsers() {
+    }
+
+    static WebDriver create() {
+        if ("chrome".equalsIgnoreCase(System.getProperty("benchmark.browser"))) {
+            ChromeOptions options = new ChromeOptions();
+            options.setHeadless(true);
+            return new ChromeDriver(options);
+        }
+        return new HtmlUnitDriver(true);
+    }
+}
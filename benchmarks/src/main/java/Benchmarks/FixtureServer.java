@@ -0,0 +1,46 @@
+package Benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+// Serves the static HTML snapshots of the shop from the classpath on a free local port,
+// so the benchmarks never depend on the network or on the live site.
+public class FixtureServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public FixtureServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            try (InputStream page = FixtureServer.class.getResourceAsStream("/fixtures" + path)) {
+                if (page == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                byte[] body = page.readAllBytes();
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String url(String fixture) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + fixture;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.concurrent.TimeUnit;
+
+// CSS versus XPath for the same elements of the cart page, using the locators CheckoutPage actually has
+// next to the equivalent alternative strategy.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocatorBenchmark {
+
+    @Param({
+            "id:first-name",
+            "xpath://*[@id='first-name']",
+            "css:.svg-inline--fa.fa-trash.fa-w-14",
+            "css:.fa-trash",
+            "xpath:(//td[@class='amount'])[3]",
+            "css:tr:nth-child(3) > td.amount",
+            "linkText:Awesome Soft Shirt",
+            "css:a[href='#/product/5']"
+    })
+    public String locator;
+
+    private FixtureServer server;
+    private WebDriver driver;
+    private By by;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FixtureServer();
+        driver = Browsers.create();
+        driver.get(server.url("shop-cart.html"));
+        by = toBy(locator);
+    }
+
+    @TearDown
+    public void tearDown() {
+        driver.quit();
+        server.close();
+    }
+
+    @Benchmark
+    public WebElement findElement() {
+        return driver.findElement(by);
+    }
+
+    static By toBy(String locator) {
+        String how = locator.substring(0, locator.indexOf(':'));
+        String using = locator.substring(locator.indexOf(':') + 1);
+        switch (how) {
+            case "id":
+                return By.id(using);
+            case "css":
+                return By.cssSelector(using);
+            case "xpath":
+                return By.xpath(using);
+            case "linkText":
+                return By.linkText(using);
+            default:
+                throw new IllegalArgumentException("Unknown locator strategy: " + how);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// How expensive is it to build CheckoutPage (PageFactory over all of its @FindBy fields),
+// and what does the element cache of BasePage save on repeated reads of the same field?
+// The page objects live in the default package, so they are reached through reflection.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageFactoryBenchmark {
+
+    private FixtureServer server;
+    private WebDriver driver;
+    private Constructor<?> checkoutPageConstructor;
+    private Object cachedPage;
+    private Object defaultPage;
+    private Field itemPriceField;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FixtureServer();
+        driver = Browsers.create();
+        driver.get(server.url("shop-cart.html"));
+        checkoutPageConstructor = Class.forName("CheckoutPage").getConstructor(WebDriver.class);
+        itemPriceField = Class.forName("CheckoutPage").getDeclaredField("itemPrice");
+        itemPriceField.setAccessible(true);
+
+        cachedPage = checkoutPageConstructor.newInstance(driver);
+        // Re-initializing with the stock PageFactory replaces the caching proxies with the default ones.
+        defaultPage = checkoutPageConstructor.newInstance(driver);
+        PageFactory.initElements(driver, defaultPage);
+    }
+
+    @TearDown
+    public void tearDown() {
+        driver.quit();
+        server.close();
+    }
+
+    @Benchmark
+    public Object newCheckoutPage() throws Exception {
+        return checkoutPageConstructor.newInstance(driver);
+    }
+
+    @Benchmark
+    public Object defaultInitElements() {
+        PageFactory.initElements(driver, defaultPage);
+        return defaultPage;
+    }
+
+    @Benchmark
+    public String readFieldWithElementCache() throws Exception {
+        return ((WebElement) itemPriceField.get(cachedPage)).getText();
+    }
+
+    @Benchmark
+    public String readFieldWithDefaultProxy() throws Exception {
+        return ((WebElement) itemPriceField.get(defaultPage)).getText();
+    }
+}
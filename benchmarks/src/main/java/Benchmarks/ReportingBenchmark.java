@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import Utils.ReportWriter;
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one report log call on the test thread: the queued ReportWriter used by ExtentTestNGITestListener
+// against writing to ExtentReports directly, with four threads logging at the same time like a parallel run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ReportingBenchmark {
+
+    private ExtentReports extent;
+    private ReportWriter writer;
+    private ReportWriter.ReportHandle handle;
+    private ExtentTest directTest;
+
+    @Setup
+    public void setUp() {
+        extent = new ExtentReports();
+        writer = new ReportWriter(extent, 100, 10000);
+        handle = writer.startTest("queued", "");
+        writer.drain();
+        directTest = extent.createTest("direct");
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Benchmark
+    public void queuedLog() {
+        writer.log(handle, Status.INFO, "The price of the product is: 29.99");
+    }
+
+    @Benchmark
+    public void directLog() {
+        synchronized (directTest) {
+            directTest.log(Status.INFO, "The price of the product is: 29.99");
+        }
+    }
+}
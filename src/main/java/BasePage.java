@@ -7,26 +7,166 @@ import org.openqa.selenium.WebDriver;
 // It initializes WebElements within a page class.
 import org.openqa.selenium.support.PageFactory;
 
+// Importing WebElement, the Selenium representation of an element on the page, and By, the way to locate one.
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+// Importing the caching PageFactory classes, Readiness, which waits for the page to settle,
+// PageAssertions, which checks several expectations at once,
+// PerformanceCollector, which reads the timings of the application after every action,
+// and TestContext, which holds the browser bound to the thread that runs the current test.
+import Utils.CachingElementLocatorFactory;
+import Utils.CachingFieldDecorator;
+import Utils.DomBatch;
+import Utils.LocatorCache;
+import Utils.PageAssertions;
+import Utils.PerformanceCollector;
+import Utils.Readiness;
+import Utils.TestContext;
+
+// Importing the collection classes used to list the page-object methods on the call stack.
+import java.util.Set;
+import java.util.stream.Collectors;
+
 // Declaring an abstract class named BasePage.
 // An abstract class is a class that cannot be instantiated and can have abstract methods (methods without a body).
 // BasePage will serve as a parent class for other page classes.
 public abstract class BasePage {
 
+    // Used to find the page-object method that is running, e.g. CheckoutPage.clickCartIcon.
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     // Declaring a protected WebDriver variable named 'driver'.
     // The 'protected' access modifier means that this variable is accessible within the same package
     // and by subclasses in other packages.
     protected WebDriver driver;
 
+    // Declaring a protected Readiness variable named 'readiness'.
+    // It is used to wait until the application is ready instead of sleeping for a fixed amount of time.
+    protected Readiness readiness;
+
+    // The cache of the elements found on the current version of the page.
+    // It is cleared automatically when the readiness engine sees a navigation, a hash change or a new document.
+    protected LocatorCache locatorCache;
+
     // Constructor for the BasePage class that takes a WebDriver object as an argument.
     // When a new instance of a class that extends BasePage is created, this constructor will be called,
     // and the passed WebDriver object will be assigned to the 'driver' variable.
     public BasePage(WebDriver driver) {
         // Assigning the passed WebDriver object to the 'driver' variable.
         this.driver = driver;
+        this.readiness = new Readiness(driver);
+        this.locatorCache = new LocatorCache();
+        this.readiness.setListener(locatorCache);
 
         // Initializing the WebElements of the class that extends BasePage using PageFactory.
         // 'this' refers to the current class instance, so the PageFactory will initialize the WebElements
         // defined in the current page class (which extends BasePage).
-        PageFactory.initElements(driver, this);
+        // The caching decorator reuses an element found on the same page state instead of finding it again
+        // on every access, and looks it up once more if it has gone stale.
+        PageFactory.initElements(new CachingFieldDecorator(new CachingElementLocatorFactory(driver, locatorCache)), this);
+    }
+
+    // Constructor for page objects created inside a running test.
+    // The browser is taken from the TestContext of the current thread, so parallel tests never share a driver.
+    public BasePage() {
+        this(TestContext.getDriver());
+    }
+
+    // Waits until the document is loaded, no request is in flight and the DOM stopped changing.
+    // A page-object method that opens a page by itself (e.g. openCartWith) calls this, so the load of that page
+    // is measured as a step of the method.
+    public void waitForPageReady() {
+        long start = System.nanoTime();
+        readiness.waitForPageReady();
+        measureStep(start);
+    }
+
+    // Clicks an element as soon as the page is ready and the element can receive the click,
+    // then waits for the page to settle again so the next step sees the result of the click.
+    // What the click cost the application (requests, long tasks, a new page) is measured against the budgets.
+    protected void click(WebElement element) {
+        readiness.waitForPageReady();
+        long start = System.nanoTime();
+        readiness.waitForClickable(element).click();
+        readiness.waitForPageReady();
+        measureStep(start);
+    }
+
+    // Types into an element as soon as the page is ready and the element is visible.
+    protected void type(WebElement element, CharSequence text) {
+        readiness.waitForPageReady();
+        long start = System.nanoTime();
+        readiness.waitForVisible(element).sendKeys(text);
+        measureStep(start);
+    }
+
+    // Replaces the text of an input: waits like type(), clears what the page put there, then types.
+    protected void clearAndType(WebElement element, CharSequence text) {
+        readiness.waitForPageReady();
+        long start = System.nanoTime();
+        WebElement input = readiness.waitForVisible(element);
+        input.clear();
+        input.sendKeys(text);
+        measureStep(start);
+    }
+
+    // Starts a batch of reads and form fills that will run in a single browser round trip.
+    protected DomBatch batch() {
+        readiness.waitForPageReady();
+        return new DomBatch(driver);
+    }
+
+    // The locator of a @FindBy field of this page, for batches that should use the same locators as the page.
+    protected By locatorOf(String field) {
+        return PageAssertions.locatorOf(this, field);
+    }
+
+    // Starts a set of expectations about this page that are checked in a single browser round trip.
+    // Elements can be named by their @FindBy field, e.g. expect().text("Badge", "shoppingCartBadge", "1").check()
+    public PageAssertions expect() {
+        readiness.waitForPageReady();
+        return new PageAssertions(driver, this);
+    }
+
+    // Returns the element once the page is ready and the element is visible, ready to be read.
+    protected WebElement visible(WebElement element) {
+        readiness.waitForPageReady();
+        return readiness.waitForVisible(element);
+    }
+
+    // Hands the timings of the step that just ended to the PerformanceCollector, under the name of the
+    // page-object method that ran it.
+    private void measureStep(long startNanos) {
+        PerformanceCollector.step(driver, callingPageMethod(), System.nanoTime() - startNanos);
+    }
+
+    // Finds the closest page-object method (not a BasePage helper) on the call stack, or null outside a page object.
+    static String callingPageMethod() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> BasePage.class.isAssignableFrom(frame.getDeclaringClass())
+                        && frame.getDeclaringClass() != BasePage.class)
+                .findFirst()
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                .orElse(null));
+    }
+
+    // Every page-object method on the call stack, written "CheckoutPage.clickCartIcon()", so a test is linked to
+    // the methods it called directly and to the page-object methods those called in turn.
+    static Set<String> pageMethodsOnStack() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> BasePage.class.isAssignableFrom(frame.getDeclaringClass())
+                        && frame.getDeclaringClass() != BasePage.class)
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + sourceMethodName(frame.getMethodName()) + "()")
+                .collect(Collectors.toSet()));
+    }
+
+    // The body of a lambda is compiled to a method named "lambda$<enclosing method>$<n>".
+    private static String sourceMethodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return end > 0 ? methodName.substring("lambda$".length(), end) : methodName;
+        }
+        return methodName;
     }
 }
@@ -1,12 +1,15 @@
-import com.aventstack.extentreports.Status;
+import Utils.FrameworkConfig;
+import Utils.StateSeeder;
+import Utils.TestContext;
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.testng.asserts.SoftAssert;
+
+import java.util.List;
 
 import static java.lang.Double.parseDouble;
 
@@ -15,23 +18,24 @@ import static java.lang.Double.parseDouble;
 // By extending BasePage, CheckoutPage inherits the WebDriver instance and the PageFactory initialization.
 public class CheckoutPage extends BasePage {
 
-    // Declaring a public WebDriverWait variable named 'wait'.
-    // WebDriverWait is used for implementing explicit waits during interactions with web elements.
-    public WebDriverWait wait;
+    // Product ids of the demo shop, used to seed the cart and the wishlist.
+    public static final String AWESOME_GRANITE_CHIPS_ID = "1";
+    public static final String AWESOME_SOFT_SHIRT_ID = "5";
+
+    // The shop whose state is seeded; the live demo shop unless a test points the page somewhere else.
+    private String shopUrl = FrameworkConfig.shopUrl();
 
-    public SoftAssert softAssert;
-    
     // Constructor for the CheckoutPage class that takes a WebDriver object as an argument.
     // This constructor calls the parent class (BasePage) constructor to initialize the WebDriver instance
     // and sets up the PageFactory to initialize the web elements on this page.
     public CheckoutPage(WebDriver driver) {
         // Calling the parent class (BasePage) constructor using 'super' to initialize the WebDriver.
         super(driver);
+    }
 
-        // Initializing the WebDriverWait object with a 10-second timeout.
-        // This will be used to wait for certain conditions or elements during test execution.
-        wait = new WebDriverWait(driver, 10);
-        softAssert = new SoftAssert();
+    // Creates the checkout page for the browser bound to the current test thread.
+    public CheckoutPage() {
+        this(TestContext.getDriver());
     }
 
     // Locating the search bar element using the @FindBy annotation.
@@ -48,7 +52,7 @@ public class CheckoutPage extends BasePage {
     // Provides controlled access to the encapsulated WebElement
     public void setSearchBar() {
         // Typing the word "mouse" into the search bar.
-        searchBar.sendKeys("mouse");
+        type(searchBar, "mouse");
     }
 
     // Locating the search button element using the @FindBy annotation.
@@ -59,155 +63,163 @@ public class CheckoutPage extends BasePage {
     private WebElement searchButton;
 
     public void clickSearchButton() {
-        searchButton.click();
+        click(searchButton);
     }
 
     @FindBy(linkText = "Refined Frozen Mouse")
     private WebElement frozenMouse;
 
     public WebElement getFrozenMouse() {
-        return frozenMouse;
+        return visible(frozenMouse);
     }
 
     @FindBy(linkText = "Awesome Granite Chips")
     private WebElement awesomeChipsProduct;
 
     public void clickAwesomeChipsLink() {
-        awesomeChipsProduct.click();
+        click(awesomeChipsProduct);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-cart-plus.fa-w-18.fa-3x")
     private WebElement cartIcon;
 
     public void clickCartIcon() {
-        cartIcon.click();
+        click(cartIcon);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-shopping-cart.fa-w-18")
     private WebElement shoppingCartIcon;
 
     public void clickShoppingCartIcon() {
-        shoppingCartIcon.click();
+        click(shoppingCartIcon);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-angle-right.fa-w-8")
     private WebElement checkoutButton;
 
     public void clickCheckoutButton() {
-        checkoutButton.click();
+        click(checkoutButton);
     }
 
     @FindBy(id = "first-name")
     private WebElement firstName;
 
     public void insertFirstName() {
-        firstName.sendKeys("Beniamin");
+        type(firstName, "Beniamin");
     }
 
     @FindBy(id = "last-name")
     private WebElement lastName;
 
     public void insertLastName() {
-        lastName.sendKeys("Cazacu");
+        type(lastName, "Cazacu");
     }
 
     @FindBy(id = "address")
     private WebElement address;
 
     public void insertAddress() {
-        address.sendKeys("Suceava");
+        type(address, "Suceava");
+    }
+
+    // Fills the whole checkout form in a single browser round trip.
+    public void fillCheckoutForm(String firstName, String lastName, String address) {
+        batch().fill(locatorOf("firstName"), firstName)
+                .fill(locatorOf("lastName"), lastName)
+                .fill(locatorOf("address"), address)
+                .execute();
     }
 
     @FindBy(css = ".btn.btn-success")
     private WebElement continueCheckout;
 
     public void clickContinueCheckout() {
-        continueCheckout.click();
+        click(continueCheckout);
     }
 
     @FindBy(css = ".btn.btn-success")
     private WebElement completeOrder;
 
     public void clickCompleteOrder() {
-        completeOrder.click();
+        click(completeOrder);
     }
 
     @FindBy(css = ".text-muted")
     private WebElement successMessage;
 
     public WebElement getSuccessMessage() {
-        return successMessage;
+        return visible(successMessage);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-heart.fa-w-16.fa-3x ")
     private WebElement heartIcon;
 
     public void clickHeartIcon() {
-        heartIcon.click();
+        click(heartIcon);
     }
 
     @FindBy(css = ".fa-layers-counter.shopping_cart_badge")
     private WebElement shoppingCartBadge;
 
     public WebElement getShoppingCartBadge() {
-        return shoppingCartBadge;
+        return visible(shoppingCartBadge);
     }
 
     public void clickShoppingCartBadge() {
-        shoppingCartBadge.click();
+        click(shoppingCartBadge);
     }
 
     public WebElement getAwesomeChipsProduct(){
-        return awesomeChipsProduct;
+        return visible(awesomeChipsProduct);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-heart-broken.fa-w-16.fa-2x ")
     private WebElement brokenHeartIcon;
 
     public void clickBrokenHeartIcon(){
-        brokenHeartIcon.click();
+        click(brokenHeartIcon);
     }
 
     @FindBy(linkText = "Awesome Soft Shirt")
     private WebElement awesomeShirt;
 
     public void clickAwesomeShirt() {
-        awesomeShirt.click();
+        click(awesomeShirt);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-cart-plus.fa-w-18.fa-3x ")
     private WebElement add2Cart;
 
     public void clickAdd2Cart() {
-        add2Cart.click();
+        click(add2Cart);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-shopping-cart.fa-w-18 ")
     private WebElement cartBtn;
 
     public void clickCartBtn() {
-        cartBtn.click();
+        click(cartBtn);
     }
 
     @FindBy(css = ".svg-inline--fa.fa-plus-circle.fa-w-16 ")
     private WebElement plusOne;
 
     public void clickPlusOne() {
-        plusOne.click();
+        click(plusOne);
     }
 
     @FindBy(css = ".amount-total")
     private WebElement validationTotal;
 
     public WebElement getValidationTotal() {
-        return validationTotal;
+        return visible(validationTotal);
     }
 
     @FindBy(xpath = "(//td[@class='amount'])[1]")
     private WebElement itemPrice;
 
     public double productPrice() {
-        String amountValue = itemPrice.getText();
+        String amountValue = visible(itemPrice).getText();
         String cleanAmountValue = amountValue.replace("$", "");
         return Double.parseDouble(cleanAmountValue);
     }
@@ -218,42 +230,42 @@ public class CheckoutPage extends BasePage {
     private WebElement searchBox;
 
     public void insertTextInSearchBox(String search) {
-        searchBox.sendKeys(search);
+        type(searchBox, search);
     }
 
     @FindBy(css = ".btn.btn-default.searchbox-submit-button")
     private WebElement mainSearchButton;
 
     public void clickMainSearchButton() {
-        mainSearchButton.click();
+        click(mainSearchButton);
     }
 
     @FindBy(xpath = "//*[@data-name = 'Telefon mobil Google Pixel 9 Pro, 256GB, 16GB RAM, 5G, Rose Quartz']")
     private WebElement googlePixel9Pro;
 
     public void clickFirstSmartphone() {
-        googlePixel9Pro.click();
+        click(googlePixel9Pro);
     }
 
     @FindBy(xpath = "//div[@class = 'checkbox checkbox-custom']")
     private WebElement compareCheckbox;
 
     public void clickCompareCheckbox() {
-        compareCheckbox.click();
+        click(compareCheckbox);
     }
 
     @FindBy(xpath = "//*[@data-name = 'Telefon mobil Samsung Galaxy S24 Ultra, Dual SIM, 12GB RAM, 512GB, 5G, Titanium Black']")
     private WebElement samsungGalaxyS24Ultra;
 
     public void clickSecondSmartphone() {
-        samsungGalaxyS24Ultra.click();
+        click(samsungGalaxyS24Ultra);
     }
 
     @FindBy(css = ".btn.btn-sm.btn-info")
     private WebElement compareButton;
 
     public void clickCompareButton() {
-        compareButton.click();
+        click(compareButton);
     }
 
     //Add/Delete product to/from favorite on emag
@@ -262,21 +274,21 @@ public class CheckoutPage extends BasePage {
     private WebElement addToFavoriteButton;
 
     public void clickAddToFavoriteButton() {
-        addToFavoriteButton.click();
+        click(addToFavoriteButton);
     }
 
     @FindBy(id = "my_wishlist")
     private WebElement wishlist;
 
     public void clickWishlist() {
-        wishlist.click();
+        click(wishlist);
     }
 
     @FindBy(css = ".products-number.hidden-xs.js-products-count")
     private WebElement productsNumber;
 
     public String favoriteProducts() {
-        if(productsNumber.getText().replace("1 lista", "").contains("1"))
+        if(visible(productsNumber).getText().replace("1 lista", "").contains("1"))
         {
             return "1";
         }
@@ -287,7 +299,7 @@ public class CheckoutPage extends BasePage {
     private WebElement deleteProductButton;
 
     public void clickDeleteProductButton() {
-        deleteProductButton.click();
+        click(deleteProductButton);
     }
 
     //Apply some filters for laptop category on emag
@@ -296,74 +308,159 @@ public class CheckoutPage extends BasePage {
     private WebElement menu;
 
     public void clickMenu() {
-        menu.click();
+        click(menu);
     }
 
     @FindBy(xpath = "//*[@class = 'megamenu-list-department js-megamenu-list-department'][1]")
     private WebElement laptopTabletPhoneCategory;
 
     public void clickLaptopTabletPhoneCategory() {
-        laptopTabletPhoneCategory.click();
+        click(laptopTabletPhoneCategory);
     }
 
     @FindBy(linkText = "Laptopuri si accesorii")
     private WebElement laptopsAndAccessories;
 
     public void clickLaptopsAndAccessories() {
-        laptopsAndAccessories.click();
+        click(laptopsAndAccessories);
     }
 
     @FindBy(linkText = "Laptopuri")
     private WebElement laptops;
 
     public void clickLaptops() {
-        laptops.click();
+        click(laptops);
     }
 
     @FindBy(css = ".form-control.js-custom-price-min")
     private WebElement minimPrice;
 
     public void insertMinimPrice() {
-        minimPrice.clear();
-        minimPrice.sendKeys("3000");
+        clearAndType(minimPrice, "3000");
     }
 
     @FindBy(css = ".form-control.js-custom-price-max")
     private WebElement maximPrice;
 
     public void insertMaximPrice() {
-        maximPrice.clear();
-        maximPrice.sendKeys("5000");
+        clearAndType(maximPrice, "5000");
     }
 
     @FindBy(css = ".btn.btn-alt.js-custom-price-trigger.btn-primary")
     private WebElement intervalFilterButton;
 
     public void clickIntervalFilterButton() {
-        intervalFilterButton.click();
+        click(intervalFilterButton);
     }
 
     //END of applying some filters for laptop category
 
-    public void addProductToWishlist() {
-        clickAwesomeChipsLink();
+    // Points the page at another instance of the shop, e.g. the local stand-in.
+    public void useShop(String shopUrl) {
+        this.shopUrl = shopUrl;
+    }
+
+    // Starts a new seeding of the cart and the wishlist of the shop.
+    public StateSeeder seedState() {
+        return new StateSeeder(driver, shopUrl);
+    }
+
+    // Opens the cart page with the product in the cart.
+    // By default this goes through the shop like a user: the product page, its add-to-cart icon, the cart, and the
+    // + button for every further item. With -Dseed.state=true the cart is written into localStorage instead
+    // (see StateSeeder), which is faster but only supported against the local stand-in of the shop.
+    public void openCartWith(String productId, int quantity) {
+        if (seeding()) {
+            seedState().cart(productId, quantity).open("cart");
+            waitForPageReady();
+            return;
+        }
+        clickProduct(productId);
+        clickCartIcon();
+        clickShoppingCartIcon();
+        for (int item = 1; item < quantity; item++) {
+            clickPlusOne();
+        }
+    }
+
+    // Opens the wishlist page with the product in the wishlist, through the product page unless -Dseed.state=true.
+    public void openWishlistWith(String productId) {
+        if (seeding()) {
+            seedState().wishlist(productId).open("wishlist");
+            waitForPageReady();
+            return;
+        }
+        clickProduct(productId);
         clickHeartIcon();
-        softAssert.assertEquals(getShoppingCartBadge().getText(), "1");
-        ExtentTestNGITestListener.getTest().log(Status.PASS, "Shopping cart badge was updated with success.");
         clickShoppingCartBadge();
     }
 
+    // Seeding is only supported against the local stand-in of the shop (LocalShopServer), whose storage format
+    // StateSeeder writes; the live shop may read other keys, and a seeded test would then pass on an empty cart.
+    // Seeded state lives in localStorage, which all the tabs of a browser share, so in tab mode one test would
+    // overwrite the cart of another.
+    private boolean seeding() {
+        if (!FrameworkConfig.seedState()) {
+            return false;
+        }
+        if (!StateSeeder.isLocalStandIn(shopUrl)) {
+            throw new IllegalStateException("-Dseed.state=true is only supported against the local stand-in of the shop, not "
+                    + shopUrl);
+        }
+        if (FrameworkConfig.isTabMode()) {
+            throw new IllegalStateException("-Dseed.state=true cannot be combined with -Dbrowser.mode=tabs: "
+                    + "the tabs of one browser share localStorage");
+        }
+        return true;
+    }
+
+    // Opens the page of a product from the product list. The products the suite knows by name are clicked by their
+    // link text, like before; any other product (e.g. from the checkout data file) by the link to its page.
+    private void clickProduct(String productId) {
+        if (AWESOME_GRANITE_CHIPS_ID.equals(productId)) {
+            clickAwesomeChipsLink();
+        } else if (AWESOME_SOFT_SHIRT_ID.equals(productId)) {
+            clickAwesomeShirt();
+        } else {
+            readiness.waitForPageReady();
+            click(driver.findElement(By.cssSelector("a[href='#/product/" + productId + "']")));
+        }
+    }
+
+    // The badge and the product link are checked together as page expectations, in one round trip to the browser,
+    // so a wrong wishlist fails the test.
+    public void addProductToWishlist() {
+        openWishlistWith(AWESOME_GRANITE_CHIPS_ID);
+        expect().text("Wishlist badge", "shoppingCartBadge", "1")
+                .text("Wishlist product", "awesomeChipsProduct", "Awesome Granite Chips")
+                .check();
+    }
+
     public void addProductToCart() {
+        if (seeding()) {
+            openCartWith(AWESOME_SOFT_SHIRT_ID, 1);
+            return;
+        }
         clickAwesomeShirt();
         clickAdd2Cart();
         clickCartBtn();
     }
 
+    // Buys the product as a guest user, from the cart through the checkout form to the order confirmation
+    // (see getSuccessMessage). Used by CheckoutTest and by the checkout journey of LoadTestRunner.
+    public void checkOutAsGuest(String productId, int quantity, String firstName, String lastName, String address) {
+        openCartWith(productId, quantity);
+        clickCheckoutButton();
+        fillCheckoutForm(firstName, lastName, address);
+        clickContinueCheckout();
+        clickCompleteOrder();
+    }
+
     @FindBy (xpath = "(//td[@class='amount'])[2]")
     private WebElement taxPrice;
 
     public double taxPrice() {
-        String taxValue = taxPrice.getText();
+        String taxValue = visible(taxPrice).getText();
         String cleanTaxValue = taxValue.replace("$", "");
         return Double.parseDouble(cleanTaxValue);
     }
@@ -372,22 +469,28 @@ public class CheckoutPage extends BasePage {
     private WebElement totalPrice;
 
     public double totalPrice() {
-        String totalValue = totalPrice.getText();
+        String totalValue = visible(totalPrice).getText();
         String cleanTotalValue = totalValue.replace("$", "");
         return Double.parseDouble(cleanTotalValue);
     }
 
+    // Reads every amount of the cart summary (product price, tax, total, in page order) in a single round trip.
+    // Matches the same cells as the itemPrice, taxPrice and totalPrice XPaths: a td whose class is exactly 'amount'.
+    public List<Double> cartAmounts() {
+        return batch().readTexts("amounts", "td[class='amount']").execute().getAmounts("amounts");
+    }
+
     @FindBy(css = ".svg-inline--fa.fa-trash.fa-w-14 ")
     private WebElement deleteItemButton;
 
     public void clickDeleteItemButton() {
-        deleteItemButton.click();
+        click(deleteItemButton);
     }
 
     @FindBy(css = ".text-center.container")
     private WebElement emptyCartText;
 
     public WebElement getEmptyCartText() {
-        return emptyCartText;
+        return visible(emptyCartText);
     }
 }
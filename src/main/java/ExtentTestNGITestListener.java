@@ -1,22 +1,89 @@
+import Utils.CommandMetrics;
+import Utils.EventReportRenderer;
+import Utils.FailureArtifacts;
+import Utils.FrameworkConfig;
+import Utils.PageAssertions;
+import Utils.ReportWriter;
+import Utils.ResultEventLog;
+import Utils.StreamingRows;
+import Utils.TransientRetryAnalyzer;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.Markup;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
 public class ExtentTestNGITestListener implements ITestListener {
     private static ExtentReports extent = new ExtentReports();
-    private static ThreadLocal<ExtentTest> test = new ThreadLocal<>();
+    private static ThreadLocal<ReportWriter.ReportHandle> test = new ThreadLocal<>();
+
+    // Test threads only queue their events; the writer applies them and flushes the report periodically.
+    private static ReportWriter writer;
 
     static {
-        extent.attachReporter(new ExtentSparkReporter("extentReports.html"));
+        if (FrameworkConfig.shardTotal() > 1) {
+            // Each shard keeps its own report plus a JSON archive that ReportMerger combines into one.
+            new File(FrameworkConfig.shardResultsDir()).mkdirs();
+            String prefix = FrameworkConfig.shardResultsDir() + "/extent-" + FrameworkConfig.shardName();
+            extent.attachReporter(new ExtentSparkReporter(prefix + ".html"), new JsonFormatter(prefix + ".json"));
+        } else {
+            extent.attachReporter(new ExtentSparkReporter("extentReports.html"));
+        }
+        // Every event is also appended to a JSON-lines log, from which EventReportRenderer builds a report
+        // that can combine runs and shards and opens quickly however many steps it has.
+        String run = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-" + FrameworkConfig.shardName();
+        writer = new ReportWriter(extent, new ResultEventLog(Paths.get(FrameworkConfig.eventLog()), run),
+                FrameworkConfig.getLong("report.flush.interval.ms", 2000),
+                FrameworkConfig.getInt("report.queue.capacity", 10000));
+        // Every batch of page expectations is reported as one table on the current test.
+        PageAssertions.setReporter((rows, passed) -> log(passed ? Status.PASS : Status.FAIL, MarkupHelper.createTable(rows)));
     }
 
-    // Provide access to the current test instance
+    // Provide access to the current test instance.
+    // Waits for the queued events to be written, so prefer log() from test code.
     public static ExtentTest getTest() {
-        return test.get();
+        writer.drain();
+        ReportWriter.ReportHandle handle = test.get();
+        return handle == null ? null : handle.getTest();
+    }
+
+    // Log a step of the current test without blocking the test thread
+    public static void log(Status status, String details) {
+        writer.log(test.get(), status, details);
+    }
+
+    // Log a table, a code block or any other markup for the current test
+    public static void log(Status status, Markup markup) {
+        writer.log(test.get(), status, markup);
+    }
+
+    // Attaches the artifacts of a failure to the current test once they have been saved in the background.
+    public static void attach(CompletableFuture<FailureArtifacts.Capture> artifacts) {
+        ReportWriter.ReportHandle handle = test.get();
+        artifacts.whenComplete((capture, error) -> {
+            if (error != null) {
+                writer.log(handle, Status.WARNING, "Failure artifacts not saved: " + error.getMessage());
+            } else if (capture == null) {
+                writer.log(handle, Status.WARNING, "Failure artifacts dropped, the capture memory budget was used up");
+            } else {
+                writer.submit(handle, capture::attachTo);
+                writer.note(handle, Status.FAIL, "Failure artifacts: screenshot " + capture.getScreenshot()
+                        + ", DOM " + capture.getPage() + ", console log " + capture.getConsoleLog());
+            }
+        });
     }
 
     @Override
@@ -27,37 +94,100 @@ public class ExtentTestNGITestListener implements ITestListener {
     @Override
     public void onFinish(ITestContext context) {
         System.out.println("End of Execution(TEST): " + context.getName());
-        extent.flush();
+        // Reported with the run, not as a test, so it does not count as one.
+        writer.logRun("WebDriver command latency so far, by command type (after " + context.getName() + ")",
+                MarkupHelper.createTable(CommandMetrics.commandTable()));
+        writer.flush();
+        System.out.println(writer.overheadReport());
+        // Bringing the event report up to date; only the events since the last render are read.
+        // Shards are rendered together by ReportMerger once they are all done.
+        if (FrameworkConfig.shardTotal() == 1) {
+            try {
+                EventReportRenderer.render(Collections.singletonList(Paths.get(FrameworkConfig.eventLog())),
+                        Paths.get(FrameworkConfig.eventReportDir()));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not render the event report: " + e);
+            }
+        }
     }
 
     @Override
     public void onTestStart(ITestResult result) {
         System.out.println("Test Started->" + result.getName());
-        test.set(extent.createTest(result.getMethod().getMethodName(), result.getMethod().getDescription()));
+        // Every attempt of a retried test gets its own entry in the report.
+        int attempt = TransientRetryAnalyzer.attemptOf(result);
+        String name = result.getMethod().getMethodName() + dataRows(result) + (attempt > 1 ? " (attempt " + attempt + ")" : "");
+        test.set(writer.startTest(name, result.getMethod().getDescription()));
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        getTest().log(Status.PASS, "Test passed");
+        int attempt = TransientRetryAnalyzer.attemptOf(result);
+        if (attempt > 1) {
+            log(Status.WARNING, "Passed on attempt " + attempt + " in " + duration(result) + " ms, tracked as flaky");
+        }
+        log(Status.PASS, "Test passed");
+        writer.finish(test.get(), "PASS", duration(result));
+        releaseRows(result);
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
-        getTest().log(Status.FAIL, "Test Failed");
+        log(Status.FAIL, "Test Failed");
+        Throwable failure = result.getThrowable();
+        if (failure != null) {
+            writer.fail(test.get(), failure);
+        }
+        writer.finish(test.get(), "FAIL", duration(result));
+        releaseRows(result);
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        getTest().log(Status.SKIP, "Test Skipped");
+        if (result.wasRetried()) {
+            log(Status.WARNING, "Attempt " + TransientRetryAnalyzer.attemptOf(result) + " failed after " + duration(result)
+                    + " ms with " + result.getThrowable() + ", retrying in the same browser");
+            writer.finish(test.get(), "RETRY", duration(result));
+            return;
+        }
+        log(Status.SKIP, "Test Skipped");
+        writer.finish(test.get(), "SKIP", duration(result));
+        releaseRows(result);
     }
 
     @Override
     public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
-        getTest().log(Status.FAIL, "Test failed but within success percentage");
+        log(Status.FAIL, "Test failed but within success percentage");
+        writer.finish(test.get(), "FAIL", duration(result));
+        releaseRows(result);
     }
 
     @Override
     public void onTestFailedWithTimeout(ITestResult result) {
         onTestFailure(result);
     }
+
+    // Each row of a streaming DataProvider is read when its test starts and gets its own entry in the report.
+    private static String dataRows(ITestResult result) {
+        StringBuilder rows = new StringBuilder();
+        for (Object parameter : result.getParameters()) {
+            if (parameter instanceof StreamingRows.Row) {
+                rows.append(" [").append(((StreamingRows.Row) parameter).bind()).append("]");
+            }
+        }
+        return rows.toString();
+    }
+
+    // Once a test has its final result (not a retried attempt) its rows are no longer needed.
+    private static void releaseRows(ITestResult result) {
+        for (Object parameter : result.getParameters()) {
+            if (parameter instanceof StreamingRows.Row) {
+                ((StreamingRows.Row) parameter).release();
+            }
+        }
+    }
+
+    private static long duration(ITestResult result) {
+        return result.getEndMillis() - result.getStartMillis();
+    }
 }
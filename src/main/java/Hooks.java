@@ -1,62 +1,226 @@
 // Importing ExtentReports, ExtentTest, and ExtentSparkReporter classes from the AventStack ExtentReports library.
 // These classes are used for generating detailed and customizable test reports.
+import Utils.BrowserLaunchProfile;
+import Utils.BrowserMemory;
+import Utils.CommandMetrics;
 import Utils.DatabaseUtils;
+import Utils.DriverPool;
+import Utils.FailureArtifacts;
+import Utils.FrameworkConfig;
+import Utils.LocatorCache;
+import Utils.PerformanceCollector;
+import Utils.ProfileTemplate;
+import Utils.RecordReplayProxy;
+import Utils.TabHost;
+import Utils.TabMultiplexer;
+import Utils.TestContext;
+import Utils.TestHistory;
+import Utils.TestImpact;
+import Utils.TransientRetryAnalyzer;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 
-// Importing WebDriverManager from the Bonigarcia library.
-// WebDriverManager automates the management of WebDriver binaries (e.g., ChromeDriver, GeckoDriver).
-import io.github.bonigarcia.wdm.WebDriverManager;
-
-// Importing WebDriver and ChromeDriver classes from the Selenium library.
-// WebDriver is used for interacting with the browser, and ChromeDriver is the specific implementation for Google Chrome.
+// Importing the WebDriver class from the Selenium library.
+// WebDriver is used for interacting with the browser.
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.ITestResult;
 
 // Importing TestNG annotations for setting up and tearing down test environments.
 // @BeforeMethod and @AfterMethod annotations define methods that are run before and after each test method.
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+
 // Declaring a class named Hooks.
 // This class contains setup and teardown methods that are commonly used across multiple test cases.
 public class Hooks {
 
-    // Declaring a public WebDriver variable named 'driver'.
+    // With -Dbrowser.mode=tabs a browser session is a tab, and up to -Dtabs.per.browser tabs share one Chrome process.
+    private static final TabMultiplexer tabs = FrameworkConfig.isTabMode()
+            ? new TabMultiplexer(() -> (TabHost) createDriver(), FrameworkConfig.tabsPerBrowser())
+            : null;
+
+    // The pool of warm browser sessions shared by every test class that extends Hooks.
+    // Starting Chrome is slow, so a browser is reset and reused between tests instead of being quit.
+    // The pool size and session lifetime can be changed with -Dpool.size, -Dpool.session.max.age.seconds, etc.
+    private static final DriverPool pool = new DriverPool(
+            tabs != null ? tabs : Hooks::createDriver,
+            FrameworkConfig.startUrl(),
+            FrameworkConfig.poolSize(),
+            FrameworkConfig.sessionMaxAgeSeconds(),
+            FrameworkConfig.sessionMaxLeases(),
+            FrameworkConfig.leaseTimeoutSeconds(),
+            tabs != null);
+
+    // The pooled session each test thread has leased; it is handed back to the pool after the test.
+    // A ThreadLocal is used because with -Dparallel=methods several tests run on the same Hooks instance at once.
+    private final ThreadLocal<DriverPool.PooledSession> session = new ThreadLocal<>();
+
+    // Returns the browser of the test running on the current thread.
     // This WebDriver instance will be used to control the browser during the tests.
-    public WebDriver driver;
+    public WebDriver getDriver() {
+        return TestContext.getDriver();
+    }
 
     // Method annotated with @BeforeMethod, indicating that it will run before each test method.
-    // This method sets up the WebDriver and initializes the browser.
+    // This method leases a browser from the pool (already on the start URL) and binds it to the current thread.
+    // The retry of a failed test keeps the browser of the previous attempt instead of leasing a new one.
+    // Every WebDriver command issued once the browser is leased is attributed to the test that is about to run,
+    // and the timings of the application are collected per page-object step.
     @BeforeMethod
-    public void setUp() {
+    public void setUp(Method method) {
+        PerformanceCollector.startTest();
+        TestImpact.startTest();
+        DriverPool.PooledSession leased = session.get();
+        if (leased == null) {
+            leased = pool.lease();
+            session.set(leased);
+            // A browser started for this test: reporting how long its first page took with a cold or a warm profile.
+            if (leased.getLeaseCount() == 1) {
+                ProfileTemplate.recordFirstLoad(ProfileTemplate.isEnabled(), leased.getFirstLoadMillis());
+                ExtentTestNGITestListener.log(Status.INFO, String.format("New browser session, first page load %d ms with %s profile",
+                        leased.getFirstLoadMillis(), ProfileTemplate.isEnabled() ? "a warm" : "an empty"));
+            }
+        }
+        TestContext.bind(leased.getDriver());
+        // Counting the commands of the test from here on; launching the browser and loading the start page
+        // belong to the pool, not to the test.
+        CommandMetrics.startTest(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        // Counting the tests running at the same time, to report the browser memory each of them costs.
+        BrowserMemory.testStarted();
+    }
 
-        // Using WebDriverManager to automatically download and set up the ChromeDriver binary.
-        WebDriverManager.chromedriver().setup();
+    // Method annotated with @AfterMethod, indicating that it will run after each test method.
+    // This method cleans up the test data and hands the browser back to the pool.
+    @AfterMethod
+    public void tearDown(ITestResult result) {
+        BrowserMemory.testFinished();
+        // Keeping the page-object methods and fields the test used, to select the tests affected by a change later.
+        TestImpact.finishTest(TestHistory.key(result.getMethod()));
+        // Adding the number of WebDriver commands of the test, per page-object method, to the report.
+        // This is done first so the cleanup below is not counted as part of the test.
+        CommandMetrics.TestStats stats = CommandMetrics.finishTest();
+        ExtentTestNGITestListener.log(Status.INFO, stats.toString());
+        ExtentTestNGITestListener.log(Status.INFO, MarkupHelper.createTable(stats.pageMethodTable()));
+        // Adding what each step cost the application (requests, long tasks, paint and load times) to the report.
+        String[][] performance = PerformanceCollector.finishTest();
+        if (performance != null) {
+            ExtentTestNGITestListener.log(Status.INFO, MarkupHelper.createTable(performance));
+        }
 
-        // Initializing the WebDriver instance as a ChromeDriver, which launches a new Chrome browser window.
-        driver = new ChromeDriver();
+        // Saving a screenshot, the DOM and the console log of a failed test before the browser is reset.
+        // Only the capture runs here; compressing and writing the files happens in the background.
+        if (TransientRetryAnalyzer.failedAttempt(result)) {
+            ExtentTestNGITestListener.attach(FailureArtifacts.capture(getDriver(), result.getMethod().getMethodName()));
+        }
 
-        // Maximizing the browser window to ensure that all elements are visible and accessible during the test.
-        driver.manage().window().maximize();
+        // A test that failed for a transient reason (stale element, timeout, ...) is retried in the same browser:
+        // the browser is only reset, and the test data is cleaned up once, after the last attempt.
+        if (TransientRetryAnalyzer.willRetry(result)) {
+            long start = System.nanoTime();
+            if (pool.resetInPlace(session.get())) {
+                ExtentTestNGITestListener.log(Status.INFO, String.format(
+                        "Browser reset for the next attempt in %.0f ms", (System.nanoTime() - start) / 1e6));
+            } else {
+                // The browser could not be reset and was quit; the next attempt leases another one.
+                session.remove();
+            }
+            TestContext.clear();
+            return;
+        }
 
-        // Navigating to the specified URL in the browser. 
-        // This is the starting point for the tests, loading the web application under test.
-//        driver.get("https://fasttrackit-test.netlify.app/#/");
-//        driver.get("https://www.emag.ro/");
-//        driver.get("https://fasttrackit-test.netlify.app/#/");
-        driver.get("https://demo.wearehaive.com/ro/solutions/restaurants");
+        // Queuing the cleanup of the test data; it is deleted in a batch at the end of the class (-Ddb.cleanup=inline deletes now).
+        try {
+            DatabaseUtils.deleteVenueByOrganisationId("org_2m6zQLPZXOMr1B2e1kYQfoJRYzW");
+        } finally {
+            // Resetting the browser (cookies, storage, start URL) and returning it to the pool for the next test,
+            // even when the inline cleanup failed.
+            pool.release(session.get());
+            session.remove();
+            TestContext.clear();
+        }
     }
 
-    // Method annotated with @AfterMethod, indicating that it will run after each test method.
-    // This method tears down the WebDriver instance and closes the browser.
-    @AfterMethod
-    public void tearDown() {
-        DatabaseUtils.deleteVenueByOrganisationId("org_2m6zQLPZXOMr1B2e1kYQfoJRYzW");
-        // Quitting the WebDriver session, which closes all browser windows and ends the WebDriver process.
-        driver.quit();
+    // Method annotated with @AfterClass, indicating that it will run after all the tests of a class.
+    // The cleanups queued by the tests of the class are deleted in one batch, in the background.
+    @AfterClass(alwaysRun = true)
+    public void flushDatabaseCleanups() {
+        DatabaseUtils.flushAsync().whenComplete((deleted, error) -> {
+            if (error != null) {
+                System.err.println("Database cleanup failed: " + error.getMessage());
+            }
+        });
+    }
+
+    // Method annotated with @AfterSuite, indicating that it will run once after all the tests.
+    // This method waits for the remaining database cleanups, quits every pooled browser, stops the proxy
+    // and prints how well the pool, the element cache and the profile template were used.
+    @AfterSuite(alwaysRun = true)
+    public void shutDownPool() {
+        try {
+            DatabaseUtils.flush();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause());
+        } finally {
+            DatabaseUtils.shutdown();
+        }
+        FailureArtifacts.awaitPending(30000);
+        System.out.println(FailureArtifacts.report());
+        System.out.println(pool.report());
+        System.out.println(LocatorCache.report());
+        pool.shutdown();
+        if (tabs != null) {
+            tabs.shutdown();
+        }
+        System.out.println(BrowserMemory.report());
+        BrowserMemory.shutdown();
+        System.out.println(ProfileTemplate.report());
+        ProfileTemplate.cleanUp();
+        RecordReplayProxy.shutdownShared();
+        try {
+            CommandMetrics.export();
+        } catch (IOException e) {
+            System.err.println("Could not write the command metrics: " + e.getMessage());
+        }
+        try {
+            TestImpact.save();
+        } catch (IOException e) {
+            System.err.println("Could not write the test impact map: " + e.getMessage());
+        }
+    }
+
+    // Starts a new browser for the pool (or, in tab mode, for the tabs of several sessions).
+    // The launch profile (-Dbrowser.profile=headed|fast) decides between a maximized window and a fast headless browser.
+    private static WebDriver createDriver() {
+
+        // Resolving the ChromeDriver binary once per JVM (WebDriverManager, a fixed path or the offline cache).
+        BrowserLaunchProfile.resolveDriverOnce();
+
+        // Giving the browser its own clone of a profile whose cache already holds the application's scripts,
+        // fonts and images (-Dprofile.template=false starts with an empty profile).
+        ChromeOptions options = BrowserLaunchProfile.chromeOptions();
+        if (ProfileTemplate.isEnabled()) {
+            options = ProfileTemplate.apply(options, InstrumentedChromeDriver::new);
+        }
+
+        // Initializing the WebDriver instance as a ChromeDriver, which launches a new Chrome browser.
+        // The instrumented driver times every command it sends to the browser.
+        WebDriver driver = new InstrumentedChromeDriver(options);
+
+        // Maximizing a headed browser window to ensure that all elements are visible and accessible during the test.
+        BrowserLaunchProfile.sizeWindow(driver);
+
+        // Following the memory of the Chrome processes of the new browser.
+        BrowserMemory.register(driver);
+        return driver;
     }
 }
@@ -0,0 +1,78 @@
+import Utils.BrowserMemory;
+import Utils.CommandMetrics;
+import Utils.TabBinding;
+import Utils.TabHost;
+import Utils.TestImpact;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import java.util.Map;
+
+// A ChromeDriver that times every command it sends to the browser.
+// Element commands (click, getText, ...) also go through execute(), so nothing escapes the measurement.
+// Each command is attributed to the page-object method that issued it, e.g. CheckoutPage.clickCartIcon.
+// With -Dbrowser.mode=tabs the browser is shared by several tests, each in its own tab (see TabMultiplexer):
+// the commands of a test thread are then sent to the tab of that thread.
+public class InstrumentedChromeDriver extends ChromeDriver implements TabHost {
+
+    private final TabBinding tabs = new TabBinding();
+
+    public InstrumentedChromeDriver() {
+        super();
+    }
+
+    public InstrumentedChromeDriver(ChromeOptions options) {
+        super(options);
+    }
+
+    @Override
+    public TabBinding tabs() {
+        return tabs;
+    }
+
+    @Override
+    protected Response execute(String driverCommand, Map<String, ?> parameters) {
+        // The session itself is created from the ChromeDriver constructor, before the fields are initialized.
+        String tab = tabs == null ? null : tabs.bound();
+        if (tab == null) {
+            return timedExecute(driverCommand, parameters);
+        }
+        // One command at a time for all the tabs, after switching to the tab of the calling thread.
+        synchronized (tabs) {
+            if (DriverCommand.SWITCH_TO_WINDOW.equals(driverCommand)) {
+                Response response = timedExecute(driverCommand, parameters);
+                tabs.activated(String.valueOf(parameters.get("handle")));
+                return response;
+            }
+            if (!tabs.isActive(tab)) {
+                switchTo().window(tab);
+            }
+            Response response = timedExecute(driverCommand, parameters);
+            if (DriverCommand.CLOSE.equals(driverCommand)) {
+                tabs.activated(null);
+            }
+            return response;
+        }
+    }
+
+    @Override
+    public void quit() {
+        BrowserMemory.unregister(this);
+        super.quit();
+    }
+
+    private Response timedExecute(String driverCommand, Map<String, ?> parameters) {
+        long start = System.nanoTime();
+        try {
+            return super.execute(driverCommand, parameters);
+        } finally {
+            CommandMetrics.record(driverCommand, BasePage.callingPageMethod(), System.nanoTime() - start);
+            // Linking the test to the page-object methods that sent the command, for test impact analysis.
+            if (TestImpact.isRecording()) {
+                TestImpact.touchAll(BasePage.pageMethodsOnStack());
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import Utils.BrowserLaunchProfile;
+import Utils.CommandMetrics;
+import Utils.FrameworkConfig;
+import Utils.LatencyHistogram;
+import Utils.LocalShopServer;
+import Utils.TestContext;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load-tests the shop with the same CheckoutPage flows the tests use, driven by N concurrent headless browsers.
+//   java -Dload.users=8 -Dload.rampup.seconds=40 -Dload.duration.seconds=120 -cp <classpath> LoadTestRunner
+// Settings (all optional):
+//   load.users             number of virtual users, each with its own browser (4)
+//   load.rampup.seconds    time over which the users are started one by one (20)
+//   load.duration.seconds  total length of the run, ramp-up included (60)
+//   load.think.millis      pause of a user between two journeys, +/-50% at random (1000)
+//   load.interval.seconds  length of one line of the report (5)
+//   load.journeys          journeys picked at random by every user: checkout, cart, wishlist (all three)
+//   load.shop.url          the shop under load; by default the local stand-in is started on this machine
+// Every interval prints the users running, journeys per second, journey latency percentiles, errors, the average
+// WebDriver command latency and the CPU load. While users are being added, throughput that stops growing while
+// command latency and CPU climb means the machine (driver and browsers), not the shop, is the limit.
+// The same lines are written to target/load-report.csv.
+public class LoadTestRunner {
+
+    private final int users = FrameworkConfig.getInt("load.users", 4);
+    private final long rampUpMillis = FrameworkConfig.getLong("load.rampup.seconds", 20) * 1000;
+    private final long durationMillis = FrameworkConfig.getLong("load.duration.seconds", 60) * 1000;
+    private final long thinkMillis = FrameworkConfig.getLong("load.think.millis", 1000);
+    private final long intervalMillis = FrameworkConfig.getLong("load.interval.seconds", 5) * 1000;
+    private final String[] journeys = FrameworkConfig.get("load.journeys", "checkout,cart,wishlist").split("\\s*,\\s*");
+
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicInteger startedUsers = new AtomicInteger();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final AtomicLong totalErrors = new AtomicLong();
+    private volatile Interval current = new Interval();
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        // Load runs are headless unless a profile is chosen explicitly.
+        if (System.getProperty("browser.profile") == null) {
+            System.setProperty("browser.profile", "fast");
+        }
+        String shopUrl = FrameworkConfig.get("load.shop.url", "");
+        LocalShopServer localShop = shopUrl.isEmpty() ? new LocalShopServer() : null;
+        try {
+            new LoadTestRunner().run(localShop != null ? localShop.getBaseUrl() : shopUrl);
+        } finally {
+            if (localShop != null) {
+                localShop.close();
+            }
+        }
+    }
+
+    private void run(String shopUrl) throws InterruptedException, IOException {
+        BrowserLaunchProfile.resolveDriverOnce();
+        long start = System.currentTimeMillis();
+        List<Thread> threads = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            long startDelay = users == 1 ? 0 : rampUpMillis * user / (users - 1);
+            Thread thread = new Thread(() -> virtualUser(shopUrl, start + startDelay), "virtual-user-" + (user + 1));
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        Path csv = Paths.get("target", "load-report.csv");
+        Files.createDirectories(csv.getParent());
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+            String header = "seconds,users,journeys_per_second,p50_ms,p90_ms,p99_ms,errors,driver_command_avg_ms,cpu_percent";
+            report.println(header);
+            System.out.println(header.replace(',', '\t'));
+            double[] commands = commandTotals();
+            while (System.currentTimeMillis() - start < durationMillis) {
+                Thread.sleep(intervalMillis);
+                Interval finished = current;
+                current = new Interval();
+                double[] now = commandTotals();
+                double commandAverage = now[1] == commands[1] ? 0 : (now[0] - commands[0]) / (now[1] - commands[1]);
+                commands = now;
+                String line = String.format(Locale.ROOT, "%d,%d,%.2f,%.0f,%.0f,%.0f,%d,%.1f,%.0f",
+                        (System.currentTimeMillis() - start) / 1000, activeUsers.get(),
+                        finished.latency.getCount() * 1000.0 / intervalMillis,
+                        finished.latency.percentileMillis(50), finished.latency.percentileMillis(90),
+                        finished.latency.percentileMillis(99), finished.errors.get(), commandAverage, cpuPercent());
+                report.println(line);
+                report.flush();
+                System.out.println(line.replace(',', '\t'));
+            }
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(60000);
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "Load run: %d of %d users started, %d journeys (%.2f/s), %d errors, "
+                        + "latency p50=%.0f ms, p90=%.0f ms, p99=%.0f ms, max=%.0f ms",
+                startedUsers.get(), users, total.getCount(), total.getCount() * 1000.0 / durationMillis, totalErrors.get(),
+                total.percentileMillis(50), total.percentileMillis(90), total.percentileMillis(99), total.getMaxMillis()));
+    }
+
+    private void virtualUser(String shopUrl, long startAt) {
+        try {
+            Thread.sleep(Math.max(0, startAt - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            return;
+        }
+        if (!running) {
+            return;
+        }
+        WebDriver driver = null;
+        try {
+            driver = new InstrumentedChromeDriver(BrowserLaunchProfile.chromeOptions());
+            BrowserLaunchProfile.sizeWindow(driver);
+        } catch (RuntimeException e) {
+            if (driver != null) {
+                driver.quit();
+            }
+            // A browser that does not start is an error of the run, and the user is left out of the summary.
+            current.errors.incrementAndGet();
+            totalErrors.incrementAndGet();
+            System.err.println(Thread.currentThread().getName() + " could not start a browser: " + e);
+            return;
+        }
+        startedUsers.incrementAndGet();
+        activeUsers.incrementAndGet();
+        try {
+            TestContext.bind(driver);
+            CheckoutPage page = new CheckoutPage(driver);
+            page.useShop(shopUrl);
+            while (running) {
+                String journey = journeys[ThreadLocalRandom.current().nextInt(journeys.length)];
+                long begin = System.nanoTime();
+                try {
+                    if (!FrameworkConfig.seedState()) {
+                        startOnEmptyShop(driver, shopUrl);
+                    }
+                    runJourney(page, journey);
+                    // A journey counts in the interval in which it completes, not the one in which it started.
+                    long elapsed = System.nanoTime() - begin;
+                    current.latency.record(elapsed);
+                    total.record(elapsed);
+                } catch (RuntimeException | AssertionError e) {
+                    current.errors.incrementAndGet();
+                    totalErrors.incrementAndGet();
+                    System.err.println(Thread.currentThread().getName() + " " + journey + " failed: " + e);
+                }
+                Thread.sleep(thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeUsers.decrementAndGet();
+            TestContext.clear();
+            driver.quit();
+        }
+    }
+
+    // Without seeding the journeys click through the shop, so each one starts on the product list with an empty
+    // cart and wishlist, like a test on a freshly reset browser.
+    private static void startOnEmptyShop(WebDriver driver, String shopUrl) {
+        driver.get(shopUrl);
+        ((JavascriptExecutor) driver).executeScript("window.localStorage.clear();");
+        driver.navigate().refresh();
+    }
+
+    // The journeys of CheckoutTest (checkoutTest, totalPriceForAProduct, wishlistTest), through the same
+    // CheckoutPage methods; the checkout buys a random product.
+    private static void runJourney(CheckoutPage page, String journey) {
+        String product = String.valueOf(1 + ThreadLocalRandom.current().nextInt(10));
+        switch (journey) {
+            case "checkout":
+                page.checkOutAsGuest(product, 1, "Load", "User " + Thread.currentThread().getName(), "Suceava");
+                if (!"Order complete".equals(page.getSuccessMessage().getText())) {
+                    throw new AssertionError("Order was not completed");
+                }
+                break;
+            case "cart":
+                page.addProductToCart();
+                if (page.cartAmounts().size() != 3) {
+                    throw new AssertionError("Cart summary is incomplete");
+                }
+                break;
+            case "wishlist":
+                page.addProductToWishlist();
+                List<String> failures = TestContext.current().takeFailedExpectations();
+                if (!failures.isEmpty()) {
+                    throw new AssertionError(failures.toString());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journey " + journey);
+        }
+    }
+
+    // Total milliseconds spent in WebDriver commands so far, and their number.
+    private static double[] commandTotals() {
+        double millis = 0;
+        double count = 0;
+        for (LatencyHistogram histogram : CommandMetrics.getCommandHistograms().values()) {
+            millis += histogram.getSumMillis();
+            count += histogram.getCount();
+        }
+        return new double[]{millis, count};
+    }
+
+    private static double cpuPercent() {
+        OperatingSystemMXBean system = ManagementFactory.getOperatingSystemMXBean();
+        if (system instanceof com.sun.management.OperatingSystemMXBean) {
+            return Math.max(0, ((com.sun.management.OperatingSystemMXBean) system).getCpuLoad() * 100);
+        }
+        return system.getSystemLoadAverage() * 100 / system.getAvailableProcessors();
+    }
+
+    // The journeys completed during one line of the report.
+    private static class Interval {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -0,0 +1,164 @@
+package Utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+// How Chrome is launched for the tests.
+//   -Dbrowser.profile=headed (default)  a normal, maximized browser window, like before
+//   -Dbrowser.profile=fast              headless at a fixed viewport, no images or web fonts, 'eager' page loads
+// Each setting of a profile can be overridden on its own: -Dbrowser.headless, -Dbrowser.window.size=1366,768,
+// -Dbrowser.block.images, -Dbrowser.block.fonts and -Dbrowser.page.load.strategy=normal|eager|none.
+// With 'eager' or 'none' the tests rely on the readiness engine to know when a page is usable.
+//
+// The chromedriver binary is resolved once per JVM. -Dchromedriver.path uses a given binary, and
+// -Ddriver.offline=true reuses a binary from the WebDriverManager cache (-Ddriver.cache.dir) without network access.
+//
+// With -Dproxy.mode=record|replay|block all browser traffic goes through the local RecordReplayProxy.
+// With -Dbrowser.mode=tabs one browser hosts several tests, each in a tab (see TabMultiplexer).
+public final class BrowserLaunchProfile {
+
+    private static volatile boolean driverResolved;
+
+    private BrowserLaunchProfile() {
+    }
+
+    public static boolean isFast() {
+        return "fast".equalsIgnoreCase(FrameworkConfig.get("browser.profile", "headed"));
+    }
+
+    public static synchronized void resolveDriverOnce() {
+        if (driverResolved) {
+            return;
+        }
+        String configuredPath = FrameworkConfig.get("chromedriver.path", "");
+        Path cache = Paths.get(FrameworkConfig.get("driver.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".cache", "selenium").toString()));
+        if (!configuredPath.isEmpty()) {
+            System.setProperty("webdriver.chrome.driver", configuredPath);
+        } else if (FrameworkConfig.getBoolean("driver.offline", false)) {
+            Path cached = findCachedChromedriver(cache).orElseThrow(() -> new IllegalStateException(
+                    "driver.offline is set but no chromedriver was found in " + cache));
+            System.setProperty("webdriver.chrome.driver", cached.toString());
+        } else {
+            WebDriverManager.chromedriver().cachePath(cache.toString()).setup();
+        }
+        driverResolved = true;
+    }
+
+    public static ChromeOptions chromeOptions() {
+        boolean fast = isFast();
+        ChromeOptions options = new ChromeOptions();
+        if (FrameworkConfig.getBoolean("browser.headless", fast)) {
+            options.addArguments("--headless=new", "--disable-gpu");
+        }
+        String windowSize = FrameworkConfig.get("browser.window.size", fast ? "1920,1080" : "");
+        if (!windowSize.isEmpty()) {
+            options.addArguments("--window-size=" + windowSize);
+        }
+        Map<String, Object> preferences = new HashMap<>();
+        if (FrameworkConfig.getBoolean("browser.block.images", fast)) {
+            options.addArguments("--blink-settings=imagesEnabled=false");
+            preferences.put("profile.managed_default_content_settings.images", 2);
+        }
+        if (FrameworkConfig.getBoolean("browser.block.fonts", fast)) {
+            options.addArguments("--disable-remote-fonts");
+        }
+        if (!preferences.isEmpty()) {
+            options.setExperimentalOption("prefs", preferences);
+        }
+        options.addArguments("--no-first-run", "--no-default-browser-check", "--disable-extensions");
+        if (FrameworkConfig.isTabMode()) {
+            // Tests keep running in the tabs that are in the background, so Chrome must not slow those down.
+            options.addArguments("--disable-background-timer-throttling", "--disable-renderer-backgrounding",
+                    "--disable-backgrounding-occluded-windows");
+        }
+        options.setPageLoadStrategy(pageLoadStrategy());
+        // Keeping the console of the page, so it can be saved when a test fails.
+        LoggingPreferences logs = new LoggingPreferences();
+        logs.enable(LogType.BROWSER, Level.ALL);
+        options.setCapability("goog:loggingPrefs", logs);
+        RecordReplayProxy proxy = RecordReplayProxy.shared();
+        if (proxy != null) {
+            options.addArguments("--proxy-server=" + proxy.getAddress());
+            // The proxy terminates TLS with its own self-signed certificate in record and replay mode. In block mode
+            // it only tunnels, so the certificates of the live site are still checked.
+            if (proxy.getMode() == RecordReplayProxy.Mode.RECORD || proxy.getMode() == RecordReplayProxy.Mode.REPLAY) {
+                options.addArguments("--ignore-certificate-errors");
+            }
+        }
+        return options;
+    }
+
+    public static PageLoadStrategy pageLoadStrategy() {
+        String strategy = FrameworkConfig.get("browser.page.load.strategy", isFast() ? "eager" : "normal");
+        return PageLoadStrategy.valueOf(strategy.toUpperCase());
+    }
+
+    // Headed browsers are maximized; headless ones already have their fixed viewport.
+    public static void sizeWindow(WebDriver driver) {
+        if (FrameworkConfig.get("browser.window.size", isFast() ? "1920,1080" : "").isEmpty()) {
+            driver.manage().window().maximize();
+        }
+    }
+
+    // The newest chromedriver of the cache, by the version directory it sits in
+    // (WebDriverManager keeps e.g. chromedriver/linux64/114.0.5735.90/chromedriver).
+    static Optional<Path> findCachedChromedriver(Path cache) {
+        if (!Files.isDirectory(cache)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.walk(cache)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.equals("chromedriver") || name.equals("chromedriver.exe");
+                    })
+                    .max(Comparator.comparing(BrowserLaunchProfile::versionOf, BrowserLaunchProfile::compareVersions)
+                            .thenComparing(Path::toString));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The name of the closest directory above the binary that looks like a version, or "" when there is none.
+    static String versionOf(Path chromedriver) {
+        for (Path directory = chromedriver.getParent(); directory != null && directory.getFileName() != null;
+             directory = directory.getParent()) {
+            String name = directory.getFileName().toString();
+            if (name.matches("\\d+(\\.\\d+)*")) {
+                return name;
+            }
+        }
+        return "";
+    }
+
+    // Compares dotted versions segment by segment as numbers, so 114.0 is newer than 99.0 and 9.10 than 9.9.
+    static int compareVersions(String first, String second) {
+        String[] firstSegments = first.isEmpty() ? new String[0] : first.split("\\.");
+        String[] secondSegments = second.isEmpty() ? new String[0] : second.split("\\.");
+        for (int i = 0; i < Math.max(firstSegments.length, secondSegments.length); i++) {
+            long firstSegment = i < firstSegments.length ? Long.parseLong(firstSegments[i]) : -1;
+            long secondSegment = i < secondSegments.length ? Long.parseLong(secondSegments[i]) : -1;
+            if (firstSegment != secondSegment) {
+                return Long.compare(firstSegment, secondSegment);
+            }
+        }
+        return 0;
+    }
+}
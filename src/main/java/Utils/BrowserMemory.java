@@ -0,0 +1,169 @@
+package Utils;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Measures how much memory the browsers of the run use per test running at the same time, so the tab mode
+// (-Dbrowser.mode=tabs) can be compared with one browser per test.
+// Every -Dmemory.sample.seconds the memory of all Chrome processes of the registered browsers (browser, renderers,
+// GPU, ...) is added up and divided by the number of tests running at that moment. Processes are recognised by
+// the user data directory of their browser. Memory is the proportional set size, so memory shared between the
+// processes of a browser is counted once, or the resident size where the kernel does not report it.
+// Only available on Linux; elsewhere the report says so.
+public final class BrowserMemory {
+
+    private static final Path PROC = Paths.get("/proc");
+
+    // Browser -> its user data directory.
+    private static final Map<WebDriver, String> browsers = new ConcurrentHashMap<>();
+    private static final AtomicInteger runningTests = new AtomicInteger();
+
+    private static final AtomicLong samples = new AtomicLong();
+    private static final AtomicLong perTestKbTotal = new AtomicLong();
+    private static final AtomicLong peakKb = new AtomicLong();
+    private static final AtomicInteger peakTests = new AtomicInteger();
+    private static final AtomicInteger peakBrowsers = new AtomicInteger();
+    private static ScheduledExecutorService sampler;
+
+    private BrowserMemory() {
+    }
+
+    public static boolean isSupported() {
+        return Files.isDirectory(PROC.resolve("self"));
+    }
+
+    // Starts following the processes of a new browser.
+    public static void register(WebDriver driver) {
+        if (!isSupported() || !(driver instanceof HasCapabilities)) {
+            return;
+        }
+        Object chrome = ((HasCapabilities) driver).getCapabilities().getCapability("chrome");
+        Object userDataDir = chrome instanceof Map ? ((Map<?, ?>) chrome).get("userDataDir") : null;
+        if (userDataDir != null) {
+            browsers.put(driver, userDataDir.toString());
+            startSampler();
+        }
+    }
+
+    public static void unregister(WebDriver driver) {
+        browsers.remove(driver);
+    }
+
+    public static void testStarted() {
+        runningTests.incrementAndGet();
+    }
+
+    public static void testFinished() {
+        runningTests.decrementAndGet();
+    }
+
+    public static synchronized void shutdown() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    public static String report() {
+        if (!isSupported()) {
+            return "Browser memory: not measured, /proc is not available on this system";
+        }
+        long count = samples.get();
+        if (count == 0) {
+            return "Browser memory: no sample was taken while tests were running";
+        }
+        return String.format("Browser memory (%s): %.0f MB per concurrent test on average; peak %.0f MB for %d concurrent "
+                        + "test(s) in %d browser process tree(s)",
+                FrameworkConfig.browserMode(), perTestKbTotal.get() / 1024.0 / count, peakKb.get() / 1024.0,
+                peakTests.get(), peakBrowsers.get());
+    }
+
+    private static synchronized void startSampler() {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "browser-memory-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = FrameworkConfig.getLong("memory.sample.seconds", 2);
+        sampler.scheduleAtFixedRate(BrowserMemory::sample, period, period, TimeUnit.SECONDS);
+    }
+
+    private static void sample() {
+        int tests = runningTests.get();
+        if (tests <= 0 || browsers.isEmpty()) {
+            return;
+        }
+        List<String> directories = List.copyOf(browsers.values());
+        List<Path> processes;
+        try (Stream<Path> entries = Files.list(PROC)) {
+            processes = entries.filter(path -> path.getFileName().toString().matches("\\d+")).collect(Collectors.toList());
+        } catch (IOException e) {
+            return;
+        }
+        long totalKb = 0;
+        for (Path process : processes) {
+            String commandLine = commandLine(process);
+            for (String directory : directories) {
+                if (commandLine.contains("--user-data-dir=" + directory + " ")) {
+                    totalKb += memoryKb(process);
+                    break;
+                }
+            }
+        }
+        samples.incrementAndGet();
+        perTestKbTotal.addAndGet(totalKb / tests);
+        if (totalKb > peakKb.get()) {
+            peakKb.set(totalKb);
+            peakTests.set(tests);
+            peakBrowsers.set(directories.size());
+        }
+    }
+
+    private static String commandLine(Path process) {
+        try {
+            // Arguments are separated, and ended, by a NUL character.
+            return new String(Files.readAllBytes(process.resolve("cmdline")), StandardCharsets.UTF_8).replace('\0', ' ');
+        } catch (IOException e) {
+            // The process ended in the meantime.
+            return "";
+        }
+    }
+
+    // Pss from smaps_rollup, or VmRSS from status on older kernels.
+    static long memoryKb(Path process) {
+        long pss = field(process.resolve("smaps_rollup"), "Pss:");
+        return pss >= 0 ? pss : Math.max(0, field(process.resolve("status"), "VmRSS:"));
+    }
+
+    private static long field(Path file, String name) {
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.startsWith(name)) {
+                    return Long.parseLong(line.substring(name.length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The process ended, or the file is not readable.
+        }
+        return -1;
+    }
+}
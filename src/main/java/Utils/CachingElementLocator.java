@@ -0,0 +1,72 @@
+package Utils;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import java.util.List;
+
+// Finds the element of a @FindBy field once per page state instead of on every access.
+// The cached element is dropped when the LocatorCache moves to a new generation (navigation, hash change,
+// new document) or when the element turned out to be stale.
+public class CachingElementLocator implements ElementLocator {
+
+    private final ElementLocator delegate;
+    private final LocatorCache cache;
+    private final String name;
+
+    private WebElement element;
+    private long elementGeneration = -1;
+    private List<WebElement> elements;
+    private long elementsGeneration = -1;
+
+    public CachingElementLocator(ElementLocator delegate, LocatorCache cache, String name) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.name = name;
+    }
+
+    // Every lookup, cached or not, links the running test to the field for test impact analysis.
+    @Override
+    public synchronized WebElement findElement() {
+        TestImpact.touch(name);
+        long generation = cache.getGeneration();
+        if (element != null && elementGeneration == generation) {
+            cache.recordHit();
+            return element;
+        }
+        cache.recordMiss();
+        element = delegate.findElement();
+        elementGeneration = generation;
+        return element;
+    }
+
+    @Override
+    public synchronized List<WebElement> findElements() {
+        TestImpact.touch(name);
+        long generation = cache.getGeneration();
+        if (elements != null && elementsGeneration == generation) {
+            cache.recordHit();
+            return elements;
+        }
+        cache.recordMiss();
+        elements = delegate.findElements();
+        elementsGeneration = generation;
+        return elements;
+    }
+
+    // Forgets the cached element after a StaleElementReferenceException.
+    public synchronized void evict() {
+        cache.recordStale();
+        element = null;
+        elements = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + delegate + ")";
+    }
+}
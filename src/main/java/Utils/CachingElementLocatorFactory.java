@@ -0,0 +1,27 @@
+package Utils;
+
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+import java.lang.reflect.Field;
+
+// Creates a CachingElementLocator for every @FindBy field of a page object.
+// All locators of one page object share the same LocatorCache.
+public class CachingElementLocatorFactory implements ElementLocatorFactory {
+
+    private final SearchContext searchContext;
+    private final LocatorCache cache;
+
+    public CachingElementLocatorFactory(SearchContext searchContext, LocatorCache cache) {
+        this.searchContext = searchContext;
+        this.cache = cache;
+    }
+
+    @Override
+    public ElementLocator createLocator(Field field) {
+        return new CachingElementLocator(new DefaultElementLocator(searchContext, field), cache,
+                field.getDeclaringClass().getSimpleName() + "." + field.getName());
+    }
+}
@@ -0,0 +1,234 @@
+package Utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Times every WebDriver command of the run.
+// Commands are grouped by type (findElement, clickElement, get, ...) in latency histograms, and counted per test
+// and per page-object method that issued them. Every invocation of a test (an attempt of a retried test, a row
+// of a DataProvider) gets its own counts for the report; the export adds up the invocations of each test.
+// At the end of the run everything is written to
+//   target/command-metrics.json   for scripts and CI budget checks
+//   target/command-metrics.prom   in OpenMetrics text format
+public final class CommandMetrics {
+
+    private static final String NO_TEST = "(outside tests)";
+
+    private static final Map<String, LatencyHistogram> BY_COMMAND = new ConcurrentSkipListMap<>();
+    private static final Map<String, TestStats> BY_TEST = new ConcurrentSkipListMap<>();
+    private static final ThreadLocal<Invocation> CURRENT = new ThreadLocal<>();
+
+    private CommandMetrics() {
+    }
+
+    // Attributes the commands issued by the current thread to the given test until finishTest() is called.
+    public static void startTest(String testName) {
+        CURRENT.set(new Invocation(BY_TEST.computeIfAbsent(testName, key -> new TestStats())));
+    }
+
+    // Stops attributing commands to the current test and returns what this invocation of it issued.
+    public static TestStats finishTest() {
+        Invocation invocation = CURRENT.get();
+        CURRENT.remove();
+        if (invocation == null) {
+            return new TestStats();
+        }
+        invocation.total.invocations.incrementAndGet();
+        return invocation.stats;
+    }
+
+    public static void record(String command, String pageMethod, long nanos) {
+        BY_COMMAND.computeIfAbsent(command, key -> new LatencyHistogram()).record(nanos);
+        Invocation invocation = CURRENT.get();
+        if (invocation == null) {
+            BY_TEST.computeIfAbsent(NO_TEST, key -> new TestStats()).record(command, pageMethod, nanos);
+        } else {
+            invocation.stats.record(command, pageMethod, nanos);
+            invocation.total.record(command, pageMethod, nanos);
+        }
+    }
+
+    // The totals of every test of the run, by test name, with all its invocations added up.
+    static Map<String, TestStats> getTestTotals() {
+        return BY_TEST;
+    }
+
+    // Forgets everything recorded so far.
+    static void reset() {
+        BY_COMMAND.clear();
+        BY_TEST.clear();
+        CURRENT.remove();
+    }
+
+    public static Map<String, LatencyHistogram> getCommandHistograms() {
+        return BY_COMMAND;
+    }
+
+    // Rows for a report table: command, count, p50, p95, p99, max.
+    public static String[][] commandTable() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Command", "Count", "p50 ms", "p95 ms", "p99 ms", "max ms"});
+        BY_COMMAND.forEach((command, histogram) -> rows.add(new String[]{
+                command,
+                String.valueOf(histogram.getCount()),
+                format(histogram.percentileMillis(50)),
+                format(histogram.percentileMillis(95)),
+                format(histogram.percentileMillis(99)),
+                format(histogram.getMaxMillis())}));
+        return rows.toArray(new String[0][]);
+    }
+
+    public static void export() throws IOException {
+        Path directory = Paths.get(FrameworkConfig.get("metrics.dir", "target"));
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("command-metrics.json"), toJson().getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("command-metrics.prom"), toOpenMetrics().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"commands\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry : BY_COMMAND.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append("    ").append(Json.quote(entry.getKey())).append(": {")
+                    .append("\"count\": ").append(histogram.getCount())
+                    .append(", \"sum_ms\": ").append(Json.number(histogram.getSumMillis()))
+                    .append(", \"p50_ms\": ").append(Json.number(histogram.percentileMillis(50)))
+                    .append(", \"p95_ms\": ").append(Json.number(histogram.percentileMillis(95)))
+                    .append(", \"p99_ms\": ").append(Json.number(histogram.percentileMillis(99)))
+                    .append(", \"max_ms\": ").append(Json.number(histogram.getMaxMillis()))
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"tests\": {");
+        separator = "\n";
+        for (Map.Entry<String, TestStats> entry : BY_TEST.entrySet()) {
+            TestStats stats = entry.getValue();
+            json.append(separator).append("    ").append(Json.quote(entry.getKey())).append(": {")
+                    .append("\"invocations\": ").append(stats.getInvocations())
+                    .append(", \"commands\": ").append(stats.getCommandCount())
+                    .append(", \"total_ms\": ").append(Json.number(stats.getTotalMillis()))
+                    .append(", \"by_command\": ").append(countsToJson(stats.byCommand))
+                    .append(", \"by_page_method\": ").append(countsToJson(stats.byPageMethod))
+                    .append("}");
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    static String toOpenMetrics() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE webdriver_command_duration_seconds summary\n");
+        out.append("# HELP webdriver_command_duration_seconds Latency of WebDriver commands.\n");
+        BY_COMMAND.forEach((command, histogram) -> {
+            String label = "command=\"" + command + "\"";
+            for (double quantile : new double[]{0.5, 0.95, 0.99}) {
+                out.append("webdriver_command_duration_seconds{").append(label).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(histogram.percentileMillis(quantile * 100))).append('\n');
+            }
+            out.append("webdriver_command_duration_seconds_sum{").append(label).append("} ")
+                    .append(seconds(histogram.getSumMillis())).append('\n');
+            out.append("webdriver_command_duration_seconds_count{").append(label).append("} ")
+                    .append(histogram.getCount()).append('\n');
+        });
+        out.append("# TYPE webdriver_test_commands gauge\n");
+        out.append("# HELP webdriver_test_commands Number of WebDriver commands issued by a test.\n");
+        BY_TEST.forEach((test, stats) -> out.append("webdriver_test_commands{test=\"").append(test).append("\"} ")
+                .append(stats.getCommandCount()).append('\n'));
+        out.append("# TYPE webdriver_test_command_seconds gauge\n");
+        out.append("# HELP webdriver_test_command_seconds Time a test spent waiting for WebDriver commands.\n");
+        BY_TEST.forEach((test, stats) -> out.append("webdriver_test_command_seconds{test=\"").append(test).append("\"} ")
+                .append(seconds(stats.getTotalMillis())).append('\n'));
+        return out.append("# EOF\n").toString();
+    }
+
+    private static String countsToJson(Map<String, AtomicLong> counts) {
+        StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counts).entrySet()) {
+            json.append(separator).append(Json.quote(entry.getKey())).append(": ").append(entry.getValue().get());
+            separator = ", ";
+        }
+        return json.append("}").toString();
+    }
+
+    private static String seconds(double millis) {
+        return String.format(Locale.ROOT, "%.6f", millis / 1000.0);
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    // The test the current thread runs: the counts of this invocation and the totals of the test.
+    private static class Invocation {
+        private final TestStats stats = new TestStats();
+        private final TestStats total;
+
+        Invocation(TestStats total) {
+            this.total = total;
+        }
+    }
+
+    // The commands issued by one invocation of a test, or by all its invocations together.
+    public static class TestStats {
+        private final Map<String, AtomicLong> byCommand = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> byPageMethod = new ConcurrentHashMap<>();
+        private final AtomicLong commandCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong invocations = new AtomicLong();
+
+        void record(String command, String pageMethod, long nanos) {
+            byCommand.computeIfAbsent(command, key -> new AtomicLong()).incrementAndGet();
+            if (pageMethod != null) {
+                byPageMethod.computeIfAbsent(pageMethod, key -> new AtomicLong()).incrementAndGet();
+            }
+            commandCount.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+        }
+
+        public long getCommandCount() {
+            return commandCount.get();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.get() / 1e6;
+        }
+
+        // How many invocations finished; only counted in the totals of a test.
+        public long getInvocations() {
+            return invocations.get();
+        }
+
+        // The number of commands the given page-object method issued.
+        public long getPageMethodCount(String pageMethod) {
+            AtomicLong count = byPageMethod.get(pageMethod);
+            return count == null ? 0 : count.get();
+        }
+
+        // Rows for a report table: page-object method and number of commands it issued.
+        public String[][] pageMethodTable() {
+            List<String[]> rows = new ArrayList<>();
+            rows.add(new String[]{"Page method", "Commands"});
+            new TreeMap<>(byPageMethod).forEach((method, count) -> rows.add(new String[]{method, String.valueOf(count.get())}));
+            return rows.toArray(new String[0][]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d WebDriver commands, %.0f ms waiting for the browser",
+                    getCommandCount(), getTotalMillis());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package Utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A small JDBC connection pool for the test fixtures.
+// Connections are opened lazily, up to the maximum size, and every connection keeps its prepared statements,
+// so a statement is parsed by the database once per connection instead of once per use.
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger opened = new AtomicInteger();
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        PooledConnection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        if (opened.incrementAndGet() <= maxSize) {
+            try {
+                return new PooledConnection(DriverManager.getConnection(url, user, password));
+            } catch (SQLException e) {
+                opened.decrementAndGet();
+                throw e;
+            }
+        }
+        opened.decrementAndGet();
+        try {
+            connection = idle.poll(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (connection == null) {
+            throw new SQLException("No database connection became available within 30 seconds");
+        }
+        return connection;
+    }
+
+    // Returns a healthy connection to the pool; a broken one is closed so a new one is opened next time.
+    public void giveBack(PooledConnection connection, boolean broken) {
+        if (broken) {
+            connection.closeQuietly();
+            opened.decrementAndGet();
+        } else {
+            idle.offer(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.closeQuietly();
+            opened.decrementAndGet();
+        }
+    }
+
+    // A connection together with the statements prepared on it.
+    public static class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // The connection is being discarded anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Cleans up the data the tests create in the application database.
+// By default (-Ddb.cleanup=batched) a cleanup is only queued: the same organisation is queued once however many
+// tests ask for it, and the queue is deleted in a single JDBC batch at the end of a test class (in the
+// background) and at the end of the suite. With -Ddb.cleanup=inline every call deletes immediately.
+// Connections come from a small pool and the delete statement is prepared once per connection.
+//   -Ddb.url=jdbc:mysql://host:3306/schema -Ddb.user=... -Ddb.password=...
+// Without a db.url the cleanups are skipped.
+public final class DatabaseUtils {
+
+    private static final Set<String> pendingOrganisations = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService cleaner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "database-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static String url = FrameworkConfig.get("db.url", "");
+    private static String user = FrameworkConfig.get("db.user", "");
+    private static String password = FrameworkConfig.get("db.password", "");
+    private static ConnectionPool pool;
+    private static boolean warnedAboutMissingUrl;
+
+    private DatabaseUtils() {
+    }
+
+    // Points the fixtures at another database, e.g. an embedded one.
+    public static synchronized void configure(String url, String user, String password) {
+        closePool();
+        DatabaseUtils.url = url;
+        DatabaseUtils.user = user;
+        DatabaseUtils.password = password;
+    }
+
+    public static void deleteVenueByOrganisationId(String organisationId) {
+        if ("inline".equalsIgnoreCase(FrameworkConfig.get("db.cleanup", "batched"))) {
+            deleteVenues(List.of(organisationId));
+        } else {
+            pendingOrganisations.add(organisationId);
+        }
+    }
+
+    // Deletes the queued cleanups in the background; the returned future completes with the number of rows deleted.
+    public static CompletableFuture<Integer> flushAsync() {
+        List<String> organisations = new ArrayList<>();
+        for (String organisationId : pendingOrganisations) {
+            if (pendingOrganisations.remove(organisationId)) {
+                organisations.add(organisationId);
+            }
+        }
+        if (organisations.isEmpty()) {
+            // Still goes through the cleaner, so the future also waits for cleanups that are already running.
+            return CompletableFuture.supplyAsync(() -> 0, cleaner);
+        }
+        return CompletableFuture.supplyAsync(() -> deleteVenues(organisations), cleaner);
+    }
+
+    // Deletes the queued cleanups and waits until the background cleaner is done with all of its work.
+    public static int flush() {
+        try {
+            return flushAsync().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while cleaning up the database", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not clean up the database", e.getCause());
+        }
+    }
+
+    public static int pendingCleanups() {
+        return pendingOrganisations.size();
+    }
+
+    public static synchronized void shutdown() {
+        closePool();
+    }
+
+    // Deletes the venues of all the given organisations in one JDBC batch and one transaction.
+    static int deleteVenues(Collection<String> organisationIds) {
+        ConnectionPool connections = pool();
+        if (connections == null) {
+            return 0;
+        }
+        String sql = "DELETE FROM " + FrameworkConfig.get("db.venue.table", "venues")
+                + " WHERE " + FrameworkConfig.get("db.venue.organisation.column", "organisation_id") + " = ?";
+        ConnectionPool.PooledConnection pooled = null;
+        boolean broken = false;
+        try {
+            pooled = connections.borrow();
+            Connection connection = pooled.getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement statement = pooled.prepare(sql);
+                for (String organisationId : organisationIds) {
+                    statement.setString(1, organisationId);
+                    statement.addBatch();
+                }
+                int deleted = 0;
+                for (int count : statement.executeBatch()) {
+                    deleted += Math.max(count, 0);
+                }
+                connection.commit();
+                return deleted;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            broken = true;
+            throw new IllegalStateException("Could not delete the venues of " + organisationIds, e);
+        } finally {
+            if (pooled != null) {
+                connections.giveBack(pooled, broken);
+            }
+        }
+    }
+
+    private static synchronized ConnectionPool pool() {
+        if (url.isEmpty()) {
+            if (!warnedAboutMissingUrl) {
+                System.out.println("No -Ddb.url configured, database cleanups are skipped.");
+                warnedAboutMissingUrl = true;
+            }
+            return null;
+        }
+        if (pool == null) {
+            pool = new ConnectionPool(url, user, password, FrameworkConfig.getInt("db.pool.size", 2));
+        }
+        return pool;
+    }
+
+    private static void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+}
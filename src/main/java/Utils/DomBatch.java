@@ -0,0 +1,159 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Collects several reads and form fills and runs them in a single executeScript call.
+// Every locate + getText or sendKeys is a round trip to the browser (tens of milliseconds on a remote grid),
+// so reading all the amounts of the cart or filling the whole checkout form at once saves most of that time.
+// Fills use the native value setter and fire 'input' and 'change' events, which is what React listens to.
+// Run with -Ddom.batch=false to fall back to native WebDriver interactions.
+public class DomBatch {
+
+    private static final String BATCH_SCRIPT =
+            "var ops = arguments[0], values = {};" +
+            PageAssertions.FIND_FUNCTION +
+            "var fill = function (e, v) {" +
+            "  var proto = e instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype" +
+            "      : e instanceof HTMLSelectElement ? HTMLSelectElement.prototype : HTMLInputElement.prototype;" +
+            "  var descriptor = Object.getOwnPropertyDescriptor(proto, 'value');" +
+            "  e.focus();" +
+            "  if (descriptor && descriptor.set) { descriptor.set.call(e, v); } else { e.value = v; }" +
+            "  e.dispatchEvent(new Event('input', {bubbles: true}));" +
+            "  e.dispatchEvent(new Event('change', {bubbles: true}));" +
+            "  e.blur();" +
+            "};" +
+            "for (var i = 0; i < ops.length; i++) {" +
+            "  var op = ops[i], nodes = find(op.how, op.what);" +
+            "  if (op.type === 'read') {" +
+            "    values[op.key] = Array.prototype.map.call(nodes, function (n) { return (n.innerText || '').trim(); });" +
+            "  } else if (nodes.length === 0) {" +
+            "    return {error: 'No element matches By.' + op.how + ': ' + op.what};" +
+            "  } else {" +
+            "    fill(nodes[0], op.value);" +
+            "  }" +
+            "}" +
+            "return {values: values};";
+
+    private final WebDriver driver;
+    private final boolean nativeInteractions;
+    private final List<Map<String, Object>> operations = new ArrayList<>();
+    private final List<By> locators = new ArrayList<>();
+
+    public DomBatch(WebDriver driver) {
+        this(driver, !FrameworkConfig.getBoolean("dom.batch", true));
+    }
+
+    public DomBatch(WebDriver driver, boolean nativeInteractions) {
+        this.driver = driver;
+        this.nativeInteractions = nativeInteractions;
+    }
+
+    // Reads the visible text of every element matching the CSS selector.
+    public DomBatch readTexts(String key, String cssSelector) {
+        return readTexts(key, By.cssSelector(cssSelector));
+    }
+
+    public DomBatch readTexts(String key, By locator) {
+        Map<String, Object> operation = operation("read", locator);
+        operation.put("key", key);
+        return this;
+    }
+
+    // Replaces the value of the first element matching the CSS selector.
+    public DomBatch fill(String cssSelector, String value) {
+        return fill(By.cssSelector(cssSelector), value);
+    }
+
+    // Replaces the value of the first element the locator finds, e.g. the locator of a @FindBy field of the page
+    // (see BasePage.locatorOf), so the form is filled through the same locators as the rest of the page object.
+    public DomBatch fill(By locator, String value) {
+        Map<String, Object> operation = operation("fill", locator);
+        operation.put("value", value);
+        return this;
+    }
+
+    private Map<String, Object> operation(String type, By locator) {
+        Map<String, Object> operation = new HashMap<>(PageAssertions.script(locator));
+        operation.put("type", type);
+        operations.add(operation);
+        locators.add(locator);
+        return operation;
+    }
+
+    public Result execute() {
+        if (nativeInteractions) {
+            return executeNatively();
+        }
+        Map<?, ?> response = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(BATCH_SCRIPT, operations);
+        if (response.get("error") != null) {
+            throw new NoSuchElementException(String.valueOf(response.get("error")));
+        }
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        ((Map<?, ?>) response.get("values")).forEach((key, texts) -> {
+            List<String> list = new ArrayList<>();
+            for (Object text : (List<?>) texts) {
+                list.add(String.valueOf(text));
+            }
+            values.put(String.valueOf(key), list);
+        });
+        return new Result(values);
+    }
+
+    private Result executeNatively() {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            Map<String, Object> operation = operations.get(i);
+            By by = locators.get(i);
+            if ("read".equals(operation.get("type"))) {
+                List<String> texts = new ArrayList<>();
+                for (WebElement element : driver.findElements(by)) {
+                    texts.add(element.getText().trim());
+                }
+                values.put((String) operation.get("key"), texts);
+            } else {
+                WebElement element = driver.findElement(by);
+                element.clear();
+                element.sendKeys((String) operation.get("value"));
+            }
+        }
+        return new Result(values);
+    }
+
+    // The values read by a batch, by the key they were requested with.
+    public static class Result {
+        private final Map<String, List<String>> values;
+
+        Result(Map<String, List<String>> values) {
+            this.values = values;
+        }
+
+        public List<String> getTexts(String key) {
+            return values.getOrDefault(key, Collections.emptyList());
+        }
+
+        public String getText(String key) {
+            List<String> texts = getTexts(key);
+            return texts.isEmpty() ? null : texts.get(0);
+        }
+
+        // Parses texts such as "$15.99" into numbers.
+        public List<Double> getAmounts(String key) {
+            List<Double> amounts = new ArrayList<>();
+            for (String text : getTexts(key)) {
+                amounts.add(Double.parseDouble(text.replace("$", "").replace(",", "").trim()));
+            }
+            return amounts;
+        }
+    }
+}
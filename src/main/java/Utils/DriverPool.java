@@ -0,0 +1,309 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Supplier;
+
+// A bounded pool of warm browser sessions.
+// Starting Chrome is the most expensive step of a test, so instead of quitting the browser after every test
+// the session is reset (cookies, localStorage, sessionStorage, start URL) and handed to the next test.
+// Sessions that are broken, too old or used too many times are quit and replaced.
+public class DriverPool {
+
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private static final String CLEAR_TAB_STORAGE_SCRIPT =
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private static final String CLEAR_LOCAL_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver> driverFactory;
+    private final String startUrl;
+    private final long maxAgeMillis;
+    private final int maxLeases;
+    private final long leaseTimeoutMillis;
+    private final boolean sharedBrowsers;
+
+    // Idle sessions, most recently released first so the warmest browser is reused.
+    private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+
+    // Every session that is still open, idle or leased, so shutdown() can quit all of them.
+    private final Set<PooledSession> open = ConcurrentHashMap.newKeySet();
+
+    // One permit per session that may still be started.
+    private final Semaphore capacity;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+    private final LongAccumulator maxLeaseWaitNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong launchNanos = new AtomicLong();
+    private final LongAccumulator maxLaunchNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong firstLoadNanos = new AtomicLong();
+
+    public DriverPool(Supplier<WebDriver> driverFactory, String startUrl, int maxSize,
+                      long maxAgeSeconds, int maxLeases, long leaseTimeoutSeconds) {
+        this(driverFactory, startUrl, maxSize, maxAgeSeconds, maxLeases, leaseTimeoutSeconds, false);
+    }
+
+    // With shared browsers the sessions are tabs of browsers that other sessions also use (see TabMultiplexer),
+    // so a reset only clears what belongs to the tab and leaves the cookies and localStorage of the site alone.
+    public DriverPool(Supplier<WebDriver> driverFactory, String startUrl, int maxSize,
+                      long maxAgeSeconds, int maxLeases, long leaseTimeoutSeconds, boolean sharedBrowsers) {
+        this.driverFactory = driverFactory;
+        this.sharedBrowsers = sharedBrowsers;
+        this.startUrl = startUrl;
+        this.capacity = new Semaphore(maxSize);
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        this.maxLeases = maxLeases;
+        this.leaseTimeoutMillis = TimeUnit.SECONDS.toMillis(leaseTimeoutSeconds);
+    }
+
+    // Hands out a session that is already on the start URL.
+    // Blocks while all sessions are in use, up to the lease timeout.
+    public PooledSession lease() {
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + leaseTimeoutMillis;
+        PooledSession session = null;
+        try {
+            while (session == null) {
+                PooledSession candidate = idle.pollFirst();
+                if (candidate == null && capacity.tryAcquire()) {
+                    session = create();
+                } else if (candidate == null) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new IllegalStateException("No browser session became available within "
+                                + leaseTimeoutMillis + " ms");
+                    }
+                    // Poll in short steps so a permit freed by an eviction is noticed quickly.
+                    candidate = idle.pollFirst(250, TimeUnit.MILLISECONDS);
+                }
+                if (candidate != null) {
+                    if (isExpired(candidate)) {
+                        evict(candidate);
+                    } else {
+                        reuses.incrementAndGet();
+                        session = candidate;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+        }
+        long waited = System.nanoTime() - start;
+        leaseWaitNanos.addAndGet(waited);
+        maxLeaseWaitNanos.accumulate(waited);
+        leases.incrementAndGet();
+        session.leaseCount++;
+        return session;
+    }
+
+    // Resets the session and puts it back in the pool.
+    // A session that fails to reset is considered broken and is replaced on a later lease.
+    public void release(PooledSession session) {
+        if (session == null) {
+            return;
+        }
+        if (isExpired(session)) {
+            evict(session);
+            return;
+        }
+        try {
+            reset(session);
+            idle.offerFirst(session);
+        } catch (WebDriverException e) {
+            evict(session);
+        }
+    }
+
+    // Resets the session without returning it to the pool, e.g. to retry a test in the same browser.
+    // Returns false when the browser could not be reset; it has then been quit.
+    public boolean resetInPlace(PooledSession session) {
+        try {
+            reset(session);
+            return true;
+        } catch (WebDriverException e) {
+            evict(session);
+            return false;
+        }
+    }
+
+    // Quits the session instead of returning it to the pool.
+    public void discard(PooledSession session) {
+        if (session != null) {
+            evict(session);
+        }
+    }
+
+    // Quits every session, including the ones still leased (e.g. by a test that never reached its teardown).
+    public void shutdown() {
+        idle.clear();
+        for (PooledSession session : open) {
+            evict(session);
+        }
+    }
+
+    public String report() {
+        long leaseCount = leases.get();
+        double avgWaitMs = leaseCount == 0 ? 0 : leaseWaitNanos.get() / 1e6 / leaseCount;
+        double reusePercent = leaseCount == 0 ? 0 : reuses.get() * 100.0 / leaseCount;
+        long started = created.get();
+        return String.format("Browser session pool: leases=%d, started=%d, reused=%d (%.0f%%), evicted=%d, "
+                        + "lease wait avg=%.1f ms, max=%.1f ms, "
+                        + "browser launch avg=%.0f ms, max=%.0f ms, first page load avg=%.0f ms",
+                leaseCount, started, reuses.get(), reusePercent, evicted.get(),
+                avgWaitMs, maxLeaseWaitNanos.get() / 1e6,
+                started == 0 ? 0 : launchNanos.get() / 1e6 / started, maxLaunchNanos.get() / 1e6,
+                started == 0 ? 0 : firstLoadNanos.get() / 1e6 / started);
+    }
+
+    private PooledSession create() {
+        try {
+            long start = System.nanoTime();
+            WebDriver driver = driverFactory.get();
+            long launched = System.nanoTime();
+            try {
+                navigateToStart(driver);
+            } catch (RuntimeException e) {
+                driver.quit();
+                throw e;
+            }
+            long firstLoad = System.nanoTime() - launched;
+            launchNanos.addAndGet(launched - start);
+            maxLaunchNanos.accumulate(launched - start);
+            firstLoadNanos.addAndGet(firstLoad);
+            created.incrementAndGet();
+            PooledSession session = new PooledSession(driver, firstLoad / 1_000_000);
+            open.add(session);
+            return session;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void reset(PooledSession session) {
+        WebDriver driver = session.getDriver();
+        // Storage and cookies can only be cleared for the origin of the current page. A test that ended on
+        // another site (e.g. a product page on emag) would leave the state of the start origin behind,
+        // so the browser goes back to the start origin first.
+        if (!sameOrigin(driver.getCurrentUrl(), startUrl)) {
+            driver.get(startUrl);
+        }
+        if (sharedBrowsers) {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_TAB_STORAGE_SCRIPT);
+            // Cookies and localStorage belong to the whole browser; they are cleared once no other test is using it.
+            if (!sharesBrowserWithLeasedSession(session)) {
+                ((JavascriptExecutor) driver).executeScript(CLEAR_LOCAL_STORAGE_SCRIPT);
+                driver.manage().deleteAllCookies();
+            }
+        } else {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+            driver.manage().deleteAllCookies();
+        }
+        navigateToStart(driver);
+    }
+
+    // Whether another leased session is a tab of the same browser as the session.
+    private boolean sharesBrowserWithLeasedSession(PooledSession session) {
+        if (!(session.getDriver() instanceof TabDriver)) {
+            return false;
+        }
+        TabHost host = ((TabDriver) session.getDriver()).getHost();
+        for (PooledSession other : open) {
+            if (other != session && !idle.contains(other) && other.getDriver() instanceof TabDriver
+                    && ((TabDriver) other.getDriver()).getHost() == host) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // With an 'eager' or 'none' page load strategy get() returns early, so the readiness engine decides
+    // when the start page can be used.
+    private void navigateToStart(WebDriver driver) {
+        driver.get(startUrl);
+        new Readiness(driver).waitForPageReady();
+    }
+
+    static boolean sameOrigin(String url, String otherUrl) {
+        try {
+            URI uri = URI.create(url);
+            URI other = URI.create(otherUrl);
+            return uri.getScheme() != null && uri.getScheme().equalsIgnoreCase(other.getScheme())
+                    && uri.getHost() != null && uri.getHost().equalsIgnoreCase(other.getHost())
+                    && port(uri) == port(other);
+        } catch (IllegalArgumentException e) {
+            // about:blank, data: URLs and the like.
+            return false;
+        }
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private boolean isExpired(PooledSession session) {
+        return System.currentTimeMillis() - session.createdAt > maxAgeMillis || session.leaseCount >= maxLeases;
+    }
+
+    private void evict(PooledSession session) {
+        if (!open.remove(session)) {
+            // Already quit, e.g. by shutdown().
+            return;
+        }
+        try {
+            session.getDriver().quit();
+        } catch (WebDriverException ignored) {
+            // The browser is already gone, nothing left to close.
+        } finally {
+            evicted.incrementAndGet();
+            capacity.release();
+        }
+    }
+
+    // A browser session owned by the pool, together with the data used to decide when to replace it.
+    public static class PooledSession {
+        private final WebDriver driver;
+        private final long createdAt = System.currentTimeMillis();
+        private final long firstLoadMillis;
+        private int leaseCount;
+
+        PooledSession(WebDriver driver, long firstLoadMillis) {
+            this.driver = driver;
+            this.firstLoadMillis = firstLoadMillis;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+
+        public int getLeaseCount() {
+            return leaseCount;
+        }
+
+        // How long the start page took to load right after the browser was launched.
+        public long getFirstLoadMillis() {
+            return firstLoadMillis;
+        }
+    }
+}
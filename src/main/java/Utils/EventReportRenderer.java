@@ -0,0 +1,327 @@
+package Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Builds an HTML report from one or more result event logs (see ResultEventLog):
+//   java -cp <test classpath> Utils.EventReportRenderer target/report-events.jsonl target/shards/ ...
+// The report (-Dreport.events.dir, target/event-report) is a static index.html plus data files:
+//   tests.js          one summary per test (name, outcome, duration, number of steps), rewritten on every render
+//   steps/<t>-<p>.js  page p of the steps of test t, STEPS_PER_PAGE steps each, only ever appended to
+// index.html loads the summaries, pages through them, and loads the steps of a test page by page when it is opened,
+// so a report with tens of thousands of steps opens as fast as a small one. Plain script files are used instead of
+// JSON so the report also works when opened straight from disk.
+// Rendering is incremental: state.tsv remembers how far every log has been read, and a new render only reads what
+// was appended since. Logs of several shards or runs can be rendered into the same report; tests are told apart
+// by the run they belong to. Renders into the same directory take turns: within the JVM, and across processes
+// (e.g. shards finishing at the same time) through a lock on render.lock in the output directory.
+public final class EventReportRenderer {
+
+    static final int STEPS_PER_PAGE = 200;
+    private static final int OPEN_PAGE_FILES = 64;
+
+    private final Path outputDirectory;
+    private final Map<String, Long> offsets = new LinkedHashMap<>();
+    private final Map<String, TestSummary> tests = new LinkedHashMap<>();
+
+    // Page files that are still being appended to, least recently used first.
+    private final Map<Path, Writer> pageFiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Writer> eldest) {
+            if (size() > OPEN_PAGE_FILES) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private EventReportRenderer(Path outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> locations = new ArrayList<>();
+        if (args.length == 0) {
+            locations.add(Paths.get(FrameworkConfig.eventLog()));
+            locations.add(Paths.get(FrameworkConfig.shardResultsDir()));
+        }
+        for (String arg : args) {
+            locations.add(Paths.get(arg));
+        }
+        List<Path> logs = findLogs(locations);
+        if (logs.isEmpty()) {
+            throw new IllegalArgumentException("No result event logs found in " + locations);
+        }
+        render(logs, Paths.get(FrameworkConfig.eventReportDir()));
+    }
+
+    // Brings the report in the output directory up to date with the logs and returns the path of its index.html.
+    public static synchronized Path render(List<Path> logs, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        try (FileChannel lockFile = FileChannel.open(outputDirectory.resolve("render.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockFile.lock()) {
+            return renderLocked(logs, outputDirectory);
+        }
+    }
+
+    private static Path renderLocked(List<Path> logs, Path outputDirectory) throws IOException {
+        long start = System.nanoTime();
+        EventReportRenderer renderer = new EventReportRenderer(outputDirectory);
+        boolean incremental = renderer.loadState();
+        for (Path log : logs) {
+            Long offset = renderer.offsets.get(log.toAbsolutePath().toString());
+            if (offset != null && Files.size(log) < offset) {
+                // A log was replaced, the report has to be built again from the start.
+                incremental = false;
+                break;
+            }
+        }
+        if (!incremental) {
+            renderer = new EventReportRenderer(outputDirectory);
+            renderer.clear();
+        }
+        long events = 0;
+        try {
+            for (Path log : logs) {
+                events += renderer.read(log);
+            }
+        } finally {
+            renderer.closePageFiles();
+        }
+        renderer.writeSummaries();
+        renderer.saveState();
+        Path index = outputDirectory.resolve("index.html");
+        if (!Files.exists(index)) {
+            try (InputStream page = EventReportRenderer.class.getClassLoader().getResourceAsStream("event-report/index.html")) {
+                if (page == null) {
+                    throw new IOException("The report page event-report/index.html is missing from the classpath");
+                }
+                Files.copy(page, index);
+            }
+        }
+        System.out.printf("Event report %s: %d new event(s) from %d log(s), %s, %d test(s) in %.0f ms%n", index,
+                events, logs.size(), incremental ? "incremental" : "full render", renderer.tests.size(),
+                (System.nanoTime() - start) / 1e6);
+        return index;
+    }
+
+    // The logs among the given files and directories: every events*.jsonl and report-events*.jsonl.
+    static List<Path> findLogs(List<Path> locations) throws IOException {
+        List<Path> logs = new ArrayList<>();
+        for (Path location : locations) {
+            if (Files.isRegularFile(location)) {
+                logs.add(location);
+            } else if (Files.isDirectory(location)) {
+                try (Stream<Path> files = Files.walk(location)) {
+                    files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return (name.startsWith("events") || name.startsWith("report-events")) && name.endsWith(".jsonl");
+                    }).sorted().forEach(logs::add);
+                }
+            }
+        }
+        return logs;
+    }
+
+    // Reads the events appended to a log since the last render. A last line without its line break is still
+    // being written and is left for the next render. Returns the number of events read.
+    private long read(Path log) throws IOException {
+        String key = log.toAbsolutePath().toString();
+        long offset = offsets.getOrDefault(key, 0L);
+        long events = 0;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            channel.position(offset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                offset += line.size() + 1;
+                String text = line.toString(StandardCharsets.UTF_8).trim();
+                line.reset();
+                if (!text.isEmpty()) {
+                    apply(Json.parseFlatObject(text, log + "@" + offset), log.getFileName().toString());
+                    events++;
+                }
+            }
+        }
+        offsets.put(key, offset);
+        return events;
+    }
+
+    private void apply(Map<String, String> event, String source) throws IOException {
+        String key = event.get("run") + "/" + event.get("test");
+        TestSummary test = tests.get(key);
+        if (test == null) {
+            test = new TestSummary(tests.size() + 1, key, event.get("run"), source);
+            tests.put(key, test);
+        }
+        switch (event.getOrDefault("type", "")) {
+            case "start":
+                test.name = event.get("name");
+                test.start = Long.parseLong(event.get("time"));
+                break;
+            case "end":
+                test.status = event.get("status");
+                test.millis = Long.parseLong(event.get("millis"));
+                break;
+            case "log":
+                int page = test.steps / STEPS_PER_PAGE;
+                test.steps++;
+                boolean html = event.containsKey("html");
+                pageFile(test.id, page).write("S(" + test.id + "," + page + ",{\"status\":" + Json.quote(event.get("status"))
+                        + ",\"time\":" + event.get("time") + ",\"" + (html ? "html" : "text") + "\":"
+                        + Json.quote(event.get(html ? "html" : "text")) + "});\n");
+                break;
+            default:
+                // Events of a newer version of the log are ignored.
+        }
+    }
+
+    private Writer pageFile(int test, int page) throws IOException {
+        Path file = outputDirectory.resolve("steps").resolve(test + "-" + page + ".js");
+        Writer writer = pageFiles.get(file);
+        if (writer == null) {
+            Files.createDirectories(file.getParent());
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            pageFiles.put(file, writer);
+        }
+        return writer;
+    }
+
+    private void closePageFiles() throws IOException {
+        IOException failure = null;
+        for (Writer writer : pageFiles.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        pageFiles.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeSummaries() throws IOException {
+        Path file = outputDirectory.resolve("tests.js");
+        Path temporary = outputDirectory.resolve("tests.js.tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write("T(" + STEPS_PER_PAGE + ",[\n");
+            boolean first = true;
+            for (TestSummary test : tests.values()) {
+                out.write((first ? "" : ",\n") + "{\"id\":" + test.id + ",\"name\":" + Json.quote(test.name)
+                        + ",\"status\":" + Json.quote(test.status) + ",\"start\":" + test.start + ",\"millis\":" + test.millis
+                        + ",\"steps\":" + test.steps + ",\"run\":" + Json.quote(test.run) + ",\"source\":" + Json.quote(test.source) + "}");
+                first = false;
+            }
+            out.write("\n]);\n");
+        }
+        // Replacing the file in one step, so a browser refreshing the report never sees half of it.
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns false when there is no earlier report to continue from.
+    private boolean loadState() throws IOException {
+        Path file = outputDirectory.resolve("state.tsv");
+        if (!Files.exists(file) || !Files.exists(outputDirectory.resolve("tests.js"))) {
+            return false;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", -1);
+            if (fields[0].equals("log")) {
+                offsets.put(fields[1], Long.parseLong(fields[2]));
+            } else if (fields[0].equals("test")) {
+                TestSummary test = new TestSummary(Integer.parseInt(fields[1]), fields[2], fields[3], fields[4]);
+                test.status = fields[5];
+                test.start = Long.parseLong(fields[6]);
+                test.millis = Long.parseLong(fields[7]);
+                test.steps = Integer.parseInt(fields[8]);
+                test.name = fields[9];
+                tests.put(test.key, test);
+            }
+        }
+        return true;
+    }
+
+    private void saveState() throws IOException {
+        List<String> lines = new ArrayList<>();
+        offsets.forEach((log, offset) -> lines.add("log\t" + log + "\t" + offset));
+        for (TestSummary test : tests.values()) {
+            lines.add(String.join("\t", "test", String.valueOf(test.id), test.key, test.run, test.source, test.status,
+                    String.valueOf(test.start), String.valueOf(test.millis), String.valueOf(test.steps),
+                    test.name.replaceAll("[\t\r\n]", " ")));
+        }
+        Files.write(outputDirectory.resolve("state.tsv"), lines, StandardCharsets.UTF_8);
+    }
+
+    private void clear() throws IOException {
+        Path steps = outputDirectory.resolve("steps");
+        if (Files.isDirectory(steps)) {
+            try (Stream<Path> files = Files.walk(steps)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+        Files.createDirectories(outputDirectory);
+    }
+
+    private static void closeQuietly(Writer writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Could not close a report page: " + e.getMessage());
+        }
+    }
+
+    // What the list of tests shows about one test; the steps themselves stay in the page files.
+    private static class TestSummary {
+        private final int id;
+        private final String key;
+        private final String run;
+        private final String source;
+        private String name = "";
+        private String status = "RUNNING";
+        private long start;
+        private long millis;
+        private int steps;
+
+        TestSummary(int id, String key, String run, String source) {
+            this.id = id;
+            this.key = key;
+            this.run = run;
+            this.source = source;
+        }
+    }
+}
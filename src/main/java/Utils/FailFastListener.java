@@ -0,0 +1,112 @@
+package Utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stops the suite early and reports how soon the first failure was seen.
+//   -Dfail.fast.after=3   once three tests have failed, every remaining test is skipped
+// At the end of the suite it prints the time to the first failure, next to the time it would have taken
+// in TestNG's default order (estimated from this run's durations), which shows what -Dorder.policy saves.
+public class FailFastListener implements IInvokedMethodListener, ITestListener, ISuiteListener {
+
+    private static final List<String> defaultOrder = new ArrayList<>();
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong firstFailureMillis = new AtomicLong(-1);
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> failed = new ConcurrentHashMap<>();
+    private volatile long suiteStart;
+
+    // Called by HistoryOrderingInterceptor with the order TestNG proposed.
+    static synchronized void recordDefaultOrder(List<String> keys) {
+        defaultOrder.addAll(keys);
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        suiteStart = System.currentTimeMillis();
+    }
+
+    // Once the limit is reached, the remaining tests are skipped together with the configuration methods that set
+    // them up (Hooks.setUp leasing a browser, @BeforeClass methods, ...). TestNG then skips the matching @AfterMethod
+    // itself. After-configurations still run: they release what a test that was already running has leased, and
+    // the alwaysRun cleanups of the class and the suite must not be lost.
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        int limit = FrameworkConfig.failFastAfter();
+        if (limit > 0 && isTestOrSetUp(method.getTestMethod()) && failures.get() >= limit) {
+            throw new SkipException("Skipped by fail-fast after " + failures.get() + " failures");
+        }
+    }
+
+    private static boolean isTestOrSetUp(ITestNGMethod method) {
+        return method.isTest() || method.isBeforeMethodConfiguration() || method.isBeforeClassConfiguration()
+                || method.isBeforeTestConfiguration() || method.isBeforeGroupsConfiguration();
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+        failed.put(TestHistory.key(result.getMethod()), true);
+        failures.incrementAndGet();
+        firstFailureMillis.compareAndSet(-1, result.getEndMillis() - suiteStart);
+    }
+
+    @Override
+    public void onTestFailedWithTimeout(ITestResult result) {
+        onTestFailure(result);
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (firstFailureMillis.get() < 0) {
+            System.out.println("Time to first failure: no test failed");
+            return;
+        }
+        System.out.println(String.format("Time to first failure: %.1f s with order.policy=%s, ~%.1f s in the default order%s",
+                firstFailureMillis.get() / 1000.0, FrameworkConfig.orderPolicy(), defaultOrderEstimate() / 1000.0,
+                failures.get() >= FrameworkConfig.failFastAfter() && FrameworkConfig.failFastAfter() > 0
+                        ? " (suite stopped by fail-fast after " + failures.get() + " failures)" : ""));
+    }
+
+    // Sums this run's durations in TestNG's order up to and including the first test that failed.
+    // Tests that did not run (e.g. skipped by fail-fast) count as zero, so this is a lower bound.
+    private synchronized long defaultOrderEstimate() {
+        long elapsed = 0;
+        for (String key : defaultOrder) {
+            elapsed += durations.getOrDefault(key, 0L);
+            if (failed.containsKey(key)) {
+                break;
+            }
+        }
+        return elapsed;
+    }
+
+    private void record(ITestResult result) {
+        durations.merge(TestHistory.key(result.getMethod()),
+                Math.max(0, result.getEndMillis() - result.getStartMillis()), Long::sum);
+    }
+}
@@ -0,0 +1,258 @@
+package Utils;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+// Captures what the browser showed when a test failed: a screenshot, the DOM and the console log.
+// The test thread only grabs the raw bytes from the browser. Encoding the screenshot as JPEG, gzipping the DOM,
+// recognising screens that were already saved and writing to -Dartifacts.dir happen on a background thread.
+// A screenshot is only reused for a later failure of the same test (a retry) whose screenshot has exactly the same
+// perceptual hash; any other failure gets its own screenshot.
+// Captures waiting to be processed are limited to -Dartifacts.memory.budget.mb; when the budget is used up
+// the capture is dropped at once, so a failing test never waits for the background thread.
+public final class FailureArtifacts {
+
+    private static final int BUDGET_KB = Math.max(1, FrameworkConfig.getInt("artifacts.memory.budget.mb", 64) * 1024);
+    private static final Semaphore MEMORY = new Semaphore(BUDGET_KB);
+
+    // The saved screenshots by test name and hash.
+    private static final Map<String, Path> SCREENS = new ConcurrentHashMap<>();
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final AtomicInteger PENDING = new AtomicInteger();
+    private static final AtomicInteger DEDUPLICATED = new AtomicInteger();
+    private static final AtomicInteger DROPPED = new AtomicInteger();
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "failure-artifacts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FailureArtifacts() {
+    }
+
+    // Grabs the state of the browser on the calling thread and processes it in the background.
+    // The future completes with null when the capture was dropped.
+    public static CompletableFuture<Capture> capture(WebDriver driver, String testName) {
+        long start = System.nanoTime();
+        byte[] screenshot = null;
+        String source = null;
+        List<String> console = new ArrayList<>();
+        try {
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        } catch (WebDriverException e) {
+            console.add("Screenshot not available: " + e.getMessage());
+        }
+        try {
+            source = driver.getPageSource();
+        } catch (WebDriverException e) {
+            console.add("Page source not available: " + e.getMessage());
+        }
+        try {
+            for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+                console.add(entry.getLevel() + " " + entry.getMessage());
+            }
+        } catch (WebDriverException e) {
+            console.add("Console log not available: " + e.getMessage());
+        }
+        long grabMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int permits = Math.min(BUDGET_KB, 1 + ((screenshot == null ? 0 : screenshot.length)
+                + (source == null ? 0 : source.length() * 2)) / 1024);
+        if (!MEMORY.tryAcquire(permits)) {
+            DROPPED.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        byte[] png = screenshot;
+        String dom = source;
+        PENDING.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return process(testName, png, dom, console, grabMillis);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not save the failure artifacts of " + testName, e);
+            } finally {
+                MEMORY.release(permits);
+                PENDING.decrementAndGet();
+            }
+        }, WORKER);
+    }
+
+    // Waits for the captures still being processed, e.g. before the run ends.
+    public static void awaitPending(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (PENDING.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public static String report() {
+        return String.format("Failure artifacts: saved=%d, same screen as an earlier attempt=%d, dropped over memory budget=%d",
+                SEQUENCE.get(), DEDUPLICATED.get(), DROPPED.get());
+    }
+
+    static Capture process(String testName, byte[] png, String dom, List<String> console, long grabMillis)
+            throws IOException {
+        long start = System.nanoTime();
+        Path directory = Paths.get(FrameworkConfig.get("artifacts.dir", "target/failure-artifacts"),
+                String.format("%03d-%s", SEQUENCE.incrementAndGet(), testName.replaceAll("[^A-Za-z0-9._-]", "_")))
+                .toAbsolutePath();
+        Files.createDirectories(directory);
+
+        Path screenshot = null;
+        boolean sameScreen = false;
+        if (png != null) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image != null) {
+                String screen = testName + "#" + differenceHash(image);
+                Path earlier = SCREENS.get(screen);
+                if (earlier != null) {
+                    screenshot = earlier;
+                    sameScreen = true;
+                    DEDUPLICATED.incrementAndGet();
+                } else {
+                    screenshot = directory.resolve("screenshot.jpg");
+                    writeJpeg(image, screenshot);
+                    SCREENS.put(screen, screenshot);
+                }
+            }
+        }
+        Path page = null;
+        if (dom != null) {
+            page = directory.resolve("page.html.gz");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(page))) {
+                out.write(dom.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Path log = directory.resolve("console.log");
+        Files.write(log, console, StandardCharsets.UTF_8);
+        return new Capture(screenshot, sameScreen, page, log, console, grabMillis, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // dHash: the screenshot shrunk to 9x8 grey pixels, one bit per pair of horizontal neighbours.
+    // Small rendering differences (a caret, anti-aliasing) leave it unchanged.
+    static long differenceHash(BufferedImage image) {
+        BufferedImage small = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = small.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, 9, 8, null);
+        graphics.dispose();
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                int left = small.getRaster().getSample(x, y, 0);
+                int right = small.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(0.7f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(rgb, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // The saved artifacts of one failure.
+    public static class Capture {
+        private final Path screenshot;
+        private final boolean sameScreen;
+        private final Path page;
+        private final Path consoleLog;
+        private final List<String> console;
+        private final long grabMillis;
+        private final long processMillis;
+
+        Capture(Path screenshot, boolean sameScreen, Path page, Path consoleLog, List<String> console,
+                long grabMillis, long processMillis) {
+            this.screenshot = screenshot;
+            this.sameScreen = sameScreen;
+            this.page = page;
+            this.consoleLog = consoleLog;
+            this.console = console;
+            this.grabMillis = grabMillis;
+            this.processMillis = processMillis;
+        }
+
+        public boolean isSameScreen() {
+            return sameScreen;
+        }
+
+        public Path getScreenshot() {
+            return screenshot;
+        }
+
+        public Path getPage() {
+            return page;
+        }
+
+        public Path getConsoleLog() {
+            return consoleLog;
+        }
+
+        public void attachTo(ExtentTest test) {
+            if (screenshot != null) {
+                test.fail(sameScreen ? "Screenshot (same screen as an earlier attempt of this test)" : "Screenshot",
+                        MediaEntityBuilder.createScreenCaptureFromPath(screenshot.toString()).build());
+            }
+            if (page != null) {
+                test.info("DOM at the time of the failure: " + page);
+            }
+            if (!console.isEmpty()) {
+                test.info(MarkupHelper.createCodeBlock(String.join("\n", console.subList(0, Math.min(50, console.size())))));
+            }
+            test.info(String.format("Artifacts grabbed in %d ms on the test thread, processed in %d ms in the background",
+                    grabMillis, processMillis));
+        }
+    }
+}
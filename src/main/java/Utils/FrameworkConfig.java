@@ -0,0 +1,249 @@
+package Utils;
+
+import org.openqa.selenium.PageLoadStrategy;
+
+// Central place for the settings of the test harness.
+// Every value has a default and can be overridden from the command line, e.g. mvn test -Dpool.size=4
+public final class FrameworkConfig {
+
+    private FrameworkConfig() {
+    }
+
+    // The page every browser session starts from (and goes back to between tests).
+    // Other applications used by CheckoutTest:
+    //   https://fasttrackit-test.netlify.app/#/
+    //   https://www.emag.ro/
+    public static String startUrl() {
+        return get("start.url", "https://demo.wearehaive.com/ro/solutions/restaurants");
+    }
+
+    // The demo shop whose cart and wishlist are seeded by StateSeeder.
+    public static String shopUrl() {
+        return get("shop.url", "https://fasttrackit-test.netlify.app/");
+    }
+
+    // Whether CheckoutPage puts products into the cart and the wishlist through localStorage (StateSeeder) instead
+    // of clicking through the shop. Off by default, and only supported with -Dshop.url pointing at the local
+    // stand-in of the shop (LocalShopServer): the storage format is the stand-in's own.
+    public static boolean seedState() {
+        return getBoolean("seed.state", false);
+    }
+
+    // TestNG parallel mode: none, methods, classes, ...
+    public static String parallelMode() {
+        return get("parallel", "none");
+    }
+
+    // Number of test threads used when running in parallel; defaults to the cores of the machine.
+    public static int threads() {
+        return getInt("threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    // Number of rows of a parallel DataProvider that run at the same time. Only applied to the suite when it is
+    // given (see ParallelExecutionListener); the default of 4 is what the pool is sized for.
+    public static int dataProviderThreads() {
+        return getInt("dataprovider.threads", 4);
+    }
+
+    // process (default): one Chrome per browser session; tabs: several sessions share one Chrome, one tab each
+    // (see TabMultiplexer).
+    public static String browserMode() {
+        return get("browser.mode", "process");
+    }
+
+    public static boolean isTabMode() {
+        return "tabs".equalsIgnoreCase(browserMode());
+    }
+
+    // How many tabs, and so tests running at the same time, one Chrome hosts in tab mode.
+    public static int tabsPerBrowser() {
+        return getInt("tabs.per.browser", 4);
+    }
+
+    // Maximum number of browser sessions kept alive at the same time.
+    // By default there is one session per test thread, or per DataProvider thread if there are more of those.
+    // Sessions are only started when they are needed.
+    public static int poolSize() {
+        return getInt("pool.size", Math.max("none".equalsIgnoreCase(parallelMode()) ? 1 : threads(), dataProviderThreads()));
+    }
+
+    // A session older than this is quit and replaced instead of being reused.
+    public static long sessionMaxAgeSeconds() {
+        return getLong("pool.session.max.age.seconds", 600);
+    }
+
+    // A session leased more often than this is quit and replaced instead of being reused.
+    public static int sessionMaxLeases() {
+        return getInt("pool.session.max.leases", 50);
+    }
+
+    // How long a test waits for a free session before giving up.
+    public static long leaseTimeoutSeconds() {
+        return getLong("pool.lease.timeout.seconds", 300);
+    }
+
+    // Time budget of a single wait of the readiness engine.
+    public static long readinessTimeoutSeconds() {
+        return getLong("readiness.timeout.seconds", 30);
+    }
+
+    // How long the DOM must stay unchanged before a page is considered settled.
+    public static long readinessQuietMillis() {
+        return getLong("readiness.quiet.millis", 150);
+    }
+
+    // Once the network is idle, a page whose DOM keeps changing (carousels, timers) is accepted after this long.
+    public static long readinessSettleCapMillis() {
+        return getLong("readiness.settle.cap.millis", 1000);
+    }
+
+    // Requests running longer than this (long polling, tracking beacons) no longer count as in flight.
+    public static long readinessRequestIgnoreMillis() {
+        return getLong("readiness.request.ignore.millis", 10000);
+    }
+
+    // The document.readyState the readiness engine waits for. With an 'eager' or 'none' page load strategy
+    // the page is usable once it is 'interactive'; it does not have to wait for every image and iframe.
+    public static String readinessDocumentState() {
+        return get("readiness.document.state",
+                BrowserLaunchProfile.pageLoadStrategy() == PageLoadStrategy.NORMAL ? "complete" : "interactive");
+    }
+
+    // Local proxy between Chrome and the network: off, record, replay or block (see RecordReplayProxy).
+    public static String proxyMode() {
+        return get("proxy.mode", "off");
+    }
+
+    // Where the proxy stores recorded responses and its TLS certificate.
+    public static String proxyArchiveDir() {
+        return get("proxy.archive.dir", "recordings");
+    }
+
+    // Extra hosts the proxy refuses, comma separated, on top of its built-in analytics/ads list.
+    public static String proxyBlocklist() {
+        return get("proxy.blocklist", "");
+    }
+
+    // Whether new browser sessions start from a clone of a profile whose HTTP cache is already warm (see ProfileTemplate).
+    public static boolean profileTemplate() {
+        return getBoolean("profile.template", true);
+    }
+
+    // Where the profile template is kept between runs, together with the profiles of the sessions.
+    public static String profileTemplateDir() {
+        return get("profile.template.dir", "profile-template");
+    }
+
+    // The pages visited to fill the cache of the profile template, comma separated.
+    public static String profileTemplateUrls() {
+        return get("profile.template.urls", startUrl() + "," + shopUrl());
+    }
+
+    // How a session gets its copy of the template: copy, or hardlink (cache entries shared read-only).
+    public static String profileCloneMode() {
+        return get("profile.clone", "copy");
+    }
+
+    // Durations (and later outcomes) of previous runs, used to balance shards.
+    public static String historyFile() {
+        return get("history.file", "test-history/history.tsv");
+    }
+
+    // The page-object methods and fields each test used, recorded by TestImpact.
+    public static String impactMapFile() {
+        return get("impact.map.file", "test-history/impact-map.tsv");
+    }
+
+    // The git revision to compare with to run only the affected tests (e.g. origin/main); empty runs everything.
+    public static String impactBase() {
+        return get("impact.base", "");
+    }
+
+    // After this many selective runs the whole suite runs once, to refresh the map and catch what it missed.
+    public static int impactFullEvery() {
+        return getInt("impact.full.every", 10);
+    }
+
+    // Which part of the suite this JVM runs: -Dshard.index=0..shard.total-1. One shard runs everything.
+    public static int shardIndex() {
+        return getInt("shard.index", 0);
+    }
+
+    public static int shardTotal() {
+        return getInt("shard.total", 1);
+    }
+
+    // The customers and products of the data-driven checkout test: a CSV or JSONL file, or a classpath resource.
+    public static String checkoutData() {
+        return get("checkout.data", "data/checkout-customers.csv");
+    }
+
+    // Where a shard writes its results and its Extent archive for ReportMerger.
+    public static String shardResultsDir() {
+        return get("shard.results.dir", "target/shards");
+    }
+
+    // The append-only JSON-lines log of every reported test event (see ResultEventLog); each shard writes its own.
+    public static String eventLog() {
+        return get("report.events", shardTotal() > 1
+                ? shardResultsDir() + "/events-" + shardName() + ".jsonl"
+                : "target/report-events.jsonl");
+    }
+
+    // Where EventReportRenderer writes the HTML report built from the event logs.
+    public static String eventReportDir() {
+        return get("report.events.dir", "target/event-report");
+    }
+
+    // "shard-2-of-4", used in the names of the files a shard writes.
+    public static String shardName() {
+        return "shard-" + shardIndex() + "-of-" + shardTotal();
+    }
+
+    // Order in which test methods run: default (TestNG's order), failures-first or shortest-first.
+    public static String orderPolicy() {
+        return get("order.policy", "default");
+    }
+
+    // Skip the rest of the suite after this many failed tests; 0 runs everything.
+    public static int failFastAfter() {
+        return getInt("fail.fast.after", 0);
+    }
+
+    // How often a test that failed for a transient reason is retried in the same browser; 0 disables retries.
+    public static int retryMax() {
+        return getInt("retry.max", 1);
+    }
+
+    // The exception types (simple or fully qualified names) that count as transient failures.
+    public static String retryOn() {
+        return get("retry.on", "StaleElementReferenceException,TimeoutException,ElementClickInterceptedException");
+    }
+
+    // Whether the timings of the application are read after every page-object action (see PerformanceCollector).
+    public static boolean perfCollect() {
+        return getBoolean("perf.collect", true);
+    }
+
+    // The performance budgets of the steps: a file or a classpath resource.
+    public static String perfBudgets() {
+        return get("perf.budgets", "perf-budgets.txt");
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        return Long.parseLong(get(key, String.valueOf(defaultValue)));
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)));
+    }
+}
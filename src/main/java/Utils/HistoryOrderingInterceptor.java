@@ -0,0 +1,72 @@
+package Utils;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Reorders the test methods using the test history, for faster feedback:
+//   -Dorder.policy=failures-first   tests that failed last run first, then the most failure-prone and flaky ones,
+//                                   then new tests; shorter tests first within each group
+//   -Dorder.policy=shortest-first   the quickest tests first, so most of the suite reports early
+//   -Dorder.policy=default          TestNG's own order
+// Ties keep TestNG's order, and dependsOn relations are still honoured by TestNG.
+// It runs after ShardingInterceptor, so it only orders this shard's methods.
+public class HistoryOrderingInterceptor implements IMethodInterceptor {
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        List<String> defaultOrder = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            defaultOrder.add(TestHistory.key(instance.getMethod()));
+        }
+        FailFastListener.recordDefaultOrder(defaultOrder);
+
+        String policy = FrameworkConfig.orderPolicy();
+        if ("default".equalsIgnoreCase(policy)) {
+            return methods;
+        }
+        Map<String, TestHistory.Entry> history = TestHistory.load(Paths.get(FrameworkConfig.historyFile()));
+        Comparator<IMethodInstance> order;
+        if ("failures-first".equalsIgnoreCase(policy)) {
+            order = Comparator.<IMethodInstance>comparingInt(method -> failureRank(history.get(key(method))))
+                    .thenComparing(method -> -risk(history.get(key(method))))
+                    .thenComparingLong(method -> duration(history.get(key(method))));
+        } else if ("shortest-first".equalsIgnoreCase(policy)) {
+            order = Comparator.comparingLong(method -> duration(history.get(key(method))));
+        } else {
+            throw new IllegalArgumentException("Unknown order.policy '" + policy
+                    + "', expected default, failures-first or shortest-first");
+        }
+        List<IMethodInstance> ordered = new ArrayList<>(methods);
+        // List.sort is stable, which keeps TestNG's order between equally ranked methods.
+        ordered.sort(order);
+        return ordered;
+    }
+
+    private static String key(IMethodInstance method) {
+        return TestHistory.key(method.getMethod());
+    }
+
+    // Failed last run, then never run before, then everything else.
+    private static int failureRank(TestHistory.Entry entry) {
+        if (entry == null) {
+            return 1;
+        }
+        return entry.failedLastRun() ? 0 : 2;
+    }
+
+    private static double risk(TestHistory.Entry entry) {
+        return entry == null ? 0 : entry.getFailureScore() + entry.getFlakiness();
+    }
+
+    // Unknown tests are assumed to be slow, so they do not push known quick tests back.
+    private static long duration(TestHistory.Entry entry) {
+        return entry == null ? Long.MAX_VALUE : entry.getAverageMillis();
+    }
+}
@@ -0,0 +1,201 @@
+package Utils;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The on-disk store of recorded HTTP responses used by RecordReplayProxy.
+//   responses.bin  the responses, one after the other
+//   index.tsv      one line per response: request key, offset and length in responses.bin
+// For replay the data file is memory-mapped once, so serving a response is a lookup and a buffer slice.
+// A single mapping is limited to 2 GB, so a larger data file is mapped in several regions, each holding whole
+// responses.
+public class HttpArchive implements AutoCloseable {
+
+    static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    // Request key to {offset, length} in the data file, in the order of the recording; for replay
+    // the offset is turned into {region, position in the region, length}.
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+    private OutputStream dataOut;
+    private BufferedWriter indexOut;
+    private long dataLength;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    private HttpArchive(Path directory) {
+        this.dataFile = directory.resolve("responses.bin");
+        this.indexFile = directory.resolve("index.tsv");
+    }
+
+    // Opens the archive for recording; responses recorded earlier are kept.
+    public static HttpArchive forRecording(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        HttpArchive archive = new HttpArchive(directory);
+        archive.dataLength = Files.exists(archive.dataFile) ? Files.size(archive.dataFile) : 0;
+        archive.dataOut = Files.newOutputStream(archive.dataFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        archive.indexOut = Files.newBufferedWriter(archive.indexFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return archive;
+    }
+
+    // Opens the archive read-only and maps all responses into memory.
+    public static HttpArchive forReplay(Path directory) throws IOException {
+        return forReplay(directory, MAX_REGION_SIZE);
+    }
+
+    static HttpArchive forReplay(Path directory, long maxRegionSize) throws IOException {
+        HttpArchive archive = new HttpArchive(directory);
+        if (!Files.exists(archive.dataFile)) {
+            throw new IOException("No recording found in " + directory.toAbsolutePath());
+        }
+        for (String line : Files.readAllLines(archive.indexFile, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length == 3) {
+                // The last recording of a request wins.
+                archive.index.put(parts[0], new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+            }
+        }
+        List<long[]> locations = new ArrayList<>(archive.index.values());
+        locations.sort(Comparator.comparingLong(location -> location[0]));
+        try (FileChannel channel = FileChannel.open(archive.dataFile, StandardOpenOption.READ)) {
+            long regionStart = 0;
+            long regionEnd = 0;
+            List<long[]> inRegion = new ArrayList<>();
+            for (long[] location : locations) {
+                if (!inRegion.isEmpty() && location[0] + location[1] - regionStart > maxRegionSize) {
+                    archive.map(channel, regionStart, regionEnd, inRegion);
+                    inRegion.clear();
+                }
+                if (inRegion.isEmpty()) {
+                    regionStart = location[0];
+                }
+                regionEnd = Math.max(regionEnd, location[0] + location[1]);
+                inRegion.add(location);
+            }
+            if (!inRegion.isEmpty()) {
+                archive.map(channel, regionStart, regionEnd, inRegion);
+            }
+        }
+        return archive;
+    }
+
+    // Maps [start, end) of the data file and points the given index entries into the new region.
+    private void map(FileChannel channel, long start, long end, List<long[]> locations) throws IOException {
+        regions.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        for (long[] location : locations) {
+            long offset = location[0];
+            location[0] = regions.size() - 1;
+            location[1] = offset - start;
+        }
+    }
+
+    public synchronized void record(String key, RecordedResponse response) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(response.body.length + 512);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(response.status);
+            out.writeInt(response.headers.size());
+            for (String[] header : response.headers) {
+                writeString(out, header[0]);
+                writeString(out, header[1]);
+            }
+            out.writeInt(response.body.length);
+            out.write(response.body);
+            out.flush();
+            byte[] entry = buffer.toByteArray();
+            dataOut.write(entry);
+            dataOut.flush();
+            indexOut.write(key.replace('\t', ' ') + "\t" + dataLength + "\t" + entry.length);
+            indexOut.newLine();
+            indexOut.flush();
+            dataLength += entry.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns the recorded response, or null when the request was never recorded.
+    public RecordedResponse find(String key) {
+        long[] location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer entry = regions.get((int) location[0]).duplicate();
+        entry.position((int) location[1]);
+        int status = entry.getInt();
+        int headerCount = entry.getInt();
+        List<String[]> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new String[]{readString(entry), readString(entry)});
+        }
+        byte[] body = new byte[entry.getInt()];
+        entry.get(body);
+        return new RecordedResponse(status, headers, body);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    // The request keys of the archive, in the order they were first recorded.
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    int regionCount() {
+        return regions.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (dataOut != null) {
+            dataOut.close();
+            indexOut.close();
+        }
+    }
+
+    // Strings are stored as their length in bytes followed by standard UTF-8, so any header value round-trips.
+    // (DataOutputStream.writeUTF writes modified UTF-8 and at most 64 KB.)
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static class RecordedResponse {
+        final int status;
+        final List<String[]> headers;
+        final byte[] body;
+
+        public RecordedResponse(int status, List<String[]> headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package Utils;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Runs only the tests affected by the changes since a git revision (test impact analysis):
+//   mvn test -Dimpact.base=origin/main
+// The changed files are matched against the impact map recorded by TestImpact (see ImpactSelector for the rules).
+// Everything runs when there is no map yet, when git fails, with -Dimpact.full=true, and after every
+// -Dimpact.full.every selective runs (counted in test-history/impact-runs.txt), so the map stays complete.
+// The methods a selected test depends on (dependsOnMethods, dependsOnGroups) are selected with it.
+// It runs before ShardingInterceptor, so the selected tests are then split between the shards. Every shard
+// comes to the same selection as long as they share the test history directory, like for the split itself.
+public class ImpactInterceptor implements IMethodInterceptor {
+
+    // The changes and the map, read once per JVM for all the <test> tags of the suite.
+    private static List<ImpactSelector.FileChange> changes;
+    private static Map<String, Set<String>> impactMap;
+    private static String fullRunReason;
+    private static boolean prepared;
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (FrameworkConfig.impactBase().isEmpty() || !prepare()) {
+            return methods;
+        }
+        List<String> keys = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            keys.add(TestHistory.key(instance.getMethod()));
+        }
+        ImpactSelector.Selection selection;
+        try {
+            selection = ImpactSelector.select(changes, impactMap, keys, Paths.get("").toAbsolutePath());
+        } catch (IOException e) {
+            System.out.println("Test impact: running every test, the changed sources could not be read: " + e.getMessage());
+            return methods;
+        }
+        if (selection.isAll()) {
+            System.out.println("Test impact: running every test, " + String.join("; ", selection.getReasons()));
+            return methods;
+        }
+
+        Set<ITestNGMethod> selected = withDependencies(methods, selection.getTests());
+        // Keeping TestNG's order, which the interceptors after this one build on.
+        List<IMethodInstance> kept = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            if (selected.contains(instance.getMethod())) {
+                kept.add(instance);
+            }
+        }
+        StringBuilder summary = new StringBuilder(String.format("Test impact since %s: %d of %d test methods",
+                FrameworkConfig.impactBase(), kept.size(), methods.size()));
+        for (String reason : selection.getReasons()) {
+            summary.append("\n  ").append(reason);
+        }
+        System.out.println(summary);
+        return kept;
+    }
+
+    // Reads the diff and the map, and decides whether this is a periodic full run. False runs everything.
+    private static synchronized boolean prepare() {
+        if (!prepared) {
+            prepared = true;
+            fullRunReason = fullRunReason();
+            if (fullRunReason == null) {
+                impactMap = TestImpact.load(Paths.get(FrameworkConfig.impactMapFile()));
+                if (impactMap.isEmpty()) {
+                    fullRunReason = "no impact map yet at " + FrameworkConfig.impactMapFile();
+                }
+            }
+            if (fullRunReason == null) {
+                try {
+                    Path project = Paths.get("").toAbsolutePath();
+                    changes = ImpactSelector.parseDiff(ImpactSelector.gitDiff(FrameworkConfig.impactBase(), project));
+                } catch (IOException e) {
+                    fullRunReason = "git diff against " + FrameworkConfig.impactBase() + " failed: " + e.getMessage();
+                }
+            }
+            if (fullRunReason != null) {
+                System.out.println("Test impact: running every test, " + fullRunReason);
+            }
+        }
+        return fullRunReason == null;
+    }
+
+    // Counts the selective runs since the last full one; only the first shard writes the count.
+    private static String fullRunReason() {
+        Path counter = Paths.get(FrameworkConfig.impactMapFile()).resolveSibling("impact-runs.txt");
+        int selectiveRuns = 0;
+        try {
+            if (Files.exists(counter)) {
+                selectiveRuns = Integer.parseInt(new String(Files.readAllBytes(counter), StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring unreadable " + counter + ": " + e);
+        }
+        String reason = null;
+        if (FrameworkConfig.getBoolean("impact.full", false)) {
+            reason = "-Dimpact.full=true";
+        } else if (selectiveRuns >= FrameworkConfig.impactFullEvery()) {
+            reason = "periodic full run after " + selectiveRuns + " selective runs";
+        }
+        if (FrameworkConfig.shardIndex() == 0) {
+            try {
+                if (counter.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(counter.toAbsolutePath().getParent());
+                }
+                Files.write(counter, String.valueOf(reason == null ? selectiveRuns + 1 : 0).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Could not write " + counter + ": " + e.getMessage());
+            }
+        }
+        return reason;
+    }
+
+    // The selected methods and, transitively, the methods and groups they depend on.
+    private static Set<ITestNGMethod> withDependencies(List<IMethodInstance> methods, Set<String> tests) {
+        Set<ITestNGMethod> selected = new LinkedHashSet<>();
+        List<ITestNGMethod> pending = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            if (tests.contains(TestHistory.key(instance.getMethod()))) {
+                pending.add(instance.getMethod());
+            }
+        }
+        while (!pending.isEmpty()) {
+            ITestNGMethod method = pending.remove(pending.size() - 1);
+            if (!selected.add(method)) {
+                continue;
+            }
+            // dependsOnMethods are reported with their fully qualified class name: "pkg.Class.method".
+            List<String> methodsDependedUpon = Arrays.asList(method.getMethodsDependedUpon());
+            List<String> groupsDependedUpon = Arrays.asList(method.getGroupsDependedUpon());
+            for (IMethodInstance instance : methods) {
+                ITestNGMethod candidate = instance.getMethod();
+                String name = candidate.getRealClass().getName() + "." + candidate.getMethodName();
+                if (methodsDependedUpon.contains(name)
+                        || Arrays.stream(candidate.getGroups()).anyMatch(groupsDependedUpon::contains)) {
+                    pending.add(candidate);
+                }
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,400 @@
+package Utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Works out which tests a change can affect, from a git diff and the impact map recorded by TestImpact.
+//   page object (a class extending BasePage)  the tests that used a changed method or @FindBy field; a change
+//                                             outside those (imports, constructor, other fields) or to a method
+//                                             missing from the map selects every test that used the class
+//   test class                                the changed test methods; the whole class when anything else
+//                                             changed, including a helper, set-up or DataProvider method
+//   anything else under src/, pom.xml, testng*.xml
+//                                             the framework itself: everything runs
+// Tests missing from the map (new, or never recorded) always run. Other files (docs, CI settings) are ignored.
+// Changed lines are mapped to members with a small scanner of the current source, which is enough for the
+// page objects and tests of this project; whatever it cannot place is treated as a change of the whole class.
+public final class ImpactSelector {
+
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+    private static final Pattern CALL_NAME = Pattern.compile("(\\w+)\\s*\\($");
+    private static final Pattern IDENTIFIER = Pattern.compile("\\w+");
+
+    private ImpactSelector() {
+    }
+
+    // The tests to run; all of them when the change touches the framework or cannot be narrowed down.
+    public static class Selection {
+        private final boolean all;
+        private final Set<String> tests;
+        private final List<String> reasons;
+
+        Selection(boolean all, Set<String> tests, List<String> reasons) {
+            this.all = all;
+            this.tests = tests;
+            this.reasons = reasons;
+        }
+
+        public boolean isAll() {
+            return all;
+        }
+
+        public Set<String> getTests() {
+            return tests;
+        }
+
+        public List<String> getReasons() {
+            return reasons;
+        }
+    }
+
+    // The lines of the new version of a file that a diff changed; no line ranges means the whole file.
+    static class FileChange {
+        private final String path;
+        private boolean deleted;
+        private final List<int[]> lines = new ArrayList<>();
+
+        FileChange(String path) {
+            this.path = path;
+        }
+    }
+
+    // A method, field or other part of a class body, with the lines it spans.
+    static class Member {
+        enum Kind { METHOD, LOCATOR, OTHER }
+
+        final Kind kind;
+        final String name;
+        final int firstLine;
+        final int lastLine;
+
+        Member(Kind kind, String name, int firstLine, int lastLine) {
+            this.kind = kind;
+            this.name = name;
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+    }
+
+    // The output of git diff between the given revision and the working tree, with paths relative to the project.
+    public static List<String> gitDiff(String base, Path repository) throws IOException {
+        Process git = new ProcessBuilder("git", "diff", "--unified=0", "--no-color", "--no-renames", "--relative", base)
+                .directory(repository.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        try {
+            if (git.waitFor() != 0) {
+                throw new IOException("git diff " + base + " failed with exit code " + git.exitValue());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git diff", e);
+        }
+        return lines;
+    }
+
+    // Parses a diff made with --unified=0.
+    static List<FileChange> parseDiff(List<String> diff) {
+        Map<String, FileChange> files = new LinkedHashMap<>();
+        FileChange current = null;
+        String oldPath = null;
+        for (String line : diff) {
+            if (line.startsWith("diff --git ")) {
+                // Files without hunks (binary, mode changes) count as changed as a whole.
+                String path = line.substring(line.lastIndexOf(" b/") + 3);
+                current = files.computeIfAbsent(path, FileChange::new);
+                oldPath = null;
+            } else if (line.startsWith("--- ")) {
+                oldPath = line.equals("--- /dev/null") ? null : line.substring(6);
+            } else if (line.startsWith("+++ ")) {
+                if (line.equals("+++ /dev/null") && oldPath != null) {
+                    current = files.computeIfAbsent(oldPath, FileChange::new);
+                    current.deleted = true;
+                } else if (!line.equals("+++ /dev/null")) {
+                    current = files.computeIfAbsent(line.substring(6), FileChange::new);
+                }
+            } else if (current != null && !current.deleted) {
+                Matcher hunk = HUNK.matcher(line);
+                if (hunk.find()) {
+                    int start = Integer.parseInt(hunk.group(1));
+                    int count = hunk.group(2) == null ? 1 : Integer.parseInt(hunk.group(2));
+                    // Removed lines leave no line behind; the lines around the removal are taken instead.
+                    current.lines.add(count == 0 ? new int[]{Math.max(1, start), start + 1} : new int[]{start, start + count - 1});
+                }
+            }
+        }
+        return new ArrayList<>(files.values());
+    }
+
+    // Finds the members of the top-level class of a Java source, skipping comments and literals.
+    static List<Member> members(List<String> source) {
+        List<Member> members = new ArrayList<>();
+        StringBuilder declaration = new StringBuilder();
+        int depth = 0;
+        int parentheses = 0;
+        int memberStart = 1;
+        int bodyStart = -1;
+        String bodyName = null;
+        boolean blockComment = false;
+        for (int lineNumber = 1; lineNumber <= source.size(); lineNumber++) {
+            String line = source.get(lineNumber - 1);
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (blockComment) {
+                    if (c == '*' && i + 1 < line.length() && line.charAt(i + 1) == '/') {
+                        blockComment = false;
+                        i++;
+                    }
+                    continue;
+                }
+                if (c == '/' && i + 1 < line.length() && line.charAt(i + 1) == '/') {
+                    break;
+                }
+                if (c == '/' && i + 1 < line.length() && line.charAt(i + 1) == '*') {
+                    blockComment = true;
+                    i++;
+                    continue;
+                }
+                if (c == '"' || c == '\'') {
+                    // Skipping the literal; text blocks are not used in this project.
+                    int end = i + 1;
+                    while (end < line.length() && line.charAt(end) != c) {
+                        end += line.charAt(end) == '\\' ? 2 : 1;
+                    }
+                    i = end;
+                    if (depth == 1) {
+                        declaration.append("\"\"");
+                    }
+                    continue;
+                }
+                if (depth == 1 && bodyStart < 0) {
+                    declaration.append(c);
+                }
+                if (c == '(') {
+                    parentheses++;
+                } else if (c == ')') {
+                    parentheses--;
+                } else if (c == '{' && parentheses == 0) {
+                    if (depth == 0) {
+                        // The class body starts here; its declaration is no member.
+                        memberStart = lineNumber + 1;
+                        declaration.setLength(0);
+                    } else if (depth == 1) {
+                        String text = declaration.substring(0, declaration.length() - 1).trim();
+                        Matcher name = CALL_NAME.matcher(text.replaceAll("\\s*throws[\\w\\s.,]*$", "")
+                                .replaceAll("\\)\\s*$", "").replaceAll("\\([^()]*$", "("));
+                        bodyName = name.find() ? name.group(1) : null;
+                        bodyStart = memberStart;
+                    }
+                    depth++;
+                } else if (c == '}' && parentheses == 0) {
+                    depth--;
+                    if (depth == 1 && bodyStart >= 0) {
+                        members.add(new Member(bodyName == null ? Member.Kind.OTHER : Member.Kind.METHOD, bodyName,
+                                bodyStart, lineNumber));
+                        bodyStart = -1;
+                        memberStart = lineNumber + 1;
+                        declaration.setLength(0);
+                    }
+                } else if (c == ';' && depth == 1 && parentheses == 0) {
+                    String text = declaration.toString();
+                    // Annotations may assign values too, e.g. @FindBy(xpath = "..."), so they are left out.
+                    String field = text.replaceAll("@\\w+(\\s*\\([^)]*\\))?", "");
+                    String beforeValue = field.contains("=") ? field.substring(0, field.indexOf('=')) : field.substring(0, field.length() - 1);
+                    String fieldName = null;
+                    Matcher identifier = IDENTIFIER.matcher(beforeValue);
+                    while (identifier.find()) {
+                        fieldName = identifier.group();
+                    }
+                    boolean locator = text.contains("@FindBy") || text.contains("@FindAll");
+                    members.add(new Member(locator ? Member.Kind.LOCATOR : Member.Kind.OTHER, fieldName, memberStart, lineNumber));
+                    memberStart = lineNumber + 1;
+                    declaration.setLength(0);
+                }
+            }
+            if (depth == 1 && bodyStart < 0) {
+                declaration.append('\n');
+            }
+            if (depth == 0) {
+                memberStart = lineNumber + 1;
+            }
+        }
+        return members;
+    }
+
+    // Selects the tests affected by the changes. knownTests are the keys of all the tests of the suite.
+    public static Selection select(List<FileChange> changes, Map<String, Set<String>> impactMap,
+                                   Collection<String> knownTests, Path repository) throws IOException {
+        Set<String> selected = new LinkedHashSet<>();
+        List<String> reasons = new ArrayList<>();
+        for (FileChange change : changes) {
+            String path = change.path;
+            boolean javaSource = path.endsWith(".java");
+            String className = javaSource ? path.substring(path.lastIndexOf('/') + 1, path.length() - ".java".length()) : null;
+            if (!path.startsWith("src/") && !path.equals("pom.xml") && !path.matches("testng.*\\.xml")) {
+                continue;
+            }
+            if (javaSource && path.startsWith("src/test/java/")) {
+                Set<String> tests = testsOfClass(knownTests, className);
+                if (tests.isEmpty() && !change.deleted) {
+                    return everything(reasons, path + " is test support code used by unknown tests");
+                }
+                Set<String> methods = change.deleted ? null : changedMembers(change, repository, Member.Kind.METHOD);
+                Set<String> testMethods = new LinkedHashSet<>();
+                for (String test : tests) {
+                    testMethods.add(test.substring(test.indexOf('#') + 1));
+                }
+                // A method that is not a test (a helper, a @BeforeMethod, a DataProvider) can affect any test of the class.
+                if (methods != null && !testMethods.containsAll(methods)) {
+                    methods = null;
+                }
+                for (String test : tests) {
+                    if (methods == null || methods.contains(test.substring(test.indexOf('#') + 1))) {
+                        selected.add(test);
+                    }
+                }
+                reasons.add(path + ": " + (methods == null ? "whole class" : "methods " + methods));
+                continue;
+            }
+            boolean pageObject = javaSource && path.startsWith("src/main/java/") && (change.deleted
+                    ? usesClass(impactMap, className)
+                    : new String(Files.readAllBytes(repository.resolve(path)), StandardCharsets.UTF_8).contains("extends BasePage"));
+            if (!pageObject) {
+                return everything(reasons, path + " is part of the framework");
+            }
+            Set<String> symbols = change.deleted ? null : changedSymbols(change, repository, className);
+            // A method that sends no command to the browser itself is never recorded, although the methods that
+            // call it are; a change to it selects every test that used the class.
+            if (symbols != null && !allMethodsRecorded(impactMap, symbols)) {
+                symbols = null;
+            }
+            for (Map.Entry<String, Set<String>> test : impactMap.entrySet()) {
+                for (String used : test.getValue()) {
+                    if (symbols == null ? used.startsWith(className + ".") : symbols.contains(used)) {
+                        selected.add(test.getKey());
+                        break;
+                    }
+                }
+            }
+            reasons.add(path + ": " + (symbols == null ? "whole class" : symbols));
+        }
+        List<String> unrecorded = new ArrayList<>();
+        for (String test : knownTests) {
+            if (!impactMap.containsKey(test) && selected.add(test)) {
+                unrecorded.add(test);
+            }
+        }
+        if (!unrecorded.isEmpty()) {
+            reasons.add("not in the impact map yet: " + unrecorded);
+        }
+        return new Selection(false, selected, reasons);
+    }
+
+    private static Selection everything(List<String> reasons, String reason) {
+        reasons.add(reason);
+        return new Selection(true, new LinkedHashSet<>(), reasons);
+    }
+
+    // The names of the members of the given kind whose lines changed, or null when something else in the class
+    // changed too (a constructor, a plain field, imports, the class declaration).
+    private static Set<String> changedMembers(FileChange change, Path repository, Member.Kind kind) throws IOException {
+        if (change.lines.isEmpty()) {
+            return null;
+        }
+        List<Member> members = members(Files.readAllLines(repository.resolve(change.path), StandardCharsets.UTF_8));
+        Set<String> names = new LinkedHashSet<>();
+        for (int[] range : change.lines) {
+            for (int line = range[0]; line <= range[1]; line++) {
+                Member member = memberAt(members, line);
+                if (member == null || member.kind != kind) {
+                    return null;
+                }
+                names.add(member.name);
+            }
+        }
+        return names;
+    }
+
+    // Like changedMembers, for page objects: methods as "Page.method()" and @FindBy fields as "Page.field".
+    private static Set<String> changedSymbols(FileChange change, Path repository, String className) throws IOException {
+        if (change.lines.isEmpty()) {
+            return null;
+        }
+        List<Member> members = members(Files.readAllLines(repository.resolve(change.path), StandardCharsets.UTF_8));
+        Set<String> symbols = new LinkedHashSet<>();
+        for (int[] range : change.lines) {
+            for (int line = range[0]; line <= range[1]; line++) {
+                Member member = memberAt(members, line);
+                if (member == null || member.kind == Member.Kind.OTHER || className.equals(member.name)) {
+                    return null;
+                }
+                symbols.add(className + "." + member.name + (member.kind == Member.Kind.METHOD ? "()" : ""));
+            }
+        }
+        return symbols;
+    }
+
+    private static Member memberAt(List<Member> members, int line) {
+        for (Member member : members) {
+            if (line >= member.firstLine && line <= member.lastLine) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> testsOfClass(Collection<String> tests, String simpleName) {
+        Set<String> found = new LinkedHashSet<>();
+        for (String test : tests) {
+            String className = test.substring(0, test.indexOf('#'));
+            if (className.equals(simpleName) || className.endsWith("." + simpleName)) {
+                found.add(test);
+            }
+        }
+        return found;
+    }
+
+    private static boolean allMethodsRecorded(Map<String, Set<String>> impactMap, Set<String> symbols) {
+        Set<String> recorded = new LinkedHashSet<>();
+        for (Set<String> used : impactMap.values()) {
+            recorded.addAll(used);
+        }
+        for (String symbol : symbols) {
+            if (symbol.endsWith("()") && !recorded.contains(symbol)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean usesClass(Map<String, Set<String>> impactMap, String className) {
+        for (Set<String> symbols : impactMap.values()) {
+            for (String symbol : symbols) {
+                if (symbol.startsWith(className + ".")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package Utils;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+// Serves the local stand-in of the demo shop (src/main/resources/shop) on a free port of this machine.
+// The stand-in keeps the markup CheckoutPage uses and stores the cart and the wishlist in localStorage,
+// which makes it possible to run the framework completely offline.
+public class LocalShopServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public LocalShopServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-shop");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                path = "/index.html";
+            }
+            try (InputStream resource = LocalShopServer.class.getResourceAsStream("/shop" + path)) {
+                if (resource == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                byte[] body = resource.readAllBytes();
+                exchange.getResponseHeaders().add("Content-Type", contentType(path));
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    // The address of the shop, ending with a slash, e.g. http://127.0.0.1:53122/
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static String contentType(String path) {
+        if (path.endsWith(".js")) {
+            return "application/javascript; charset=UTF-8";
+        }
+        return "text/html; charset=UTF-8";
+    }
+}
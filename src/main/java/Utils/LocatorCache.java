@@ -0,0 +1,61 @@
+package Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Remembers which version of the page the cached elements of a page object belong to.
+// Every time the readiness engine sees a different URL (including the hash) or a new document,
+// the generation is bumped and all elements cached for the previous page are looked up again.
+// The counters are shared by all page objects so the suite can report how many lookups were saved.
+public class LocatorCache implements Readiness.Listener {
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong STALE = new AtomicLong();
+
+    private volatile long generation;
+    private volatile String pageKey;
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    // Drops every cached element of the page object.
+    public void invalidate() {
+        generation++;
+    }
+
+    @Override
+    public void onPageState(Readiness.PageState state) {
+        String key = state.getHref() + "#" + state.getDocumentId();
+        if (!key.equals(pageKey)) {
+            pageKey = key;
+            invalidate();
+        }
+    }
+
+    // Only drops the cache: the stale element was already counted by the CachingElementLocator that looked it up again.
+    @Override
+    public void onStaleElement() {
+        invalidate();
+    }
+
+    void recordHit() {
+        HITS.incrementAndGet();
+    }
+
+    void recordMiss() {
+        MISSES.incrementAndGet();
+    }
+
+    void recordStale() {
+        STALE.incrementAndGet();
+    }
+
+    // Every hit is one findElement round trip that did not go to the browser.
+    public static String report() {
+        long hits = HITS.get();
+        long lookups = hits + MISSES.get();
+        return String.format("Element cache: lookups=%d, hits=%d (%.0f%%), misses=%d, stale re-resolves=%d",
+                lookups, hits, lookups == 0 ? 0 : hits * 100.0 / lookups, MISSES.get(), STALE.get());
+    }
+}
@@ -0,0 +1,217 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.pagefactory.Annotations;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Measures how expensive the @FindBy locators of a page object are and proposes cheaper ones.
+// Every locator is resolved repeatedly against a captured DOM snapshot. For the element it finds, simpler
+// strategies (id, data attribute, a single class, name) are tried; a proposal is only made when it resolves
+// to exactly the same element and is faster. Locators that match several nodes, or that are shared by
+// several fields, are flagged.
+//
+// Capture a snapshot from a running test with LocatorProfiler.captureSnapshot(driver, path), then run
+//   java Utils.LocatorProfiler CheckoutPage snapshots/cart.html [snapshots/product.html ...]
+public class LocatorProfiler {
+
+    // Lists the simple attributes of an element that could identify it on their own.
+    // Attribute names and values and class names are escaped with CSS.escape, so values with quotes, brackets
+    // or leading digits still give valid selectors.
+    private static final String CANDIDATES_SCRIPT =
+            "var e = arguments[0], tag = e.tagName.toLowerCase(), out = [];" +
+            "if (e.id) out.push(['id', e.id]);" +
+            "for (var i = 0; i < e.attributes.length; i++) {" +
+            "  var a = e.attributes[i];" +
+            "  if (a.name.indexOf('data-') === 0 && a.value.length < 80)" +
+            "    out.push(['css', '[' + CSS.escape(a.name) + '=' + CSS.escape(a.value) + ']']);" +
+            "}" +
+            "if (e.getAttribute('name')) out.push(['css', tag + '[name=' + CSS.escape(e.getAttribute('name')) + ']']);" +
+            "var classes = (e.getAttribute('class') || '').split(/\\s+/).filter(function (c) { return c; });" +
+            "classes.forEach(function (c) { out.push(['css', '.' + CSS.escape(c)]); out.push(['css', tag + '.' + CSS.escape(c)]); });" +
+            "return out;";
+
+    // Every locator is timed over this many rounds of -Dprofiler.repetitions calls, after one round of warmup,
+    // and the median round is kept, so a single slow round (GC, a busy browser) does not decide the proposal.
+    static final int ROUNDS = 5;
+
+    private final WebDriver driver;
+    private final int repetitions;
+
+    public LocatorProfiler(WebDriver driver, int repetitions) {
+        this.driver = driver;
+        this.repetitions = repetitions;
+    }
+
+    // Saves the current DOM of the browser so it can be profiled later without the live site.
+    public static void captureSnapshot(WebDriver driver, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, driver.getPageSource().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Profiles every @FindBy field of the page class against the page currently loaded in the browser.
+    public List<LocatorReport> profile(Class<?> pageClass) {
+        List<LocatorReport> reports = new ArrayList<>();
+        Map<String, String> fieldByLocator = new HashMap<>();
+        for (Field field : pageClass.getDeclaredFields()) {
+            if (!field.isAnnotationPresent(FindBy.class) && !field.isAnnotationPresent(FindBys.class)
+                    && !field.isAnnotationPresent(FindAll.class)) {
+                continue;
+            }
+            By by = new Annotations(field).buildBy();
+            LocatorReport report = new LocatorReport(field.getName(), by);
+            String duplicateOf = fieldByLocator.putIfAbsent(normalize(by), field.getName());
+            if (duplicateOf != null) {
+                report.warnings.add("same locator as field '" + duplicateOf + "'");
+            }
+            measure(report);
+            reports.add(report);
+        }
+        reports.sort(Comparator.comparingDouble((LocatorReport report) -> report.meanMicros).reversed());
+        return reports;
+    }
+
+    private void measure(LocatorReport report) {
+        List<WebElement> matches = driver.findElements(report.by);
+        report.matchCount = matches.size();
+        report.meanMicros = time(report.by);
+        if (matches.size() > 1) {
+            report.warnings.add("matches " + matches.size() + " nodes, the first one is used");
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
+        WebElement target = matches.get(0);
+        for (Object candidate : (List<?>) ((JavascriptExecutor) driver).executeScript(CANDIDATES_SCRIPT, target)) {
+            List<?> pair = (List<?>) candidate;
+            By alternative = "id".equals(pair.get(0)) ? By.id((String) pair.get(1)) : By.cssSelector((String) pair.get(1));
+            if (normalize(alternative).equals(normalize(report.by))) {
+                continue;
+            }
+            List<WebElement> found = driver.findElements(alternative);
+            if (found.size() != 1 || !found.get(0).equals(target)) {
+                continue;
+            }
+            double micros = time(alternative);
+            if (micros < report.meanMicros && (report.proposal == null || micros < report.proposalMicros)) {
+                report.proposal = alternative;
+                report.proposalMicros = micros;
+            }
+        }
+    }
+
+    // Mean time of one findElements call in the median round, in microseconds.
+    private double time(By by) {
+        for (int i = 0; i < repetitions; i++) {
+            driver.findElements(by);
+        }
+        double[] rounds = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < repetitions; i++) {
+                driver.findElements(by);
+            }
+            rounds[round] = (System.nanoTime() - start) / 1e3 / repetitions;
+        }
+        Arrays.sort(rounds);
+        return rounds[ROUNDS / 2];
+    }
+
+    private static String normalize(By by) {
+        return by.toString().trim().replaceAll("\\s+", " ");
+    }
+
+    public static String format(List<LocatorReport> reports) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-28s %10s %7s  %s%n", "Field", "mean us", "matches", "locator"));
+        for (LocatorReport report : reports) {
+            out.append(String.format(Locale.ROOT, "%-28s %10.1f %7d  %s%n",
+                    report.fieldName, report.meanMicros, report.matchCount, report.by));
+            if (report.proposal != null) {
+                out.append(String.format(Locale.ROOT, "%-28s %10.1f %7s  -> %s (same element, %.1fx faster)%n",
+                        "", report.proposalMicros, "1", report.proposal, report.meanMicros / report.proposalMicros));
+            }
+            for (String warning : report.warnings) {
+                out.append(String.format("%-28s %10s %7s  !  %s%n", "", "", "", warning));
+            }
+        }
+        return out.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: LocatorProfiler <page class> <snapshot.html> [<snapshot.html> ...]");
+            System.exit(2);
+        }
+        Class<?> pageClass = Class.forName(args[0]);
+        ChromeOptions options = new ChromeOptions();
+        options.setHeadless(true);
+        WebDriver driver = new ChromeDriver(options);
+        try {
+            LocatorProfiler profiler = new LocatorProfiler(driver, FrameworkConfig.getInt("profiler.repetitions", 50));
+            for (String snapshot : Arrays.copyOfRange(args, 1, args.length)) {
+                driver.get(Paths.get(snapshot).toUri().toString());
+                System.out.println("== " + pageClass.getSimpleName() + " against " + snapshot);
+                System.out.println(format(profiler.profile(pageClass)));
+            }
+        } finally {
+            driver.quit();
+        }
+    }
+
+    // The result for one @FindBy field.
+    public static class LocatorReport {
+        private final String fieldName;
+        private final By by;
+        private final List<String> warnings = new ArrayList<>();
+        private int matchCount;
+        private double meanMicros;
+        private By proposal;
+        private double proposalMicros;
+
+        LocatorReport(String fieldName, By by) {
+            this.fieldName = fieldName;
+            this.by = by;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public int getMatchCount() {
+            return matchCount;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public By getProposal() {
+            return proposal;
+        }
+
+        public List<String> getWarnings() {
+            return warnings;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package Utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+import java.util.List;
+
+// Fails a test whose page expectations were not met, once the test method returns.
+// The failed expectations are kept per thread in the TestContext, so tests running in parallel never see
+// each other's failures.
+public class PageAssertionListener implements IInvokedMethodListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        List<String> failures = TestContext.current().takeFailedExpectations();
+        if (failures.isEmpty()) {
+            return;
+        }
+        AssertionError error = new AssertionError(PageAssertions.failureMessage(failures));
+        if (testResult.getStatus() == ITestResult.FAILURE && testResult.getThrowable() != null) {
+            testResult.getThrowable().addSuppressed(error);
+        } else {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(error);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.Annotations;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Checks several expectations about the current page in a single executeScript call:
+//   page.expect()
+//       .text("Wishlist badge", "shoppingCartBadge", "1")
+//       .text("Product link", By.linkText("Awesome Granite Chips"), "Awesome Granite Chips")
+//       .absent("Empty cart text", "emptyCartText")
+//       .check();
+// Elements are given as a By or as the name of an @FindBy field of the page object, so the locator stays
+// in one place. check() records the failed expectations in the TestContext of the current thread and the test
+// is failed once it returns (see PageAssertionListener); assertAll() fails the test immediately.
+// Either way all expectations of the batch are reported together, to TestNG and to the report.
+public class PageAssertions {
+
+    // Finds the elements of a locator in the page: find(how, what), with how and what as returned by script(By).
+    static final String FIND_FUNCTION =
+            "var byLinkText = function (text, partial) {" +
+            "  return Array.prototype.filter.call(document.getElementsByTagName('a'), function (a) {" +
+            "    var t = (a.innerText || '').trim(); return partial ? t.indexOf(text) >= 0 : t === text; });" +
+            "};" +
+            "var find = function (how, what) {" +
+            "  switch (how) {" +
+            "    case 'id': var e = document.getElementById(what); return e ? [e] : [];" +
+            "    case 'cssSelector': return document.querySelectorAll(what);" +
+            "    case 'className': return document.getElementsByClassName(what);" +
+            "    case 'name': return document.getElementsByName(what);" +
+            "    case 'tagName': return document.getElementsByTagName(what);" +
+            "    case 'linkText': return byLinkText(what, false);" +
+            "    case 'partialLinkText': return byLinkText(what, true);" +
+            "    case 'xpath':" +
+            "      var snapshot = document.evaluate(what, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "      var nodes = []; for (var i = 0; i < snapshot.snapshotLength; i++) { nodes.push(snapshot.snapshotItem(i)); }" +
+            "      return nodes;" +
+            "  }" +
+            "  throw new Error('Unsupported locator ' + how);" +
+            "};";
+
+    private static final String CHECK_SCRIPT =
+            "var checks = arguments[0], results = [];" +
+            FIND_FUNCTION +
+            "for (var i = 0; i < checks.length; i++) {" +
+            "  var nodes = find(checks[i].how, checks[i].what);" +
+            "  results.push({count: nodes.length, text: nodes.length ? (nodes[0].innerText || '').trim() : null});" +
+            "}" +
+            "return results;";
+
+    private static volatile Reporter reporter;
+
+    private final WebDriver driver;
+    private final Object page;
+    private final List<Expectation> expectations = new ArrayList<>();
+
+    public PageAssertions(WebDriver driver, Object page) {
+        this.driver = driver;
+        this.page = page;
+    }
+
+    // Where the results of every check are reported, e.g. the Extent report.
+    public static void setReporter(Reporter reporter) {
+        PageAssertions.reporter = reporter;
+    }
+
+    public PageAssertions text(String description, String field, String expected) {
+        return text(description, locatorOf(field), expected);
+    }
+
+    // The first matching element has exactly this visible text (trimmed).
+    public PageAssertions text(String description, By locator, String expected) {
+        expectations.add(new Expectation(description, locator, "text is '" + expected + "'",
+                (count, text) -> expected.equals(text)));
+        return this;
+    }
+
+    public PageAssertions textContains(String description, String field, String expected) {
+        return textContains(description, locatorOf(field), expected);
+    }
+
+    public PageAssertions textContains(String description, By locator, String expected) {
+        expectations.add(new Expectation(description, locator, "text contains '" + expected + "'",
+                (count, text) -> text != null && text.contains(expected)));
+        return this;
+    }
+
+    public PageAssertions present(String description, String field) {
+        return present(description, locatorOf(field));
+    }
+
+    public PageAssertions present(String description, By locator) {
+        expectations.add(new Expectation(description, locator, "is present", (count, text) -> count > 0));
+        return this;
+    }
+
+    public PageAssertions absent(String description, String field) {
+        return absent(description, locatorOf(field));
+    }
+
+    public PageAssertions absent(String description, By locator) {
+        expectations.add(new Expectation(description, locator, "is absent", (count, text) -> count == 0));
+        return this;
+    }
+
+    public PageAssertions count(String description, By locator, int expected) {
+        expectations.add(new Expectation(description, locator, expected + " element(s)",
+                (count, text) -> count == expected));
+        return this;
+    }
+
+    // Evaluates the expectations and records the failed ones for the current test.
+    public void check() {
+        for (String failure : evaluate()) {
+            TestContext.current().recordFailedExpectation(failure);
+        }
+    }
+
+    // Evaluates the expectations and fails right away if one of them is not met.
+    public void assertAll() {
+        List<String> failures = evaluate();
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failureMessage(failures));
+        }
+    }
+
+    public static String failureMessage(List<String> failures) {
+        return failures.size() + " page expectation(s) not met:\n  " + String.join("\n  ", failures);
+    }
+
+    private List<String> evaluate() {
+        List<Map<String, String>> checks = new ArrayList<>();
+        for (Expectation expectation : expectations) {
+            checks.add(script(expectation.locator));
+        }
+        List<?> results = (List<?>) ((JavascriptExecutor) driver).executeScript(CHECK_SCRIPT, checks);
+
+        List<String> failures = new ArrayList<>();
+        String[][] rows = new String[expectations.size() + 1][];
+        rows[0] = new String[]{"Expectation", "Expected", "Actual", "Result"};
+        for (int i = 0; i < expectations.size(); i++) {
+            Expectation expectation = expectations.get(i);
+            Map<?, ?> result = (Map<?, ?>) results.get(i);
+            int count = ((Number) result.get("count")).intValue();
+            String text = (String) result.get("text");
+            boolean met = expectation.condition.isMet(count, text);
+            String actual = count == 0 ? "no element" : (count > 1 ? count + " elements, first " : "") + "'" + text + "'";
+            rows[i + 1] = new String[]{expectation.description, expectation.expected, actual, met ? "passed" : "FAILED"};
+            if (!met) {
+                failures.add(expectation.description + ": expected " + expectation.expected + " but found " + actual
+                        + " (" + expectation.locator + ")");
+            }
+        }
+        Reporter current = reporter;
+        if (current != null) {
+            current.report(rows, failures.isEmpty());
+        }
+        expectations.clear();
+        return failures;
+    }
+
+    private By locatorOf(String fieldName) {
+        return locatorOf(page, fieldName);
+    }
+
+    // The locator of a @FindBy field of the page. The field is read by name instead of through its proxy, so the
+    // test is linked to it here for test impact analysis, like CachingElementLocator does for every other lookup.
+    public static By locatorOf(Object page, String fieldName) {
+        for (Class<?> type = page.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                if (field.isAnnotationPresent(FindBy.class)) {
+                    TestImpact.touch(type.getSimpleName() + "." + field.getName());
+                    return new Annotations(field).buildBy();
+                }
+            } catch (NoSuchFieldException e) {
+                // Looking in the superclass.
+            }
+        }
+        throw new IllegalArgumentException(page.getClass().getSimpleName() + " has no @FindBy field named " + fieldName);
+    }
+
+    // By only exposes its strategy through toString(), e.g. "By.linkText: Awesome Granite Chips".
+    static Map<String, String> script(By locator) {
+        String value = locator.toString();
+        int colon = value.indexOf(": ");
+        if (!value.startsWith("By.") || colon < 0) {
+            throw new IllegalArgumentException("Unsupported locator for a browser script: " + value);
+        }
+        Map<String, String> check = new HashMap<>();
+        check.put("how", value.substring(3, colon));
+        check.put("what", value.substring(colon + 2));
+        return check;
+    }
+
+    // Receives the results of a check as a table: a header row, then one row per expectation.
+    public interface Reporter {
+        void report(String[][] rows, boolean passed);
+    }
+
+    private interface Condition {
+        boolean isMet(int count, String text);
+    }
+
+    private static class Expectation {
+        private final String description;
+        private final By locator;
+        private final String expected;
+        private final Condition condition;
+
+        Expectation(String description, By locator, String expected, Condition condition) {
+            this.description = description;
+            this.locator = locator;
+            this.expected = expected;
+            this.condition = condition;
+        }
+    }
+}
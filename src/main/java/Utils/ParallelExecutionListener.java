@@ -0,0 +1,33 @@
+package Utils;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+// Switches the suite to parallel execution before TestNG starts running it.
+// It is registered through META-INF/services, so it also applies to suites generated by surefire.
+//   mvn test -Dparallel=methods -Dthreads=8
+// Without -Dthreads the number of available cores is used.
+// -Ddataprovider.threads sets the number of threads the rows of parallel DataProviders run on; without it the
+// data-provider-thread-count of the suite (10 unless testng.xml says otherwise) is kept.
+public class ParallelExecutionListener implements IAlterSuiteListener {
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!FrameworkConfig.get("dataprovider.threads", "").isEmpty()) {
+            for (XmlSuite suite : suites) {
+                suite.setDataProviderThreadCount(FrameworkConfig.dataProviderThreads());
+            }
+        }
+        String mode = FrameworkConfig.parallelMode();
+        if ("none".equalsIgnoreCase(mode)) {
+            return;
+        }
+        for (XmlSuite suite : suites) {
+            suite.setParallel(XmlSuite.ParallelMode.getValidParallel(mode));
+            suite.setThreadCount(FrameworkConfig.threads());
+        }
+        System.out.println("Parallel execution: " + mode + " on " + FrameworkConfig.threads() + " threads");
+    }
+}
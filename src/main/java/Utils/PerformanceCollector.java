@@ -0,0 +1,230 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Collects front-end performance data of the application after every page-object action and checks it
+// against declarative budgets, so the UI tests double as a performance regression gate.
+// After each step (a click, typing, a navigation) one script reads what the browser recorded since the
+// previous step: Resource Timing (requests, transferred bytes), long tasks and, for a new document, its
+// Navigation Timing and Largest Contentful Paint. A route change of a single-page app is no new document and
+// the browser does not report a new LCP for it, so lcp (like ttfb, domContentLoaded and load) is only reported,
+// and only checked against its budgets, for the first step on a newly loaded document.
+// Budgets come from -Dperf.budgets (a file or classpath resource, perf-budgets.txt by default), one per line:
+//   CheckoutPage.clickMainSearchButton  lcp       <  2500
+//   CheckoutPage.clickShoppingCartIcon  requests  <  40
+// The step is the innermost page-object method on the stack, the one that clicked or typed ('*' matches anything);
+// a method that only calls other page-object methods, like openCartWith, is never a step itself.
+// The metrics are listed in METRICS below.
+// An exceeded budget is recorded like an unmet page expectation, which fails the test.
+// -Dperf.collect=false turns the collection off.
+public final class PerformanceCollector {
+
+    // Metric name -> description, in report order. Times in milliseconds, sizes in kilobytes.
+    private static final Map<String, String> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("duration", "wall time of the step");
+        METRICS.put("requests", "requests started during the step");
+        METRICS.put("transferKb", "bytes transferred during the step");
+        METRICS.put("longTasks", "main-thread tasks over 50 ms");
+        METRICS.put("longTaskMs", "total time of those tasks");
+        METRICS.put("lcp", "largest contentful paint of the document");
+        METRICS.put("ttfb", "time to first byte of a new document");
+        METRICS.put("domContentLoaded", "DOMContentLoaded of a new document");
+        METRICS.put("load", "load event of a new document");
+    }
+
+    private static final String COLLECT_SCRIPT =
+            "var done = arguments[arguments.length - 1], w = window, p = w.performance;" +
+            "if (!w.__ftPerf) {" +
+            "  w.__ftPerf = {resourceIndex: 0, longTasks: 0, longTaskMs: 0, lcp: 0, reported: false};" +
+            "  try { p.setResourceTimingBufferSize(5000); } catch (e) {}" +
+            "  try { new PerformanceObserver(function (list) { list.getEntries().forEach(function (e) {" +
+            "    w.__ftPerf.longTasks++; w.__ftPerf.longTaskMs += e.duration; }); })" +
+            "    .observe({type: 'longtask', buffered: true}); } catch (e) {}" +
+            "  try { new PerformanceObserver(function (list) { var entries = list.getEntries();" +
+            "    w.__ftPerf.lcp = entries[entries.length - 1].startTime; })" +
+            "    .observe({type: 'largest-contentful-paint', buffered: true}); } catch (e) {}" +
+            "}" +
+            // Letting the observers deliver their buffered entries first.
+            "setTimeout(function () {" +
+            "  var s = w.__ftPerf, resources = p.getEntriesByType('resource'), bytes = 0;" +
+            "  resources.slice(s.resourceIndex).forEach(function (r) { bytes += r.transferSize || 0; });" +
+            "  var result = {requests: resources.length - s.resourceIndex, transferKb: bytes / 1024," +
+            "      longTasks: s.longTasks, longTaskMs: s.longTaskMs};" +
+            "  var navigation = p.getEntriesByType('navigation')[0];" +
+            "  if (!s.reported && navigation) {" +
+            "    result.ttfb = navigation.responseStart; result.domContentLoaded = navigation.domContentLoadedEventEnd;" +
+            "    result.load = navigation.loadEventEnd; result.lcp = s.lcp;" +
+            "  }" +
+            "  s.resourceIndex = resources.length; s.longTasks = 0; s.longTaskMs = 0; s.reported = true;" +
+            "  done(result);" +
+            "}, 0);";
+
+    private static final List<Budget> BUDGETS = loadBudgets(FrameworkConfig.perfBudgets());
+    private static final ThreadLocal<Map<String, StepStats>> CURRENT = new ThreadLocal<>();
+
+    private PerformanceCollector() {
+    }
+
+    public static boolean isEnabled() {
+        return FrameworkConfig.perfCollect();
+    }
+
+    // Starts collecting the steps of the test running on the current thread.
+    public static void startTest() {
+        CURRENT.set(new LinkedHashMap<>());
+    }
+
+    // Reads what the browser recorded since the last step and checks it against the budgets.
+    // Steps outside a test are not collected.
+    public static void step(WebDriver driver, String step, long durationNanos) {
+        Map<String, StepStats> steps = CURRENT.get();
+        if (steps == null || !isEnabled() || step == null) {
+            return;
+        }
+        Map<?, ?> raw;
+        try {
+            raw = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(COLLECT_SCRIPT);
+        } catch (WebDriverException e) {
+            // The page went away in the middle of the step; its data is lost, not the test.
+            return;
+        }
+        Map<String, Double> sample = new LinkedHashMap<>();
+        sample.put("duration", durationNanos / 1e6);
+        raw.forEach((metric, value) -> sample.put(String.valueOf(metric), ((Number) value).doubleValue()));
+        steps.computeIfAbsent(step, StepStats::new).add(sample);
+
+        for (String exceeded : exceededBudgets(BUDGETS, step, sample)) {
+            TestContext.current().recordFailedExpectation(exceeded);
+        }
+    }
+
+    // The budgets of the step that the sample exceeds. A metric missing from the sample (e.g. lcp after a route
+    // change) is not checked.
+    static List<String> exceededBudgets(List<Budget> budgets, String step, Map<String, Double> sample) {
+        List<String> exceeded = new ArrayList<>();
+        for (Budget budget : budgets) {
+            Double value = sample.get(budget.metric);
+            if (value != null && budget.appliesTo(step) && value >= budget.limit) {
+                exceeded.add(String.format(Locale.ROOT, "Performance budget of %s exceeded: %s was %.0f, limit %.0f",
+                        step, budget.metric, value, budget.limit));
+            }
+        }
+        return exceeded;
+    }
+
+    // Stops collecting for the current thread and returns the steps of the test as a table: the count of each
+    // step, then its total (requests, bytes, long tasks, duration) or worst value (timings of the document).
+    public static String[][] finishTest() {
+        Map<String, StepStats> steps = CURRENT.get();
+        CURRENT.remove();
+        if (steps == null || steps.isEmpty()) {
+            return null;
+        }
+        List<String[]> rows = new ArrayList<>();
+        List<String> header = new ArrayList<>(Arrays.asList("Step", "Count"));
+        header.addAll(METRICS.keySet());
+        rows.add(header.toArray(new String[0]));
+        for (StepStats stats : steps.values()) {
+            List<String> row = new ArrayList<>(Arrays.asList(stats.step, String.valueOf(stats.count)));
+            for (String metric : METRICS.keySet()) {
+                Double value = stats.values.get(metric);
+                row.add(value == null ? "" : String.format(Locale.ROOT, "%.0f", value));
+            }
+            rows.add(row.toArray(new String[0]));
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    static List<Budget> loadBudgets(String location) {
+        List<Budget> budgets = new ArrayList<>();
+        try (InputStream in = open(location)) {
+            if (in == null) {
+                return Collections.emptyList();
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.replaceAll("#.*", "").trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 4 || !"<".equals(parts[2]) || !METRICS.containsKey(parts[1])) {
+                    throw new IllegalArgumentException(location + ":" + number
+                            + ": expected '<step> <metric> < <limit>' with a metric among " + METRICS.keySet());
+                }
+                budgets.add(new Budget(parts[0], parts[1], Double.parseDouble(parts[3])));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the performance budgets " + location, e);
+        }
+        return budgets;
+    }
+
+    private static InputStream open(String location) throws IOException {
+        Path file = Paths.get(location);
+        if (Files.isRegularFile(file)) {
+            return Files.newInputStream(file);
+        }
+        return PerformanceCollector.class.getClassLoader().getResourceAsStream(location);
+    }
+
+    // A limit for one metric of the steps matching a pattern.
+    static class Budget {
+        private final Pattern step;
+        private final String metric;
+        private final double limit;
+
+        Budget(String step, String metric, double limit) {
+            this.step = Pattern.compile(Pattern.quote(step).replace("*", "\\E.*\\Q"));
+            this.metric = metric;
+            this.limit = limit;
+        }
+
+        boolean appliesTo(String stepName) {
+            return step.matcher(stepName).matches();
+        }
+    }
+
+    // The samples of one step of a test. Counts and durations add up; document timings keep the worst value.
+    private static class StepStats {
+        private static final List<String> SUMMED = Arrays.asList("duration", "requests", "transferKb", "longTasks", "longTaskMs");
+
+        private final String step;
+        private final Map<String, Double> values = new LinkedHashMap<>();
+        private int count;
+
+        StepStats(String step) {
+            this.step = step;
+        }
+
+        void add(Map<String, Double> sample) {
+            count++;
+            sample.forEach((metric, value) -> values.merge(metric, value, SUMMED.contains(metric) ? Double::sum : Math::max));
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// A Chrome profile whose HTTP cache already holds the JS bundles, fonts and images of the application,
+// so a new browser session does not download them again before the first test can start.
+// The template (-Dprofile.template.dir) is built once by a browser that visits the start URL and the shop
+// (-Dprofile.template.urls), and is reused by later runs until the application build changes:
+// the build is recognised by the scripts and stylesheets its pages reference (bundle names carry a content hash),
+// or given explicitly with -Dapp.build=<id>. Cookies and storage of the warm-up visit are not kept.
+// Every session gets its own clone of the template:
+//   -Dprofile.clone=copy (default)  every file is copied
+//   -Dprofile.clone=hardlink        cache entries are hard links to the read-only template files, so cloning
+//                                   costs almost nothing; Chrome cannot write to them, drops an entry it fails
+//                                   to update and stores the response again in a file of its own, which leaves
+//                                   the template intact. Read-only files do not stop root, so when the template
+//                                   files are still writable (e.g. tests running as root in a container) the
+//                                   clones are copied anyway.
+// -Dprofile.template=false starts every session with an empty profile, as before.
+// The first page loads with an empty profile are kept in cold-first-loads.txt next to the template, from the
+// build of the template and from every run with -Dprofile.template=false, so the report compares the warm loads
+// of a run with all the cold loads measured for the current application build.
+public final class ProfileTemplate {
+
+    // Directories of a profile that hold cached responses and compiled scripts.
+    private static final List<String> CACHE_DIRECTORIES = Arrays.asList("Cache", "Code Cache", "GPUCache");
+
+    // What a clone must not inherit: the state of the warm-up visit, and the locks of the browser that built it.
+    private static final List<String> SKIPPED = Arrays.asList("Cookies", "Cookies-journal", "Local Storage",
+            "Session Storage", "IndexedDB", "SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile");
+
+    private static final String CLEAR_STATE_SCRIPT =
+            "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private static final Pattern ASSET = Pattern.compile("<(?:script|link)\\b[^>]*?(?:src|href)\\s*=\\s*[\"']([^\"']+)[\"']",
+            Pattern.CASE_INSENSITIVE);
+
+    private static Path template;
+    private static Boolean hardlinksAreSafe;
+    private static long buildMillis = -1;
+    private static final AtomicInteger sessions = new AtomicInteger();
+    private static final AtomicLong cloneNanos = new AtomicLong();
+    private static final AtomicInteger coldThisRun = new AtomicInteger();
+    private static final Stats warm = new Stats();
+
+    private ProfileTemplate() {
+    }
+
+    public static boolean isEnabled() {
+        return FrameworkConfig.profileTemplate();
+    }
+
+    // Returns the options with a fresh clone of the template as user data directory, building the template
+    // first when there is none for the current application build.
+    // The factory starts the browser that fills the template.
+    public static ChromeOptions apply(ChromeOptions options, Function<ChromeOptions, WebDriver> factory) {
+        Path prototype = ensureBuilt(factory);
+        long start = System.nanoTime();
+        Path session = sessionsDirectory().resolve("session-" + ProcessHandle.current().pid() + "-" + sessions.incrementAndGet());
+        try {
+            cloneTree(prototype, session, "hardlink".equalsIgnoreCase(FrameworkConfig.profileCloneMode())
+                    && hardlinksAreSafe(prototype));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clone the browser profile template into " + session, e);
+        }
+        cloneNanos.addAndGet(System.nanoTime() - start);
+        options.addArguments("--user-data-dir=" + session.toAbsolutePath());
+        return options;
+    }
+
+    // Records how long the first page of a new session took to load, with or without a warm profile.
+    public static void recordFirstLoad(boolean warmProfile, long millis) {
+        if (warmProfile) {
+            warm.add(millis);
+        } else {
+            recordColdLoad(millis);
+        }
+    }
+
+    // Deletes the profiles of the sessions of this run; the template stays for the next run.
+    public static void cleanUp() {
+        deleteTree(sessionsDirectory(), "session-" + ProcessHandle.current().pid() + "-");
+    }
+
+    public static String report() {
+        int count = sessions.get();
+        Stats cold = readColdLoads();
+        return String.format("Browser profiles: %s, %d session clone(s) in %.1f ms avg; first page load of a session: "
+                        + "cold profile %s (%d this run), warm profile %s%s",
+                !isEnabled() ? "no template (-Dprofile.template=false)"
+                        : buildMillis < 0 ? "template reused" : "template built in " + buildMillis + " ms",
+                count, count == 0 ? 0 : cloneNanos.get() / 1e6 / count, cold, coldThisRun.get(), warm,
+                cold.count.get() < 3 ? " - too few cold loads to compare, add some with a run with -Dprofile.template=false" : "");
+    }
+
+    // The first loads with an empty profile measured for the current template, over all runs.
+    private static synchronized void recordColdLoad(long millis) {
+        coldThisRun.incrementAndGet();
+        Path file = coldLoadsFile();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, millis + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Could not record a cold first load in " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static synchronized Stats readColdLoads() {
+        Stats cold = new Stats();
+        Path file = coldLoadsFile();
+        try {
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        cold.add(Long.parseLong(line.trim()));
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring unreadable " + file + ": " + e);
+        }
+        return cold;
+    }
+
+    private static Path coldLoadsFile() {
+        return Paths.get(FrameworkConfig.profileTemplateDir(), "cold-first-loads.txt");
+    }
+
+    // Hard links are only safe when the read-only template files really cannot be written through them.
+    private static synchronized boolean hardlinksAreSafe(Path profile) {
+        if (hardlinksAreSafe == null) {
+            hardlinksAreSafe = !hasWritableFile(profile);
+            if (!hardlinksAreSafe) {
+                System.out.println("Browser profile template: its read-only files are writable for this user (root?), "
+                        + "cloning by copy instead of hard links");
+            }
+        }
+        return hardlinksAreSafe;
+    }
+
+    static boolean hasWritableFile(Path profile) {
+        try (Stream<Path> files = Files.walk(profile)) {
+            return files.filter(Files::isRegularFile).anyMatch(Files::isWritable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static synchronized Path ensureBuilt(Function<ChromeOptions, WebDriver> factory) {
+        if (template != null) {
+            return template;
+        }
+        Path directory = Paths.get(FrameworkConfig.profileTemplateDir());
+        try {
+            Files.createDirectories(directory);
+            // Shards started on the same machine at the same time build the template only once.
+            try (FileChannel lockFile = FileChannel.open(directory.resolve("build.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockFile.lock()) {
+                Path profile = directory.resolve("profile");
+                Path fingerprintFile = directory.resolve("fingerprint");
+                String fingerprint = fingerprint();
+                String built = Files.exists(fingerprintFile) ? Files.readString(fingerprintFile).trim() : "";
+                boolean unknown = fingerprint.equals("unknown");
+                // A template without a fingerprint was not finished and is built again.
+                if (built.isEmpty() || !Files.isDirectory(profile) || (!unknown && !fingerprint.equals(built))) {
+                    long start = System.nanoTime();
+                    Files.deleteIfExists(fingerprintFile);
+                    // Cold loads of another application build are not comparable.
+                    Files.deleteIfExists(coldLoadsFile());
+                    deleteTree(directory, "profile");
+                    fill(profile, factory);
+                    Files.writeString(fingerprintFile, fingerprint);
+                    buildMillis = (System.nanoTime() - start) / 1_000_000;
+                    System.out.println("Browser profile template built for application build " + fingerprint
+                            + (built.isEmpty() ? "" : " (was " + built + ")"));
+                }
+                template = profile;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not build the browser profile template in " + directory, e);
+        }
+        return template;
+    }
+
+    // Visits the pages of the application so their resources end up in the HTTP cache of the profile.
+    // The first visit is what every session used to pay; it is recorded as a cold first load.
+    private static void fill(Path profile, Function<ChromeOptions, WebDriver> factory) throws IOException {
+        Files.createDirectories(profile);
+        ChromeOptions options = BrowserLaunchProfile.chromeOptions();
+        options.addArguments("--user-data-dir=" + profile.toAbsolutePath());
+        WebDriver driver = factory.apply(options);
+        try {
+            boolean first = true;
+            for (String url : FrameworkConfig.profileTemplateUrls().split(",")) {
+                if (url.isBlank()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                driver.get(url.trim());
+                new Readiness(driver).waitForPageReady();
+                if (first) {
+                    recordColdLoad((System.nanoTime() - start) / 1_000_000);
+                    first = false;
+                }
+                ((JavascriptExecutor) driver).executeScript(CLEAR_STATE_SCRIPT);
+            }
+            driver.manage().deleteAllCookies();
+        } finally {
+            // Quitting lets Chrome write its cache index, so the clones can use the entries.
+            driver.quit();
+        }
+        // Read-only files are shared by the hard-linked clones but can never be changed through them.
+        try (Stream<Path> files = Files.walk(profile)) {
+            files.filter(Files::isRegularFile).forEach(file -> file.toFile().setReadOnly());
+        }
+    }
+
+    // The application build: -Dapp.build, or a hash of the scripts and stylesheets referenced by the pages of the
+    // template, together with their ETags. "unknown" when the pages cannot be reached, e.g. in replay mode.
+    static String fingerprint() {
+        String explicit = FrameworkConfig.get("app.build", "");
+        if (!explicit.isEmpty()) {
+            return explicit;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        StringBuilder assets = new StringBuilder();
+        try {
+            for (String url : FrameworkConfig.profileTemplateUrls().split(",")) {
+                if (url.isBlank()) {
+                    continue;
+                }
+                HttpResponse<String> page = client.send(HttpRequest.newBuilder(URI.create(url.trim()))
+                        .timeout(Duration.ofSeconds(20)).build(), HttpResponse.BodyHandlers.ofString());
+                assets.append(url).append(' ').append(page.headers().firstValue("etag").orElse("")).append('\n');
+                assets.append(assetsOf(page.body()));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(assets.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The scripts and stylesheets a page references, one per line.
+    static String assetsOf(String html) {
+        StringBuilder assets = new StringBuilder();
+        Matcher matcher = ASSET.matcher(html);
+        while (matcher.find()) {
+            assets.append(matcher.group(1)).append('\n');
+        }
+        return assets.toString();
+    }
+
+    // Copies a profile, hard-linking the cache entries when asked to; a file that cannot be linked
+    // (another file system, no permission) is copied instead.
+    static void cloneTree(Path source, Path target, boolean hardlinkCache) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(source)) {
+            walk.forEach(files::add);
+        }
+        for (Path file : files) {
+            Path relative = source.relativize(file);
+            if (isSkipped(relative)) {
+                continue;
+            }
+            Path copy = target.resolve(relative.toString());
+            if (Files.isDirectory(file)) {
+                Files.createDirectories(copy);
+            } else if (hardlinkCache && isCache(relative)) {
+                try {
+                    Files.createLink(copy, file);
+                } catch (FileSystemException | UnsupportedOperationException e) {
+                    Files.copy(file, copy);
+                }
+            } else {
+                Files.copy(file, copy);
+                // Files of the template are read-only; the copies belong to the session.
+                copy.toFile().setWritable(true);
+            }
+        }
+    }
+
+    private static boolean isSkipped(Path relative) {
+        for (Path part : relative) {
+            if (SKIPPED.contains(part.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Cache indexes are rewritten by every session, so they are copied rather than linked.
+    private static boolean isCache(Path relative) {
+        String name = relative.getFileName().toString();
+        if (name.equals("index") || name.startsWith("the-real-index") || relative.toString().contains("index-dir")) {
+            return false;
+        }
+        for (Path part : relative) {
+            if (CACHE_DIRECTORIES.contains(part.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path sessionsDirectory() {
+        return Paths.get(FrameworkConfig.profileTemplateDir(), "sessions");
+    }
+
+    // Deletes the entries of a directory whose names start with the prefix.
+    private static void deleteTree(Path directory, String prefix) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(path -> path.getFileName().toString().startsWith(prefix)).forEach(entries::add);
+            for (Path entry : entries) {
+                try (Stream<Path> files = Files.walk(entry)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not delete browser profiles in " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // Count, average and maximum of the first page loads of one kind of profile.
+    private static class Stats {
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(long millis) {
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            int n = count.get();
+            return n == 0 ? "n/a" : String.format("avg=%.0f ms, max=%d ms (%d)", (double) totalMillis.get() / n, maxMillis.get(), n);
+        }
+    }
+}
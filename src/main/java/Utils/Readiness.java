@@ -0,0 +1,245 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Waits for the application to be ready instead of sleeping for a fixed time.
+// A small script injected into the page counts the fetch/XHR requests in flight and remembers when the DOM
+// last changed, so a page is considered ready when:
+//   document.readyState is 'complete' ('interactive' with an eager page load strategy), no request is in flight
+//   and the DOM has been quiet for a short while.
+// Conditions are polled with a growing interval, so fast pages cost one or two round trips
+// and slow pages do not flood the driver with commands.
+public class Readiness {
+
+    // Installs the request/mutation tracker once per document and reports the current state of the page.
+    private static final String PROBE_SCRIPT =
+            "var w = window;" +
+            "if (!w.__ftReady) {" +
+            "  var s = w.__ftReady = {pending: {}, nextId: 0, lastChange: Date.now(), docId: Math.random().toString(36).slice(2)};" +
+            "  var touch = function () { s.lastChange = Date.now(); };" +
+            "  var start = function () { var id = s.nextId++; s.pending[id] = Date.now(); touch(); return id; };" +
+            "  var done = function (id) { delete s.pending[id]; touch(); };" +
+            "  var send = XMLHttpRequest.prototype.send;" +
+            "  XMLHttpRequest.prototype.send = function () {" +
+            "    var id = start();" +
+            "    this.addEventListener('loadend', function () { done(id); });" +
+            "    return send.apply(this, arguments);" +
+            "  };" +
+            "  if (w.fetch) {" +
+            "    var originalFetch = w.fetch;" +
+            "    w.fetch = function () {" +
+            "      var id = start();" +
+            "      return originalFetch.apply(this, arguments).finally(function () { done(id); });" +
+            "    };" +
+            "  }" +
+            "  if (w.MutationObserver && document.documentElement) {" +
+            "    new MutationObserver(touch).observe(document.documentElement," +
+            "        {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "  }" +
+            "}" +
+            "var state = w.__ftReady, now = Date.now(), inflight = 0;" +
+            // Long-polling and tracking requests that never finish must not keep the page 'busy' forever.
+            "for (var id in state.pending) { if (now - state.pending[id] < arguments[0]) inflight++; }" +
+            "return {readyState: document.readyState, inflight: inflight," +
+            "        quietMs: now - state.lastChange, href: location.href, docId: state.docId};";
+
+    // Scrolls the element into view and checks that a click in its centre would land on it.
+    private static final String CLICKABLE_SCRIPT =
+            "var e = arguments[0];" +
+            "if (e.disabled) return false;" +
+            "var r = e.getBoundingClientRect();" +
+            "if (r.width === 0 || r.height === 0) return false;" +
+            "if (r.top < 0 || r.left < 0 || r.bottom > window.innerHeight || r.right > window.innerWidth) {" +
+            "  e.scrollIntoView({block: 'center', inline: 'center'}); r = e.getBoundingClientRect();" +
+            "}" +
+            "var t = document.elementFromPoint(r.left + r.width / 2, r.top + r.height / 2);" +
+            "return !!t && (t === e || e.contains(t));";
+
+    private static final long FIRST_POLL_MILLIS = 25;
+    private static final long MAX_POLL_MILLIS = 500;
+
+    private final WebDriver driver;
+    private final Duration defaultBudget;
+    private final long quietMillis;
+    private final long settleCapMillis;
+    private final long requestIgnoreMillis;
+    private final boolean interactiveIsEnough = "interactive".equals(FrameworkConfig.readinessDocumentState());
+    private Listener listener;
+
+    public Readiness(WebDriver driver) {
+        this(driver, Duration.ofSeconds(FrameworkConfig.readinessTimeoutSeconds()), FrameworkConfig.readinessQuietMillis(),
+                FrameworkConfig.readinessSettleCapMillis(), FrameworkConfig.readinessRequestIgnoreMillis());
+    }
+
+    public Readiness(WebDriver driver, Duration defaultBudget, long quietMillis, long settleCapMillis,
+                     long requestIgnoreMillis) {
+        this.driver = driver;
+        this.defaultBudget = defaultBudget;
+        this.quietMillis = quietMillis;
+        this.settleCapMillis = settleCapMillis;
+        this.requestIgnoreMillis = requestIgnoreMillis;
+    }
+
+    // Gets told about every page state seen and every stale element met while waiting.
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void waitForPageReady() {
+        waitForPageReady(defaultBudget);
+    }
+
+    // Blocks until the document is loaded, the network is idle and the DOM stopped changing.
+    // Pages with endless animations never become quiet, so once the network has been idle
+    // for the settle cap the page is accepted even if the DOM is still changing.
+    public PageState waitForPageReady(Duration budget) {
+        PageState[] last = new PageState[1];
+        long[] idleSince = {0};
+        poll(budget, "page to become ready", () -> {
+            PageState state = probe();
+            last[0] = state;
+            if (!state.isNetworkIdle(interactiveIsEnough)) {
+                idleSince[0] = 0;
+                return null;
+            }
+            long now = System.nanoTime();
+            if (idleSince[0] == 0) {
+                idleSince[0] = now;
+            }
+            boolean settled = state.quietMillis >= quietMillis
+                    || Duration.ofNanos(now - idleSince[0]).toMillis() >= settleCapMillis;
+            return settled ? state : null;
+        }, () -> String.valueOf(last[0]));
+        return last[0];
+    }
+
+    public WebElement waitForClickable(WebElement element) {
+        return waitForClickable(element, defaultBudget);
+    }
+
+    // Blocks until the element exists, is enabled and is not covered by another element.
+    public WebElement waitForClickable(WebElement element, Duration budget) {
+        return poll(budget, "element to become clickable", () -> {
+            Object clickable = ((JavascriptExecutor) driver).executeScript(CLICKABLE_SCRIPT, element);
+            return Boolean.TRUE.equals(clickable) ? element : null;
+        }, () -> "");
+    }
+
+    public WebElement waitForVisible(WebElement element) {
+        return waitForVisible(element, defaultBudget);
+    }
+
+    public WebElement waitForVisible(WebElement element, Duration budget) {
+        return poll(budget, "element to become visible", () -> element.isDisplayed() ? element : null, () -> "");
+    }
+
+    // Reads the state of the current page in a single round trip.
+    public PageState probe() {
+        Object result = ((JavascriptExecutor) driver).executeScript(PROBE_SCRIPT, requestIgnoreMillis);
+        PageState state = PageState.from((Map<?, ?>) result);
+        if (listener != null) {
+            listener.onPageState(state);
+        }
+        return state;
+    }
+
+    // Evaluates the condition until it returns a value, sleeping a little longer after every miss.
+    // Elements that are not (yet) in the DOM count as a miss, not as a failure.
+    private <T> T poll(Duration budget, String description, Supplier<T> condition, Supplier<String> details) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        long pause = FIRST_POLL_MILLIS;
+        RuntimeException lastError = null;
+        while (true) {
+            try {
+                T value = condition.get();
+                if (value != null) {
+                    return value;
+                }
+            } catch (StaleElementReferenceException e) {
+                lastError = e;
+                if (listener != null) {
+                    listener.onStaleElement();
+                }
+            } catch (NoSuchElementException e) {
+                lastError = e;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("Timed out after " + budget.toMillis() + " ms waiting for "
+                        + description + " " + details.get(), lastError);
+            }
+            sleep(Math.min(pause, Duration.ofNanos(remaining).toMillis() + 1));
+            pause = Math.min(MAX_POLL_MILLIS, pause * 3 / 2);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the page", e);
+        }
+    }
+
+    public interface Listener {
+        void onPageState(PageState state);
+
+        void onStaleElement();
+    }
+
+    // A snapshot of the readiness signals of the current document.
+    public static class PageState {
+        private final String readyState;
+        private final long inflight;
+        private final long quietMillis;
+        private final String href;
+        private final String documentId;
+
+        PageState(String readyState, long inflight, long quietMillis, String href, String documentId) {
+            this.readyState = readyState;
+            this.inflight = inflight;
+            this.quietMillis = quietMillis;
+            this.href = href;
+            this.documentId = documentId;
+        }
+
+        static PageState from(Map<?, ?> values) {
+            return new PageState(
+                    String.valueOf(values.get("readyState")),
+                    ((Number) values.get("inflight")).longValue(),
+                    ((Number) values.get("quietMs")).longValue(),
+                    String.valueOf(values.get("href")),
+                    String.valueOf(values.get("docId")));
+        }
+
+        boolean isNetworkIdle(boolean interactiveIsEnough) {
+            boolean loaded = "complete".equals(readyState) || interactiveIsEnough && "interactive".equals(readyState);
+            return loaded && inflight == 0;
+        }
+
+        public String getHref() {
+            return href;
+        }
+
+        // Random id of the document; it changes whenever the browser loads a new document.
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        @Override
+        public String toString() {
+            return "(readyState=" + readyState + ", requests in flight=" + inflight
+                    + ", DOM quiet for " + quietMillis + " ms, url=" + href + ")";
+        }
+    }
+}
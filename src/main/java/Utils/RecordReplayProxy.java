@@ -0,0 +1,470 @@
+package Utils;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A local HTTP(S) proxy that Chrome is pointed at, for hermetic and fast runs against the shop and emag.
+//   -Dproxy.mode=record   forwards every request and stores the responses in the archive (-Dproxy.archive.dir)
+//   -Dproxy.mode=replay   answers only from the memory-mapped archive; nothing goes to the network
+//                         A request that was not recorded with exactly this query string (cache busters, timestamps)
+//                         is answered with the last recording of the same method, path and body.
+//   -Dproxy.mode=block    forwards requests untouched, only dropping the block list
+// In every mode requests to the hosts of the block list (analytics, ads, trackers; extend it with
+// -Dproxy.blocklist=host1,host2) are answered with 403 without leaving the machine.
+// To see HTTPS traffic the proxy terminates TLS itself with a self-signed certificate, which is why
+// Chrome runs with --ignore-certificate-errors in record and replay mode.
+public class RecordReplayProxy implements AutoCloseable {
+
+    public enum Mode { OFF, RECORD, REPLAY, BLOCK }
+
+    private static final List<String> DEFAULT_BLOCKLIST = Arrays.asList(
+            "google-analytics.com", "googletagmanager.com", "doubleclick.net", "googlesyndication.com",
+            "googleadservices.com", "facebook.net", "facebook.com", "connect.facebook.net", "hotjar.com",
+            "criteo.com", "criteo.net", "tiktok.com", "clarity.ms", "bat.bing.com", "adnxs.com",
+            "taboola.com", "outbrain.com", "segment.io", "mixpanel.com", "newrelic.com", "nr-data.net");
+
+    // Headers that only describe one hop and must not be forwarded or replayed.
+    private static final Set<String> HOP_BY_HOP = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "proxy-authorization", "transfer-encoding",
+            "te", "trailer", "upgrade", "content-length", "host", "expect"));
+
+    private static RecordReplayProxy shared;
+
+    private final Mode mode;
+    private final Set<String> blocklist = new HashSet<>(DEFAULT_BLOCKLIST);
+    private final HttpArchive archive;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "record-replay-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(15))
+            .build();
+    private final SSLContext sslContext;
+
+    // For replay: the request key without its query string, to the last recorded key with that path.
+    private final Map<String, String> byPath = new HashMap<>();
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong servedIgnoringQuery = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+
+    public RecordReplayProxy(Mode mode, Path archiveDirectory, List<String> extraBlockedHosts) throws Exception {
+        this.mode = mode;
+        this.blocklist.addAll(extraBlockedHosts);
+        this.archive = mode == Mode.RECORD ? HttpArchive.forRecording(archiveDirectory)
+                : mode == Mode.REPLAY ? HttpArchive.forReplay(archiveDirectory) : null;
+        this.sslContext = mode == Mode.BLOCK ? null : createSslContext(archiveDirectory.resolve("proxy-keystore.p12"));
+        if (mode == Mode.REPLAY) {
+            for (String key : archive.keys()) {
+                byPath.put(withoutQuery(key), key);
+            }
+        }
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        connections.submit(this::acceptLoop);
+    }
+
+    // The proxy configured with -Dproxy.mode, started on first use and shared by every browser of the run.
+    // Returns null when the proxy is off.
+    public static synchronized RecordReplayProxy shared() {
+        Mode mode = Mode.valueOf(FrameworkConfig.proxyMode().toUpperCase(Locale.ROOT));
+        if (mode == Mode.OFF) {
+            return null;
+        }
+        if (shared == null) {
+            try {
+                List<String> extra = new ArrayList<>();
+                for (String host : FrameworkConfig.proxyBlocklist().split(",")) {
+                    if (!host.isBlank()) {
+                        extra.add(host.trim());
+                    }
+                }
+                shared = new RecordReplayProxy(mode, Paths.get(FrameworkConfig.proxyArchiveDir()), extra);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not start the record/replay proxy", e);
+            }
+        }
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            System.out.println(shared.report());
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public String getAddress() {
+        return "127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String report() {
+        return String.format("Proxy (%s): served=%d (of which with another query string=%d), blocked=%d, "
+                        + "missing from recording=%d", mode.name().toLowerCase(Locale.ROOT), served.get(),
+                servedIgnoringQuery.get(), blocked.get(), missed.get());
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+            if (archive != null) {
+                archive.close();
+            }
+        } catch (IOException ignored) {
+            // Shutting down anyway.
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                // The server socket was closed.
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (Socket client = socket) {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = client.getOutputStream();
+            Request first = Request.read(in);
+            if (first == null) {
+                return;
+            }
+            if (!"CONNECT".equals(first.method)) {
+                handle(first, "http", null, out);
+                serveRequests(in, out, "http", null);
+                return;
+            }
+            String host = first.target.substring(0, first.target.lastIndexOf(':'));
+            int port = Integer.parseInt(first.target.substring(first.target.lastIndexOf(':') + 1));
+            if (isBlocked(host)) {
+                blocked.incrementAndGet();
+                out.write("HTTP/1.1 403 Forbidden\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            out.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            if (mode == Mode.BLOCK) {
+                tunnel(client, in, host, port);
+                return;
+            }
+            // Terminating TLS so the requests inside the tunnel can be recorded or replayed.
+            SSLSocket tls = (SSLSocket) sslContext.getSocketFactory().createSocket(client, host, port, false);
+            tls.setUseClientMode(false);
+            tls.startHandshake();
+            String authority = port == 443 ? host : host + ":" + port;
+            serveRequests(new BufferedInputStream(tls.getInputStream()), tls.getOutputStream(), "https", authority);
+        } catch (IOException | RuntimeException e) {
+            // The browser closed the connection or the upstream failed; the browser will retry if it cares.
+        }
+    }
+
+    private void serveRequests(InputStream in, OutputStream out, String scheme, String authority) throws IOException {
+        Request request;
+        while ((request = Request.read(in)) != null) {
+            handle(request, scheme, authority, out);
+        }
+    }
+
+    private void handle(Request request, String scheme, String authority, OutputStream out) throws IOException {
+        URI uri = request.target.startsWith("http") ? URI.create(request.target)
+                : URI.create(scheme + "://" + (authority != null ? authority : request.header("host")) + request.target);
+        if (isBlocked(uri.getHost())) {
+            blocked.incrementAndGet();
+            write(out, request, new HttpArchive.RecordedResponse(403, new ArrayList<>(), new byte[0]));
+            return;
+        }
+        String key = key(request.method, uri, request.body);
+        HttpArchive.RecordedResponse response;
+        if (mode == Mode.REPLAY) {
+            response = archive.find(key);
+            if (response == null && byPath.containsKey(withoutQuery(key))) {
+                response = archive.find(byPath.get(withoutQuery(key)));
+                servedIgnoringQuery.incrementAndGet();
+            }
+            if (response == null) {
+                missed.incrementAndGet();
+                write(out, request, new HttpArchive.RecordedResponse(404,
+                        List.<String[]>of(new String[]{"X-Replay-Miss", "true"}), new byte[0]));
+                return;
+            }
+        } else {
+            response = forward(request, uri);
+            if (mode == Mode.RECORD) {
+                archive.record(key, response);
+            }
+        }
+        served.incrementAndGet();
+        write(out, request, response);
+    }
+
+    // The archive key of a request: "METHOD uri", plus " #<hash>" of the body when there is one.
+    // The URI is encoded, so the key has no other spaces.
+    static String key(String method, URI uri, byte[] body) {
+        return method + " " + uri + (body.length > 0 ? " #" + Arrays.hashCode(body) : "");
+    }
+
+    // The key with the query string of the URI left out (the fragment never reaches the proxy).
+    static String withoutQuery(String key) {
+        String[] parts = key.split(" ", 3);
+        int query = parts[1].indexOf('?');
+        String uri = query < 0 ? parts[1] : parts[1].substring(0, query);
+        return parts[0] + " " + uri + (parts.length > 2 ? " " + parts[2] : "");
+    }
+
+    private HttpArchive.RecordedResponse forward(Request request, URI uri) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(60))
+                .method(request.method, request.body.length == 0 ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(request.body));
+        for (String[] header : request.headers) {
+            if (!HOP_BY_HOP.contains(header[0].toLowerCase(Locale.ROOT))) {
+                try {
+                    builder.header(header[0], header[1]);
+                } catch (IllegalArgumentException restricted) {
+                    // Headers the JDK client sets itself.
+                }
+            }
+        }
+        try {
+            HttpResponse<byte[]> upstream = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            List<String[]> headers = new ArrayList<>();
+            for (Map.Entry<String, List<String>> header : upstream.headers().map().entrySet()) {
+                if (header.getKey().startsWith(":") || HOP_BY_HOP.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    headers.add(new String[]{header.getKey(), value});
+                }
+            }
+            return new HttpArchive.RecordedResponse(upstream.statusCode(), headers, upstream.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding " + uri, e);
+        }
+    }
+
+    private static void write(OutputStream out, Request request, HttpArchive.RecordedResponse response) throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(response.status).append(" ")
+                .append(response.status < 400 ? "OK" : "Error").append("\r\n");
+        for (String[] header : response.headers) {
+            head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+        }
+        boolean hasBody = !"HEAD".equals(request.method) && response.status != 204 && response.status != 304;
+        head.append("Content-Length: ").append(hasBody ? response.body.length : 0).append("\r\n");
+        head.append("Connection: keep-alive\r\n\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (hasBody) {
+            out.write(response.body);
+        }
+        out.flush();
+    }
+
+    private static void tunnel(Socket client, InputStream clientIn, String host, int port) throws IOException {
+        try (Socket upstream = new Socket(host, port)) {
+            Thread upload = new Thread(() -> copy(clientIn, upstream), "proxy-tunnel");
+            upload.setDaemon(true);
+            upload.start();
+            upstream.getInputStream().transferTo(client.getOutputStream());
+        }
+    }
+
+    private static void copy(InputStream in, Socket to) {
+        try {
+            in.transferTo(to.getOutputStream());
+        } catch (IOException ignored) {
+            // One side closed the tunnel.
+        }
+    }
+
+    private boolean isBlocked(String host) {
+        if (host == null) {
+            return false;
+        }
+        String candidate = host.toLowerCase(Locale.ROOT);
+        while (true) {
+            if (blocklist.contains(candidate)) {
+                return true;
+            }
+            int dot = candidate.indexOf('.');
+            if (dot < 0) {
+                return false;
+            }
+            candidate = candidate.substring(dot + 1);
+        }
+    }
+
+    // A self-signed certificate generated once with the JDK keytool and kept next to the recordings.
+    private static SSLContext createSslContext(Path keystore) throws Exception {
+        char[] password = "changeit".toCharArray();
+        if (!Files.exists(keystore)) {
+            Files.createDirectories(keystore.toAbsolutePath().getParent());
+            Path keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool");
+            Process process = new ProcessBuilder(keytool.toString(), "-genkeypair", "-alias", "proxy",
+                    "-keyalg", "RSA", "-keysize", "2048", "-validity", "3650", "-dname", "CN=record-replay-proxy",
+                    "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                    "-storepass", "changeit", "-keypass", "changeit")
+                    .redirectErrorStream(true).start();
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool failed: " + new String(process.getInputStream().readAllBytes()));
+            }
+        }
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            store.load(in, password);
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(store, password);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+
+    // A request read from the browser.
+    private static class Request {
+        final String method;
+        final String target;
+        final List<String[]> headers;
+        final byte[] body;
+
+        Request(String method, String target, List<String[]> headers, byte[] body) {
+            this.method = method;
+            this.target = target;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        String header(String name) {
+            for (String[] header : headers) {
+                if (header[0].equalsIgnoreCase(name)) {
+                    return header[1];
+                }
+            }
+            return null;
+        }
+
+        // Returns null at the end of the connection.
+        static Request read(InputStream in) throws IOException {
+            String requestLine = readLine(in);
+            while (requestLine != null && requestLine.isEmpty()) {
+                requestLine = readLine(in);
+            }
+            if (requestLine == null) {
+                return null;
+            }
+            String[] parts = requestLine.split(" ");
+            List<String[]> headers = new ArrayList<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.add(new String[]{line.substring(0, colon).trim(), line.substring(colon + 1).trim()});
+                }
+            }
+            Request request = new Request(parts[0], parts.length > 1 ? parts[1] : "/", headers, new byte[0]);
+            if ("CONNECT".equals(request.method)) {
+                return request;
+            }
+            String encoding = request.header("transfer-encoding");
+            if (encoding != null && encoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+                return new Request(request.method, request.target, headers, readChunked(in));
+            }
+            String length = request.header("content-length");
+            if (length == null) {
+                return request;
+            }
+            return new Request(request.method, request.target, headers, in.readNBytes(Integer.parseInt(length.trim())));
+        }
+
+        // Reads a chunked body into one array; it is forwarded (and recorded) with a Content-Length instead.
+        private static byte[] readChunked(InputStream in) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new IOException("Connection closed inside a chunked body");
+                }
+                int extension = sizeLine.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+                if (size == 0) {
+                    break;
+                }
+                byte[] chunk = in.readNBytes(size);
+                if (chunk.length < size) {
+                    throw new IOException("Connection closed inside a chunk");
+                }
+                body.write(chunk);
+                readLine(in);
+            }
+            // Skipping the trailer headers up to the empty line that ends the body.
+            String trailer;
+            while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                // Trailers are hop-by-hop here and are not forwarded.
+            }
+            return body.toByteArray();
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            return line.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
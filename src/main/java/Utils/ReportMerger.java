@@ -0,0 +1,99 @@
+package Utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Combines the output of every shard into one suite report once all nodes are done:
+//   java -cp <test classpath> Utils.ReportMerger shard-0/ shard-1/ ...   (default: target/shards)
+// Every Extent archive (extent-*.json) is loaded into one Spark report (-Dreport.file, extentReports.html),
+// the event logs (events-*.jsonl) are rendered into one EventReportRenderer report (-Dreport.events.dir),
+// the shard results (results-*.tsv) are summarized and folded into the test history for the next split,
+// and what the tests of each shard used (impact-*.tsv) is folded into the impact map of TestImpact.
+public final class ReportMerger {
+
+    private ReportMerger() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        for (String arg : args.length == 0 ? new String[]{FrameworkConfig.shardResultsDir()} : args) {
+            directories.add(Paths.get(arg));
+        }
+        List<Path> archives = find(directories, "extent-", ".json");
+        List<Path> resultFiles = find(directories, "results-", ".tsv");
+        if (archives.isEmpty() && resultFiles.isEmpty()) {
+            throw new IllegalArgumentException("No shard output found in " + directories);
+        }
+
+        ExtentReports extent = new ExtentReports();
+        extent.attachReporter(new ExtentSparkReporter(FrameworkConfig.get("report.file", "extentReports.html")));
+        for (Path archive : archives) {
+            extent.createDomainFromJsonArchive(archive.toFile());
+        }
+        extent.flush();
+        List<Path> eventLogs = EventReportRenderer.findLogs(directories);
+        if (!eventLogs.isEmpty()) {
+            EventReportRenderer.render(eventLogs, Paths.get(FrameworkConfig.eventReportDir()));
+        }
+
+        List<TestHistory.Result> all = new ArrayList<>();
+        StringBuilder summary = new StringBuilder("Merged " + archives.size() + " report(s) and "
+                + resultFiles.size() + " result file(s)\n");
+        for (Path file : resultFiles) {
+            List<TestHistory.Result> results = TestHistory.readResults(file);
+            all.addAll(results);
+            summary.append(String.format("  %-40s %s, %.1f s of tests%n", file.getFileName(),
+                    countByStatus(results), results.stream().mapToLong(TestHistory.Result::getMillis).sum() / 1000.0));
+        }
+        summary.append("  total: ").append(countByStatus(all));
+        System.out.println(summary);
+
+        Path historyFile = Paths.get(FrameworkConfig.historyFile());
+        Map<String, TestHistory.Entry> history = TestHistory.load(historyFile);
+        TestHistory.fold(history, all);
+        TestHistory.save(historyFile, history);
+
+        List<Path> impactFiles = find(directories, "impact-", ".tsv");
+        if (!impactFiles.isEmpty()) {
+            Path impactFile = Paths.get(FrameworkConfig.impactMapFile());
+            Map<String, Set<String>> impact = TestImpact.load(impactFile);
+            for (Path file : impactFiles) {
+                impact.putAll(TestImpact.load(file));
+            }
+            TestImpact.save(impactFile, impact);
+        }
+    }
+
+    private static Map<String, Long> countByStatus(List<TestHistory.Result> results) {
+        return results.stream().collect(Collectors.groupingBy(TestHistory.Result::getStatus, TreeMap::new,
+                Collectors.counting()));
+    }
+
+    private static List<Path> find(List<Path> directories, String prefix, String suffix) throws IOException {
+        List<Path> found = new ArrayList<>();
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(prefix) && name.endsWith(suffix);
+                }).sorted().forEach(found::add);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,211 @@
+package Utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.Markup;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+
+// Moves ExtentReports work off the test threads.
+// Test threads only append events to a lock-free queue; a single background writer applies them to the
+// report and flushes it to disk every few seconds, so a crashed run still leaves a report behind.
+// When the queue is full the writer is asked to apply the pending events right away instead of at the next flush.
+// The test thread never does that work itself: it would wait for the report lock, which the writer holds while
+// it writes the whole report to disk. The queue can only grow past its capacity during such a flush.
+// With a ResultEventLog every event is also appended to that log, in the same order, by the same writer.
+public class ReportWriter {
+
+    private final ExtentReports extent;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final int capacity;
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService writer;
+    private final ResultEventLog events;
+    private final AtomicInteger testIds = new AtomicInteger();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong callNanos = new AtomicLong();
+    private final LongAccumulator maxCallNanos = new LongAccumulator(Long::max, 0);
+
+    public ReportWriter(ExtentReports extent, long flushIntervalMillis, int capacity) {
+        this(extent, null, flushIntervalMillis, capacity);
+    }
+
+    public ReportWriter(ExtentReports extent, ResultEventLog events, long flushIntervalMillis, int capacity) {
+        this.extent = extent;
+        this.events = events;
+        this.capacity = capacity;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extent-report-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "extent-report-final-flush"));
+    }
+
+    public ReportHandle startTest(String name, String description) {
+        ReportHandle handle = new ReportHandle(testIds.incrementAndGet());
+        enqueue(() -> {
+            handle.test = extent.createTest(name, description);
+            if (events != null) {
+                events.start(handle.id, name, description);
+            }
+        });
+        return handle;
+    }
+
+    public void log(ReportHandle handle, Status status, String details) {
+        if (handle != null) {
+            enqueue(() -> {
+                handle.test.log(status, details);
+                if (events != null) {
+                    events.text(handle.id, status.name(), details);
+                }
+            });
+        }
+    }
+
+    public void log(ReportHandle handle, Status status, Markup markup) {
+        if (handle != null) {
+            enqueue(() -> {
+                handle.test.log(status, markup);
+                if (events != null) {
+                    events.html(handle.id, status.name(), markup.getMarkup());
+                }
+            });
+        }
+    }
+
+    // Logs the exception a test failed with, including its stack trace.
+    public void fail(ReportHandle handle, Throwable failure) {
+        if (handle != null) {
+            enqueue(() -> {
+                handle.test.fail(failure);
+                if (events != null) {
+                    StringWriter trace = new StringWriter();
+                    failure.printStackTrace(new PrintWriter(trace));
+                    events.text(handle.id, Status.FAIL.name(), trace.toString());
+                }
+            });
+        }
+    }
+
+    // Records the outcome of a test (PASS, FAIL, SKIP, RETRY, ...) in the event log; the Extent report works
+    // it out from the logged statuses.
+    public void finish(ReportHandle handle, String outcome, long millis) {
+        if (handle != null && events != null) {
+            enqueue(() -> events.end(handle.id, outcome, millis));
+        }
+    }
+
+    // Records a step only in the event log, for what submit() adds to the Extent report, e.g. attached files.
+    public void note(ReportHandle handle, Status status, String details) {
+        if (handle != null && events != null) {
+            enqueue(() -> events.text(handle.id, status.name(), details));
+        }
+    }
+
+    // Adds markup to the output of the whole run (the Logs view of the Spark report), not to a test.
+    public void logRun(String title, Markup markup) {
+        enqueue(() -> extent.addTestRunnerOutput("<h6>" + title + "</h6>" + markup.getMarkup()));
+    }
+
+    // Runs any other work on the report in order with the logged events, e.g. attaching media.
+    public void submit(ReportHandle handle, Consumer<ExtentTest> action) {
+        if (handle != null) {
+            enqueue(() -> action.accept(handle.test));
+        }
+    }
+
+    // Applies every queued event to the report.
+    public void drain() {
+        synchronized (writeLock) {
+            Runnable event;
+            while ((event = queue.poll()) != null) {
+                pending.decrementAndGet();
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Could not write report event: " + e);
+                }
+            }
+        }
+    }
+
+    // Applies the queued events and writes the report to disk.
+    public void flush() {
+        synchronized (writeLock) {
+            drain();
+            extent.flush();
+            if (events != null) {
+                events.flush();
+            }
+        }
+    }
+
+    public void shutdown() {
+        writer.shutdown();
+        flush();
+    }
+
+    public String overheadReport() {
+        long count = calls.get();
+        return String.format("Report logging overhead: calls=%d, avg=%.1f us, max=%.1f us",
+                count, count == 0 ? 0 : callNanos.get() / 1e3 / count, maxCallNanos.get() / 1e3);
+    }
+
+    private void enqueue(Runnable event) {
+        long start = System.nanoTime();
+        queue.offer(event);
+        if (pending.incrementAndGet() > capacity && drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+        long elapsed = System.nanoTime() - start;
+        calls.incrementAndGet();
+        callNanos.addAndGet(elapsed);
+        maxCallNanos.accumulate(elapsed);
+    }
+
+    private void scheduleDrain() {
+        try {
+            writer.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            // The writer has been shut down at the end of the run: nothing else holds the lock any more.
+            drainScheduled.set(false);
+            drain();
+        }
+    }
+
+    // A test in the report. The ExtentTest behind it is created by the writer, not by the test thread.
+    public static class ReportHandle {
+        private final int id;
+        private volatile ExtentTest test;
+
+        ReportHandle(int id) {
+            this.id = id;
+        }
+
+        public ExtentTest getTest() {
+            return test;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// An append-only log of everything reported about the tests, one JSON object per line:
+//   {"run":"20261018-101500-shard-0-of-1","seq":1,"time":1760782500000,"type":"start","test":1,"name":"checkoutTest"}
+//   {"run":...,"type":"log","test":1,"status":"INFO","text":"..."}      (or "html" for tables and code blocks)
+//   {"run":...,"type":"end","test":1,"status":"PASS","millis":5120}
+// Nothing is ever rewritten, so writing costs the same at the ten-thousandth step as at the first, a crashed run
+// keeps every event written before the crash, and the logs of several runs or shards can be concatenated.
+// EventReportRenderer turns one or more logs into an HTML report.
+public class ResultEventLog implements AutoCloseable {
+
+    private final Path file;
+    private final String run;
+    private final BufferedWriter out;
+    private long seq;
+
+    public ResultEventLog(Path file, String run) {
+        this.file = file;
+        this.run = run;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the result event log " + file, e);
+        }
+    }
+
+    public void start(int test, String name, String description) {
+        append(test, "start", ",\"name\":" + Json.quote(name) + ",\"description\":" + Json.quote(description));
+    }
+
+    public void text(int test, String status, String text) {
+        append(test, "log", ",\"status\":" + Json.quote(status) + ",\"text\":" + Json.quote(text));
+    }
+
+    public void html(int test, String status, String html) {
+        append(test, "log", ",\"status\":" + Json.quote(status) + ",\"html\":" + Json.quote(html));
+    }
+
+    public void end(int test, String status, long millis) {
+        append(test, "end", ",\"status\":" + Json.quote(status) + ",\"millis\":" + millis);
+    }
+
+    // Pushes the buffered events to disk.
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write the result event log " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the result event log " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void append(int test, String type, String fields) {
+        try {
+            out.write("{\"run\":" + Json.quote(run) + ",\"seq\":" + (++seq) + ",\"time\":" + System.currentTimeMillis()
+                    + ",\"type\":\"" + type + "\",\"test\":" + test + fields + "}\n");
+        } catch (IOException e) {
+            System.err.println("Could not write the result event log " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Utils;
+
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.internal.annotations.DisabledRetryAnalyzer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+// Gives every test without a retry analyzer of its own the TransientRetryAnalyzer.
+// It is registered through META-INF/services, so the test classes do not have to name it.
+public class RetryTransformer implements IAnnotationTransformer {
+
+    @Override
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        Class<?> analyzer = annotation.getRetryAnalyzerClass();
+        if (FrameworkConfig.retryMax() > 0 && (analyzer == null || analyzer == DisabledRetryAnalyzer.class)) {
+            annotation.setRetryAnalyzer(TransientRetryAnalyzer.class);
+        }
+    }
+}
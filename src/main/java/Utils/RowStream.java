@@ -0,0 +1,182 @@
+package Utils;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Reads test data one row at a time, so a file of any size never has to fit in memory.
+// Supported formats, chosen by the file extension:
+//   .csv    a header line with the column names, then one row per record (quoted fields may contain commas,
+//           doubled quotes and line breaks)
+//   .jsonl  one flat JSON object per line, e.g. {"firstName": "Ana", "quantity": 2}
+// The location is a file path, or a classpath resource when no such file exists.
+public class RowStream implements Iterator<Map<String, String>>, AutoCloseable {
+
+    private final String location;
+    private final boolean json;
+    private final BufferedReader reader;
+    private List<String> header;
+    private Map<String, String> next;
+    private int lineNumber;
+
+    public RowStream(String location) {
+        this.location = location;
+        this.json = location.toLowerCase().endsWith(".jsonl");
+        try {
+            this.reader = new BufferedReader(new InputStreamReader(open(location), StandardCharsets.UTF_8));
+            if (!json) {
+                List<String> columns = readCsvRecord();
+                if (columns == null) {
+                    throw new IllegalArgumentException(location + " is empty, a CSV file needs a header line");
+                }
+                header = columns;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the test data " + location, e);
+        }
+    }
+
+    // Counts the rows without keeping any of them.
+    public static int count(String location) {
+        int rows = 0;
+        try (RowStream stream = new RowStream(location)) {
+            while (stream.hasNext()) {
+                stream.next();
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = json ? readJsonRecord() : toRow(readCsvRecord());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the test data " + location, e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in " + location);
+        }
+        Map<String, String> row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // Nothing left to read anyway.
+        }
+    }
+
+    private static InputStream open(String location) throws IOException {
+        Path file = Paths.get(location);
+        if (Files.isRegularFile(file)) {
+            return Files.newInputStream(file);
+        }
+        InputStream resource = RowStream.class.getClassLoader().getResourceAsStream(location);
+        if (resource == null) {
+            throw new FileNotFoundException("No file or classpath resource named " + location);
+        }
+        return resource;
+    }
+
+    private Map<String, String> toRow(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            row.put(header.get(i), i < values.size() ? values.get(i) : "");
+        }
+        return row;
+    }
+
+    // Reads the fields of the next CSV record, skipping blank lines; null at the end of the file.
+    private List<String> readCsvRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // A quoted field continues on the next line.
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    throw new IllegalArgumentException(location + ":" + lineNumber + ": unterminated quoted field");
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private Map<String, String> readJsonRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        return Json.parseFlatObject(line, location + ":" + lineNumber);
+    }
+}
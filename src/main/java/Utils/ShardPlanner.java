@@ -0,0 +1,45 @@
+package Utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Splits units of work (test methods, or whole classes) into shards of about the same total duration.
+// Greedy bin packing: the longest unit goes to the shard that currently has the least work.
+// The plan only depends on its input, so every node computes the same plan and runs its own part of it.
+public final class ShardPlanner {
+
+    private ShardPlanner() {
+    }
+
+    // Returns the shard of every unit.
+    public static Map<String, Integer> plan(Map<String, Long> estimatedMillis, int shards) {
+        List<Map.Entry<String, Long>> units = new ArrayList<>(estimatedMillis.entrySet());
+        units.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        long[] load = new long[shards];
+        Map<String, Integer> assignment = new HashMap<>();
+        for (Map.Entry<String, Long> unit : units) {
+            int lightest = 0;
+            for (int shard = 1; shard < shards; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            load[lightest] += unit.getValue();
+            assignment.put(unit.getKey(), lightest);
+        }
+        return assignment;
+    }
+
+    // Total estimated duration of every shard of a plan.
+    public static long[] loads(Map<String, Long> estimatedMillis, Map<String, Integer> plan, int shards) {
+        long[] load = new long[shards];
+        for (Map.Entry<String, Integer> unit : plan.entrySet()) {
+            load[unit.getValue()] += estimatedMillis.get(unit.getKey());
+        }
+        return load;
+    }
+}
@@ -0,0 +1,79 @@
+package Utils;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Runs only this JVM's share of the suite when -Dshard.total is greater than one:
+//   mvn test -Dshard.index=0 -Dshard.total=4   (and 1, 2, 3 on the other nodes)
+// Shards are balanced on the durations in the test history. Methods without history are assumed to take
+// the median known duration (or -Dshard.default.millis on a first run).
+// A class whose methods depend on each other is kept on one shard.
+// Every shard must read the same history, or they split the suite differently and run some tests twice and
+// others never. CI restores test-history/ from its cache once, hands that copy to every node (-Dhistory.file),
+// and after ReportMerger has folded the shard results into it, saves it back for the next run.
+public class ShardingInterceptor implements IMethodInterceptor {
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        int total = FrameworkConfig.shardTotal();
+        int index = FrameworkConfig.shardIndex();
+        if (total <= 1) {
+            return methods;
+        }
+        if (index < 0 || index >= total) {
+            throw new IllegalArgumentException("shard.index must be between 0 and " + (total - 1) + ", was " + index);
+        }
+        Map<String, TestHistory.Entry> history = TestHistory.load(Paths.get(FrameworkConfig.historyFile()));
+        long fallback = median(history);
+
+        Set<Class<?>> dependentClasses = new HashSet<>();
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            if (method.getMethodsDependedUpon().length > 0 || method.getGroupsDependedUpon().length > 0) {
+                dependentClasses.add(method.getRealClass());
+            }
+        }
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (IMethodInstance instance : methods) {
+            TestHistory.Entry entry = history.get(TestHistory.key(instance.getMethod()));
+            estimates.merge(unit(instance.getMethod(), dependentClasses),
+                    entry == null ? fallback : entry.getAverageMillis(), Long::sum);
+        }
+        Map<String, Integer> plan = ShardPlanner.plan(estimates, total);
+
+        // Keeping TestNG's order (priorities, preserve-order) within the shard.
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            if (plan.get(unit(instance.getMethod(), dependentClasses)) == index) {
+                selected.add(instance);
+            }
+        }
+        System.out.println(String.format("Sharding %s: %d of %d test methods, estimated shard durations %s ms",
+                FrameworkConfig.shardName(), selected.size(), methods.size(),
+                Arrays.toString(ShardPlanner.loads(estimates, plan, total))));
+        return selected;
+    }
+
+    private static String unit(ITestNGMethod method, Set<Class<?>> dependentClasses) {
+        return dependentClasses.contains(method.getRealClass()) ? method.getRealClass().getName() : TestHistory.key(method);
+    }
+
+    private static long median(Map<String, TestHistory.Entry> history) {
+        if (history.isEmpty()) {
+            return FrameworkConfig.getLong("shard.default.millis", 30000);
+        }
+        long[] durations = history.values().stream().mapToLong(TestHistory.Entry::getAverageMillis).sorted().toArray();
+        return durations[durations.length / 2];
+    }
+}
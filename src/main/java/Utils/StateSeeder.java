@@ -0,0 +1,95 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Puts the shop into a known state without clicking through the UI.
+// The cart and the wishlist are written straight into the localStorage of the shop and the browser is then
+// sent to the page under test, so a cart test starts on the cart page instead of on a product page.
+//   new StateSeeder(driver, shopUrl).cart("5", 2).wishlist("1").open("cart");
+// The storage keys can be changed with -Dseed.cart.key and -Dseed.wishlist.key.
+// The keys and their format ({"<product id>": quantity} and ["<product id>", ...]) are the ones of the local
+// stand-in of the shop (src/main/resources/shop), and seeding is only supported against it: the stand-in defines the
+// format, so StateSeedingTest cannot tell whether the live shop reads the same keys. CheckoutPage only seeds with
+// -Dseed.state=true and a shop URL on the loopback address, and clicks through the shop otherwise.
+public class StateSeeder {
+
+    private static final String SEED_SCRIPT =
+            "localStorage.setItem(arguments[0], arguments[1]);" +
+            "localStorage.setItem(arguments[2], arguments[3]);";
+
+    private final WebDriver driver;
+    private final String shopUrl;
+    private final Map<String, Integer> cart = new LinkedHashMap<>();
+    private final List<String> wishlist = new ArrayList<>();
+
+    public StateSeeder(WebDriver driver, String shopUrl) {
+        this.driver = driver;
+        this.shopUrl = shopUrl.endsWith("/") ? shopUrl : shopUrl + "/";
+    }
+
+    // Whether the shop is served from this machine, like the LocalShopServer stand-in.
+    public static boolean isLocalStandIn(String shopUrl) {
+        return shopUrl.startsWith("http://127.0.0.1:") || shopUrl.startsWith("http://localhost:");
+    }
+
+    public StateSeeder cart(String productId, int quantity) {
+        cart.merge(productId, quantity, Integer::sum);
+        return this;
+    }
+
+    public StateSeeder wishlist(String productId) {
+        if (!wishlist.contains(productId)) {
+            wishlist.add(productId);
+        }
+        return this;
+    }
+
+    // Replaces the cart and the wishlist with the seeded ones and opens the given route (e.g. "cart").
+    public void open(String route) {
+        // Storage can only be written for the origin of the current page.
+        if (!driver.getCurrentUrl().startsWith(shopUrl)) {
+            driver.get(shopUrl);
+        }
+        ((JavascriptExecutor) driver).executeScript(SEED_SCRIPT,
+                FrameworkConfig.get("seed.cart.key", "cart"), cartJson(),
+                FrameworkConfig.get("seed.wishlist.key", "wishlist"), wishlistJson());
+        // The application reads its storage when it starts, so the page is always loaded again.
+        String target = shopUrl + "#/" + route;
+        boolean onlyHashChanges = withoutHash(driver.getCurrentUrl()).equals(withoutHash(target));
+        driver.get(target);
+        if (onlyHashChanges) {
+            driver.navigate().refresh();
+        }
+    }
+
+    String cartJson() {
+        StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (Map.Entry<String, Integer> item : cart.entrySet()) {
+            json.append(separator).append(Json.quote(item.getKey())).append(':').append(item.getValue());
+            separator = ",";
+        }
+        return json.append('}').toString();
+    }
+
+    String wishlistJson() {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "";
+        for (String productId : wishlist) {
+            json.append(separator).append(Json.quote(productId));
+            separator = ",";
+        }
+        return json.append(']').toString();
+    }
+
+    private static String withoutHash(String url) {
+        int hash = url.indexOf('#');
+        return hash < 0 ? url : url.substring(0, hash);
+    }
+}
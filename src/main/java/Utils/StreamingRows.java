@@ -0,0 +1,125 @@
+package Utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Feeds a large data file to a TestNG DataProvider without holding the file in memory.
+// TestNG queues one invocation per element of a parallel DataProvider before running any of them, so instead
+// of rows the provider returns light Row handles (one per record, counted in a first streaming pass).
+// A handle takes the next record from the shared RowStream when its invocation starts and lets go of it when the
+// test has its final result (see ExtentTestNGITestListener), so only the rows of the tests that are running are
+// in memory. The concurrency is bounded by -Ddataprovider.threads.
+//   @DataProvider(name = "customers", parallel = true)
+//   public Iterator<Object[]> customers() {
+//       return StreamingRows.provider("data/checkout-customers.csv");
+//   }
+public final class StreamingRows {
+
+    private final String location;
+    private final int size;
+    private RowStream stream;
+    private int taken;
+
+    private StreamingRows(String location) {
+        this.location = location;
+        this.size = RowStream.count(location);
+    }
+
+    public static Iterator<Object[]> provider(String location) {
+        StreamingRows rows = new StreamingRows(location);
+        return new Iterator<Object[]>() {
+            private int handed;
+
+            @Override
+            public boolean hasNext() {
+                return handed < rows.size;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                handed++;
+                return new Object[]{new Row(rows)};
+            }
+        };
+    }
+
+    private synchronized Map<String, String> take() {
+        if (stream == null) {
+            stream = new RowStream(location);
+        }
+        if (!stream.hasNext()) {
+            stream.close();
+            throw new IllegalStateException(location + " has fewer rows than when it was counted");
+        }
+        Map<String, String> row = stream.next();
+        taken++;
+        if (taken == size) {
+            stream.close();
+        }
+        return row;
+    }
+
+    // One record of the data file, read when it is first used.
+    public static class Row {
+        private final StreamingRows source;
+        private Map<String, String> values;
+        private int number;
+        private boolean released;
+
+        Row(StreamingRows source) {
+            this.source = source;
+        }
+
+        // Reads the record of this handle; done by the test listener when the invocation starts.
+        public synchronized Row bind() {
+            if (released) {
+                throw new IllegalStateException("row " + number + " of " + source.location + " was already released");
+            }
+            if (values == null) {
+                synchronized (source) {
+                    values = source.take();
+                    number = source.taken;
+                }
+            }
+            return this;
+        }
+
+        // Drops the values once the test is done with them; a retried attempt still needs them, so this is only
+        // called for the final result of the test.
+        public synchronized void release() {
+            if (values != null) {
+                values = null;
+                released = true;
+            }
+        }
+
+        public String get(String column) {
+            String value = bind().values.get(column);
+            if (value == null) {
+                throw new IllegalArgumentException(source.location + " has no column '" + column + "'");
+            }
+            return value;
+        }
+
+        public int getInt(String column) {
+            return Integer.parseInt(get(column));
+        }
+
+        public synchronized int getNumber() {
+            return released ? number : bind().number;
+        }
+
+        // e.g. "row 17: Ana, Pop, Cluj, 5, 2"
+        @Override
+        public synchronized String toString() {
+            if (released) {
+                return "row " + number;
+            }
+            return values == null ? "row (not read yet)" : "row " + number + ": " + String.join(", ", values.values());
+        }
+    }
+}
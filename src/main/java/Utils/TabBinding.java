@@ -0,0 +1,35 @@
+package Utils;
+
+// Which tab of a shared browser each test thread works in (see TabMultiplexer).
+// A browser has a single current window, so the browser that owns this binding switches to the tab of the
+// calling thread before running one of its commands, and runs the commands of all its tabs one at a time,
+// synchronized on this binding.
+public final class TabBinding {
+
+    private final ThreadLocal<String> bound = new ThreadLocal<>();
+    private String active;
+
+    // Sends the commands of the current thread to the given tab.
+    public void bind(String handle) {
+        bound.set(handle);
+    }
+
+    public void unbind() {
+        bound.remove();
+    }
+
+    // The tab of the current thread, or null when the thread works with the browser as a whole.
+    public String bound() {
+        return bound.get();
+    }
+
+    // Called with the lock held.
+    public boolean isActive(String handle) {
+        return handle.equals(active);
+    }
+
+    // Records the tab the browser switched to; null when the current tab was closed.
+    public void activated(String handle) {
+        active = handle;
+    }
+}
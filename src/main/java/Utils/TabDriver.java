@@ -0,0 +1,129 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.Set;
+
+// One tab of a browser shared by several tests, seen by a test as a browser of its own.
+// Every call binds the calling thread to the tab, so the elements it returns (whose commands go straight to the
+// shared browser) also act on this tab.
+public class TabDriver implements WebDriver, JavascriptExecutor, TakesScreenshot, HasCapabilities {
+
+    private final TabHost host;
+    private final String handle;
+    private final TabMultiplexer owner;
+
+    TabDriver(TabHost host, String handle, TabMultiplexer owner) {
+        this.host = host;
+        this.handle = handle;
+        this.owner = owner;
+    }
+
+    public TabHost getHost() {
+        return host;
+    }
+
+    private WebDriver bound() {
+        host.tabs().bind(handle);
+        return host;
+    }
+
+    @Override
+    public void get(String url) {
+        bound().get(url);
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return bound().getCurrentUrl();
+    }
+
+    @Override
+    public String getTitle() {
+        return bound().getTitle();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return bound().findElements(by);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return bound().findElement(by);
+    }
+
+    @Override
+    public String getPageSource() {
+        return bound().getPageSource();
+    }
+
+    // Closing or quitting a tab only closes the tab; the browser stays for the other tests.
+    @Override
+    public void close() {
+        owner.closeTab(this);
+    }
+
+    @Override
+    public void quit() {
+        owner.closeTab(this);
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return bound().getWindowHandles();
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return handle;
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return bound().switchTo();
+    }
+
+    @Override
+    public Navigation navigate() {
+        return bound().navigate();
+    }
+
+    @Override
+    public Options manage() {
+        return bound().manage();
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        return ((JavascriptExecutor) bound()).executeScript(script, args);
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return ((JavascriptExecutor) bound()).executeAsyncScript(script, args);
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        return ((TakesScreenshot) bound()).getScreenshotAs(target);
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return ((HasCapabilities) host).getCapabilities();
+    }
+
+    @Override
+    public String toString() {
+        return "tab " + handle + " of " + host;
+    }
+}
@@ -0,0 +1,9 @@
+package Utils;
+
+import org.openqa.selenium.WebDriver;
+
+// A browser that can run several tests at once, each in its own tab.
+public interface TabHost extends WebDriver {
+
+    TabBinding tabs();
+}
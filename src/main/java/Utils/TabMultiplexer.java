@@ -0,0 +1,134 @@
+package Utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Hands out tabs instead of browsers (-Dbrowser.mode=tabs): up to -Dtabs.per.browser tests share one Chrome
+// process, each in its own tab, which needs far less memory than one Chrome per test.
+// Used as the factory of the DriverPool, so tabs are pooled, reset and replaced like whole browsers.
+// What the tests of one browser share: cookies and localStorage of the same site, the console log and the window
+// size. sessionStorage, history and the loaded page belong to the tab. The pool clears cookies and localStorage
+// when a tab is reset while no other tab of its browser is leased, but tests running side by side still see each
+// other's cookies and localStorage: tests that rely on cookies or localStorage no other test touches (like the cart of the shop, and
+// state seeding, which CheckoutPage refuses in tab mode) have to run with -Dbrowser.mode=process.
+// Commands of the tabs of one browser run one at a time, switching tabs in between.
+public class TabMultiplexer implements Supplier<WebDriver> {
+
+    private static final String OPEN_TAB_SCRIPT = "window.open('about:blank', '_blank');";
+
+    private final Supplier<TabHost> browserFactory;
+    private final int tabsPerBrowser;
+    private final List<Browser> browsers = new ArrayList<>();
+
+    public TabMultiplexer(Supplier<TabHost> browserFactory, int tabsPerBrowser) {
+        this.browserFactory = browserFactory;
+        this.tabsPerBrowser = tabsPerBrowser;
+    }
+
+    // Opens a tab in a browser that has room for one, starting a new browser when none has.
+    @Override
+    public synchronized WebDriver get() {
+        Browser browser = null;
+        for (Browser candidate : browsers) {
+            if (candidate.tabs.size() < tabsPerBrowser) {
+                browser = candidate;
+                break;
+            }
+        }
+        String handle;
+        if (browser == null) {
+            browser = new Browser(browserFactory.get());
+            browsers.add(browser);
+            // A new browser already has one tab.
+            TabBinding binding = browser.host.tabs();
+            binding.unbind();
+            handle = browser.host.getWindowHandle();
+            binding.activated(handle);
+        } else {
+            handle = openTab(browser.host);
+        }
+        browser.tabs.add(handle);
+        return new TabDriver(browser.host, handle, this);
+    }
+
+    // Closes the tab; the last tab of a browser quits the browser, since Chrome would end the session anyway.
+    synchronized void closeTab(TabDriver tab) {
+        Browser browser = find(tab.getHost());
+        TabBinding binding = tab.getHost().tabs();
+        try {
+            if (browser != null && browser.tabs.size() == 1) {
+                binding.unbind();
+                browsers.remove(browser);
+                tab.getHost().quit();
+            } else {
+                synchronized (binding) {
+                    binding.bind(tab.getWindowHandle());
+                    tab.getHost().close();
+                    binding.activated(null);
+                }
+            }
+        } finally {
+            binding.unbind();
+            if (browser != null) {
+                browser.tabs.remove(tab.getWindowHandle());
+            }
+        }
+    }
+
+    public synchronized int browserCount() {
+        return browsers.size();
+    }
+
+    public synchronized void shutdown() {
+        for (Browser browser : browsers) {
+            try {
+                browser.host.quit();
+            } catch (WebDriverException ignored) {
+                // The browser is already gone.
+            }
+        }
+        browsers.clear();
+    }
+
+    // Opens a tab from whatever tab is current, without switching to it; the new handle is the one that appeared.
+    private static String openTab(TabHost host) {
+        TabBinding binding = host.tabs();
+        synchronized (binding) {
+            binding.unbind();
+            Set<String> before = host.getWindowHandles();
+            ((JavascriptExecutor) host).executeScript(OPEN_TAB_SCRIPT);
+            Set<String> opened = new HashSet<>(host.getWindowHandles());
+            opened.removeAll(before);
+            if (opened.size() != 1) {
+                throw new WebDriverException("Could not open a new tab, new window handles: " + opened);
+            }
+            return opened.iterator().next();
+        }
+    }
+
+    private Browser find(TabHost host) {
+        for (Browser browser : browsers) {
+            if (browser.host == host) {
+                return browser;
+            }
+        }
+        return null;
+    }
+
+    // A shared browser and the handles of its open tabs.
+    private static class Browser {
+        private final TabHost host;
+        private final Set<String> tabs = new HashSet<>();
+
+        Browser(TabHost host) {
+            this.host = host;
+        }
+    }
+}
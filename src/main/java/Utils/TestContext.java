@@ -0,0 +1,66 @@
+package Utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Everything a running test owns: its browser, its page objects and its failed page expectations.
+// The context is confined to the thread that runs the test, so tests executed in parallel
+// never share a browser or assertion state.
+public final class TestContext {
+
+    private static final ThreadLocal<TestContext> CURRENT = ThreadLocal.withInitial(TestContext::new);
+
+    private WebDriver driver;
+    private final List<String> failedExpectations = new ArrayList<>();
+    private final Map<Class<?>, Object> pages = new HashMap<>();
+
+    private TestContext() {
+    }
+
+    public static TestContext current() {
+        return CURRENT.get();
+    }
+
+    // Binds a browser to the current thread for the duration of a test.
+    public static void bind(WebDriver driver) {
+        TestContext context = current();
+        context.driver = driver;
+        context.pages.clear();
+        context.failedExpectations.clear();
+    }
+
+    // Forgets everything the current thread knew about the test that just finished.
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static WebDriver getDriver() {
+        WebDriver driver = current().driver;
+        if (driver == null) {
+            throw new IllegalStateException("No browser is bound to thread " + Thread.currentThread().getName());
+        }
+        return driver;
+    }
+
+    // Returns the page object of the given type for the current test, creating it on first use.
+    public <T> T page(Class<T> type, Function<WebDriver, T> factory) {
+        return type.cast(pages.computeIfAbsent(type, key -> factory.apply(getDriver())));
+    }
+
+    // Remembers an expectation checked with PageAssertions.check() that was not met.
+    public void recordFailedExpectation(String failure) {
+        failedExpectations.add(failure);
+    }
+
+    // Returns and forgets the expectations of the current test that were not met.
+    public List<String> takeFailedExpectations() {
+        List<String> failures = new ArrayList<>(failedExpectations);
+        failedExpectations.clear();
+        return failures;
+    }
+}
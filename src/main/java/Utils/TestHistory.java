@@ -0,0 +1,217 @@
+package Utils;
+
+import org.testng.ITestNGMethod;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// What previous runs know about each test method, kept in a small tab separated file
+// (-Dhistory.file, test-history/history.tsv by default). It is run state, not source: test-history/ is ignored
+// by git, and CI keeps the file between runs in its cache (see ShardingInterceptor).
+// A test is identified by "<class>#<method>"; its duration and outcomes are moving averages so one unusual run
+// does not reshuffle every shard or the whole execution order.
+public final class TestHistory {
+
+    // Weight of the latest run in the moving average.
+    private static final double LATEST_RUN_WEIGHT = 0.5;
+
+    private TestHistory() {
+    }
+
+    public static String key(ITestNGMethod method) {
+        return method.getRealClass().getName() + "#" + method.getMethodName();
+    }
+
+    public static Map<String, Entry> load(Path file) {
+        Map<String, Entry> history = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                // The outcome columns were added later; older files only have durations.
+                history.put(columns[0], new Entry(columns[0], Long.parseLong(columns[1]), Integer.parseInt(columns[2]),
+                        columns.length > 3 ? columns[3] : "PASS",
+                        columns.length > 4 ? Double.parseDouble(columns[4]) : 0,
+                        columns.length > 5 ? Double.parseDouble(columns[5]) : 0));
+            }
+        } catch (IOException | RuntimeException e) {
+            // A damaged history only costs balance, never the run.
+            System.err.println("Ignoring unreadable test history " + file + ": " + e);
+            history.clear();
+        }
+        return history;
+    }
+
+    public static void save(Path file, Map<String, Entry> history) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# test\taverage millis\truns\tlast status\tfailure score\tflakiness\n");
+            for (Entry entry : new TreeMap<>(history).values()) {
+                writer.write(String.format(Locale.ROOT, "%s\t%d\t%d\t%s\t%.3f\t%.3f%n", entry.key, entry.averageMillis,
+                        entry.runs, entry.lastStatus, entry.failureScore, entry.flakiness));
+            }
+        }
+    }
+
+    // Adds the results of one run (possibly several shards) to the history.
+    // Every invocation (and retried attempt) of a test counts towards the duration of its method, and the
+    // method counts as failed when any invocation failed.
+    public static void fold(Map<String, Entry> history, List<Result> results) {
+        Map<String, Long> runMillis = new LinkedHashMap<>();
+        Map<String, String> runStatus = new LinkedHashMap<>();
+        for (Result result : results) {
+            runMillis.merge(result.key, result.millis, Long::sum);
+            runStatus.merge(result.key, result.status, TestHistory::worse);
+        }
+        for (Map.Entry<String, Long> run : runMillis.entrySet()) {
+            String key = run.getKey();
+            String status = runStatus.get(key);
+            // A test that passed only on a retry counts as passed, but as flaky as one whose outcome changed.
+            boolean flaky = "FLAKY".equals(status);
+            if (flaky) {
+                status = "PASS";
+            }
+            Entry previous = history.get(key);
+            if (previous == null) {
+                history.put(key, new Entry(key, run.getValue(), 1, status, "FAIL".equals(status) ? 1 : 0,
+                        flaky ? LATEST_RUN_WEIGHT : 0));
+                continue;
+            }
+            long average = Math.round(average(run.getValue(), previous.averageMillis));
+            // A skipped test says nothing about whether it would pass, so only the duration is updated.
+            if ("SKIP".equals(status)) {
+                history.put(key, new Entry(key, average, previous.runs + 1, previous.lastStatus,
+                        previous.failureScore, previous.flakiness));
+                continue;
+            }
+            boolean flipped = flaky || !"SKIP".equals(previous.lastStatus) && !status.equals(previous.lastStatus);
+            history.put(key, new Entry(key, average, previous.runs + 1, status,
+                    average("FAIL".equals(status) ? 1 : 0, previous.failureScore),
+                    average(flipped ? 1 : 0, previous.flakiness)));
+        }
+    }
+
+    private static double average(double latest, double previous) {
+        return LATEST_RUN_WEIGHT * latest + (1 - LATEST_RUN_WEIGHT) * previous;
+    }
+
+    // FAIL outranks FLAKY, which outranks PASS. RETRY (a failed attempt that was retried) only adds its duration.
+    private static String worse(String first, String second) {
+        for (String status : new String[]{"FAIL", "FLAKY", "PASS", "SKIP"}) {
+            if (status.equals(first) || status.equals(second)) {
+                return status;
+            }
+        }
+        return first;
+    }
+
+    public static void writeResults(Path file, List<Result> results) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Result result : results) {
+                writer.write(result.key + "\t" + result.status + "\t" + result.millis + "\n");
+            }
+        }
+    }
+
+    public static List<Result> readResults(Path file) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                String[] columns = line.split("\t");
+                results.add(new Result(columns[0], columns[1], Long.parseLong(columns[2])));
+            }
+        }
+        return results;
+    }
+
+    // A test method as remembered from previous runs.
+    // The failure score and the flakiness are moving averages between 0 and 1: how often the test failed
+    // recently, and how often its outcome changed from one run to the next.
+    public static class Entry {
+        private final String key;
+        private final long averageMillis;
+        private final int runs;
+        private final String lastStatus;
+        private final double failureScore;
+        private final double flakiness;
+
+        public Entry(String key, long averageMillis, int runs, String lastStatus, double failureScore, double flakiness) {
+            this.key = key;
+            this.averageMillis = averageMillis;
+            this.runs = runs;
+            this.lastStatus = lastStatus;
+            this.failureScore = failureScore;
+            this.flakiness = flakiness;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getAverageMillis() {
+            return averageMillis;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public String getLastStatus() {
+            return lastStatus;
+        }
+
+        public boolean failedLastRun() {
+            return "FAIL".equals(lastStatus);
+        }
+
+        public double getFailureScore() {
+            return failureScore;
+        }
+
+        public double getFlakiness() {
+            return flakiness;
+        }
+    }
+
+    // One finished invocation of a test method in the current run.
+    public static class Result {
+        private final String key;
+        private final String status;
+        private final long millis;
+
+        public Result(String key, String status, long millis) {
+            this.key = key;
+            this.status = status;
+            this.millis = millis;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
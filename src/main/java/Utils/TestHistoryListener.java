@@ -0,0 +1,76 @@
+package Utils;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Records how long every test method took and how it ended.
+// A failed attempt that was retried is recorded as RETRY, and a test that only passed on a retry as FLAKY.
+// Each shard writes its results to -Dshard.results.dir, where ReportMerger picks them up; an unsharded run
+// updates the history file directly.
+public class TestHistoryListener implements ITestListener, ISuiteListener {
+
+    private final Queue<TestHistory.Result> results = new ConcurrentLinkedQueue<>();
+
+    // Fixing the attempt number before a retry can change it.
+    @Override
+    public void onTestStart(ITestResult result) {
+        TransientRetryAnalyzer.attemptOf(result);
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result, TransientRetryAnalyzer.attemptOf(result) > 1 ? "FLAKY" : "PASS");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result, "FAIL");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        record(result, result.wasRetried() ? "RETRY" : "SKIP");
+    }
+
+    @Override
+    public void onTestFailedWithTimeout(ITestResult result) {
+        record(result, "FAIL");
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<TestHistory.Result> finished = new ArrayList<>(results);
+        results.clear();
+        try {
+            TestHistory.writeResults(Paths.get(FrameworkConfig.shardResultsDir(),
+                    "results-" + FrameworkConfig.shardName() + ".tsv"), finished);
+            if (FrameworkConfig.shardTotal() <= 1) {
+                Path file = Paths.get(FrameworkConfig.historyFile());
+                Map<String, TestHistory.Entry> history = TestHistory.load(file);
+                TestHistory.fold(history, finished);
+                TestHistory.save(file, history);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write the test history: " + e.getMessage());
+        }
+    }
+
+    private void record(ITestResult result, String status) {
+        results.add(new TestHistory.Result(TestHistory.key(result.getMethod()), status,
+                Math.max(0, result.getEndMillis() - result.getStartMillis())));
+    }
+}
@@ -0,0 +1,115 @@
+package Utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Which parts of the page objects each test uses, recorded while the tests run, for ImpactInterceptor.
+// A test is identified like in the test history ("<class>#<method>"); what it used are page-object methods,
+// written "CheckoutPage.clickCartIcon()", and @FindBy fields, written "CheckoutPage.cartIcon".
+// Methods are recorded when they send a command to the browser, fields when their element is looked up.
+// The map (-Dimpact.map.file, test-history/impact-map.tsv) keeps the latest run of every test; a shard writes
+// its part to the shard results directory and ReportMerger folds it in.
+public final class TestImpact {
+
+    private static final ThreadLocal<Set<String>> CURRENT = new ThreadLocal<>();
+
+    // The tests of this run, every invocation and attempt of a test together.
+    private static final Map<String, Set<String>> recorded = new ConcurrentHashMap<>();
+
+    private TestImpact() {
+    }
+
+    public static void startTest() {
+        CURRENT.set(new TreeSet<>());
+    }
+
+    // Whether the current thread runs a test, so callers only work out what to record when it is used.
+    public static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    public static void touch(String symbol) {
+        Set<String> symbols = CURRENT.get();
+        if (symbols != null && symbol != null) {
+            symbols.add(symbol);
+        }
+    }
+
+    public static void touchAll(Collection<String> symbols) {
+        Set<String> current = CURRENT.get();
+        if (current != null) {
+            current.addAll(symbols);
+        }
+    }
+
+    public static void finishTest(String testKey) {
+        Set<String> symbols = CURRENT.get();
+        CURRENT.remove();
+        if (symbols != null) {
+            recorded.computeIfAbsent(testKey, key -> ConcurrentHashMap.newKeySet()).addAll(symbols);
+        }
+    }
+
+    // Writes what this run recorded: into the impact map, or into this shard's file when sharded.
+    public static void save() throws IOException {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        if (FrameworkConfig.shardTotal() > 1) {
+            save(Paths.get(FrameworkConfig.shardResultsDir(), "impact-" + FrameworkConfig.shardName() + ".tsv"), recorded);
+            return;
+        }
+        Path file = Paths.get(FrameworkConfig.impactMapFile());
+        Map<String, Set<String>> map = load(file);
+        map.putAll(recorded);
+        save(file, map);
+    }
+
+    public static Map<String, Set<String>> load(Path file) {
+        Map<String, Set<String>> map = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return map;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", -1);
+                Set<String> symbols = new TreeSet<>();
+                if (columns.length > 1 && !columns[1].isEmpty()) {
+                    symbols.addAll(Arrays.asList(columns[1].split(",")));
+                }
+                map.put(columns[0], symbols);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Without a map every test is selected, which is slow but safe.
+            System.err.println("Ignoring unreadable impact map " + file + ": " + e);
+            map.clear();
+        }
+        return map;
+    }
+
+    public static void save(Path file, Map<String, Set<String>> map) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# test\tpage-object methods and fields it used\n");
+            for (Map.Entry<String, Set<String>> entry : new TreeMap<>(map).entrySet()) {
+                writer.write(entry.getKey() + "\t" + String.join(",", new TreeSet<>(entry.getValue())) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package Utils;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Retries a test that failed for a reason that is usually a race with the page rather than a bug:
+//   -Dretry.on=StaleElementReferenceException,TimeoutException,ElementClickInterceptedException (the default)
+//   -Dretry.max=1   retries per test; 0 disables retries
+// A failure matches when the exception, or one of its causes, is or extends one of the listed types.
+// Assertion failures are never retried. Hooks keeps the browser for the next attempt and only resets it.
+public class TransientRetryAnalyzer implements IRetryAnalyzer {
+
+    private static final String ATTEMPT = "retry.attempt";
+
+    private final Set<String> transientTypes = new HashSet<>(Arrays.asList(FrameworkConfig.retryOn().split("\\s*,\\s*")));
+    private final int maxRetries = FrameworkConfig.retryMax();
+    private int retries;
+
+    @Override
+    public boolean retry(ITestResult result) {
+        if (!shouldRetry(result.getThrowable())) {
+            return false;
+        }
+        retries++;
+        return true;
+    }
+
+    // Whether a failed attempt is (or is about to be) retried. TestNG may only ask the analyzer after the
+    // @AfterMethod of the attempt, so Hooks uses this to decide whether to keep the browser.
+    public static boolean willRetry(ITestResult result) {
+        if (result.wasRetried()) {
+            return true;
+        }
+        if (result.getStatus() != ITestResult.FAILURE) {
+            return false;
+        }
+        IRetryAnalyzer analyzer = result.getMethod().getRetryAnalyzer(result);
+        return analyzer instanceof TransientRetryAnalyzer
+                && ((TransientRetryAnalyzer) analyzer).shouldRetry(result.getThrowable());
+    }
+
+    // Whether an attempt failed. An attempt that is retried reaches @AfterMethod as skipped, not as failed.
+    public static boolean failedAttempt(ITestResult result) {
+        return result.getStatus() == ITestResult.FAILURE || result.wasRetried();
+    }
+
+    // The attempt a result belongs to, starting at 1. It is fixed when the attempt starts.
+    public static int attemptOf(ITestResult result) {
+        Object attempt = result.getAttribute(ATTEMPT);
+        if (attempt == null) {
+            IRetryAnalyzer analyzer = result.getMethod().getRetryAnalyzer(result);
+            attempt = analyzer instanceof TransientRetryAnalyzer ? ((TransientRetryAnalyzer) analyzer).retries + 1 : 1;
+            result.setAttribute(ATTEMPT, attempt);
+        }
+        return (Integer) attempt;
+    }
+
+    private boolean shouldRetry(Throwable failure) {
+        return retries < maxRetries && isTransient(failure);
+    }
+
+    boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AssertionError) {
+                return false;
+            }
+            for (Class<?> type = cause.getClass(); type != null; type = type.getSuperclass()) {
+                if (transientTypes.contains(type.getSimpleName()) || transientTypes.contains(type.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
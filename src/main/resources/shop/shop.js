@@ -0,0 +1,115 @@
+(function () {
+  var PRODUCTS = {
+    '1': {name: 'Awesome Granite Chips', price: 15.99},
+    '2': {name: 'Incredible Concrete Hat', price: 7.99},
+    '3': {name: 'Awesome Metal Chair', price: 15.99},
+    '4': {name: 'Practical Wooden Bacon', price: 29.99},
+    '5': {name: 'Awesome Soft Shirt', price: 29.99},
+    '6': {name: 'Practical Wooden Bacon', price: 1.99},
+    '7': {name: 'Practical Metal Mouse', price: 9.99},
+    '8': {name: 'Licensed Steel Gloves', price: 14.99},
+    '9': {name: 'Gorgeous Soft Pizza', price: 19.99},
+    '10': {name: 'Refined Frozen Mouse', price: 9.99}
+  };
+  var TAX = 5;
+  var ICON = '<rect width="16" height="16"></rect>';
+  var search = '';
+
+  function load(key, fallback) {
+    try { return JSON.parse(localStorage.getItem(key)) || fallback; } catch (e) { return fallback; }
+  }
+  function save(key, value) { localStorage.setItem(key, JSON.stringify(value)); }
+  function cart() { return load('cart', {}); }
+  function wishlist() { return load('wishlist', []); }
+  function money(value) { return '$' + value.toFixed(2); }
+  function icon(classes, action, id) {
+    return '<svg class="svg-inline--fa ' + classes + '" viewBox="0 0 16 16" data-action="' + action + '"'
+        + (id ? ' data-id="' + id + '"' : '') + '>' + ICON + '</svg>';
+  }
+  function link(id) { return '<a href="#/product/' + id + '">' + PRODUCTS[id].name + '</a>'; }
+
+  var pages = {
+    home: function () {
+      return Object.keys(PRODUCTS).filter(function (id) {
+        return PRODUCTS[id].name.toLowerCase().indexOf(search.toLowerCase()) >= 0;
+      }).map(function (id) {
+        return '<div class="card">' + link(id) + ' <span>' + money(PRODUCTS[id].price) + '</span></div>';
+      }).join('');
+    },
+    product: function (id) {
+      return '<h2>' + PRODUCTS[id].name + '</h2><p>' + money(PRODUCTS[id].price) + '</p>'
+          + icon('fa-cart-plus fa-w-18 fa-3x ', 'add-to-cart', id)
+          + icon('fa-heart fa-w-16 fa-3x ', 'add-to-wishlist', id);
+    },
+    cart: function () {
+      var items = cart(), ids = Object.keys(items);
+      if (ids.length === 0) {
+        return '<div class="text-center container">How about adding some products in your cart?</div>';
+      }
+      var total = 0;
+      var rows = ids.map(function (id) {
+        var amount = PRODUCTS[id].price * items[id];
+        total += amount;
+        return '<div class="row">' + link(id) + ' ' + icon('fa-minus-circle fa-w-16 ', 'minus', id)
+            + ' <span>' + items[id] + '</span> ' + icon('fa-plus-circle fa-w-16 ', 'plus', id)
+            + ' ' + icon('fa-trash fa-w-14 ', 'delete', id)
+            + ' <div class="amount-total">' + money(amount) + '</div></div>';
+      }).join('');
+      return rows + '<table class="table"><tbody>'
+          + '<tr><td>Items total:</td><td class="amount">' + money(total) + '</td></tr>'
+          + '<tr><td>Tax:</td><td class="amount">' + money(TAX) + '</td></tr>'
+          + '<tr><td>Total:</td><td class="amount">' + money(total + TAX) + '</td></tr>'
+          + '</tbody></table>'
+          + '<a href="#/checkout-info">Checkout ' + icon('fa-angle-right fa-w-8', 'none') + '</a>';
+    },
+    wishlist: function () {
+      return wishlist().map(function (id) {
+        return '<div class="card">' + link(id) + ' ' + icon('fa-heart-broken fa-w-16 fa-2x ', 'remove-from-wishlist', id) + '</div>';
+      }).join('');
+    },
+    'checkout-info': function () {
+      return '<form><input id="first-name"><input id="last-name"><input id="address"></form>'
+          + '<a class="btn btn-success" href="#/checkout-summary">Continue checkout</a>';
+    },
+    'checkout-summary': function () {
+      return '<a class="btn btn-success" href="#/checkout-complete" data-action="complete-order">Complete your order</a>';
+    },
+    'checkout-complete': function () {
+      return '<small class="text-muted">Order complete</small>';
+    }
+  };
+
+  function render() {
+    var parts = location.hash.replace(/^#\/?/, '').split('/');
+    var page = pages[parts[0]] || pages.home;
+    document.getElementById('app').innerHTML = page(parts[1]);
+    var items = cart(), count = Object.keys(items).reduce(function (sum, id) { return sum + items[id]; }, 0);
+    document.getElementById('cart-badge').textContent = count ? String(count) : '';
+    document.getElementById('wishlist-badge').textContent = wishlist().length ? String(wishlist().length) : '';
+  }
+
+  document.addEventListener('click', function (event) {
+    var target = event.target.closest('[data-action]');
+    if (!target) {
+      if (event.target.id === 'search-button') {
+        search = document.getElementById('input-search').value;
+        render();
+      }
+      return;
+    }
+    var id = target.getAttribute('data-id'), items = cart(), list = wishlist();
+    switch (target.getAttribute('data-action')) {
+      case 'add-to-cart': items[id] = (items[id] || 0) + 1; save('cart', items); break;
+      case 'plus': items[id]++; save('cart', items); break;
+      case 'minus': if (--items[id] <= 0) { delete items[id]; } save('cart', items); break;
+      case 'delete': delete items[id]; save('cart', items); break;
+      case 'add-to-wishlist': if (list.indexOf(id) < 0) { list.push(id); } save('wishlist', list); break;
+      case 'remove-from-wishlist': save('wishlist', list.filter(function (other) { return other !== id; })); break;
+      case 'complete-order': save('cart', {}); return;
+      default: return;
+    }
+    render();
+  });
+  window.addEventListener('hashchange', render);
+  render();
+})();
@@ -1,13 +1,16 @@
+import Utils.FrameworkConfig;
+import Utils.StreamingRows;
+import Utils.TestContext;
 import com.aventstack.extentreports.Status;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
-import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
-import org.testng.asserts.SoftAssert;
+
+import java.util.Iterator;
+import java.util.List;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
@@ -20,167 +23,129 @@ import static org.testng.Assert.assertNotEquals;
 // By extending Hooks, CheckoutTest inherits the setup and teardown methods for WebDriver.
 public class CheckoutTest extends Hooks {
 
-    // Declaring a public variable of type CheckoutPage named 'checkoutPage'.
-    // This will be used to interact with the CheckoutPage object during the tests.
-    public CheckoutPage checkoutPage;
-
-    // Declaring a public variable of type WebDriverWait named 'wait'.
-    // WebDriverWait is used to explicitly wait for certain conditions or elements during test execution.
-    public WebDriverWait wait;
-
-    public SoftAssert softAssert;
-
     // Method annotated with @BeforeMethod, indicating that it will run before each test method.
     // This method is used to set up the page objects and other necessary components before each test.
+    // The page objects live in the TestContext of the current thread, so parallel tests never share them.
     @BeforeMethod
     public void SetupPageObject() {
 
-        // Initializing the checkoutPage object with the current WebDriver instance.
+        // Initializing the checkoutPage object with the WebDriver instance of the current thread.
         // This allows the test methods to interact with elements on the checkout page.
-        checkoutPage = new CheckoutPage(driver);
+        checkoutPage();
+    }
 
-        // Initializing the WebDriverWait object with the current WebDriver instance and a timeout of 30 seconds.
-        // This wait will be used to pause the execution until certain conditions are met or elements are found.
-        wait = new WebDriverWait(driver, 30);
-        softAssert = new SoftAssert();
+    // Returns the CheckoutPage of the test running on the current thread.
+    public CheckoutPage checkoutPage() {
+        return TestContext.current().page(CheckoutPage.class, CheckoutPage::new);
     }
 
 
     @Test(description = "Tests the search functionality by searching for the keyword 'mouse'")
     public void searchTest() {
-        checkoutPage.setSearchBar();
-        checkoutPage.clickSearchButton();
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The search engine is looking up for the keyword 'mouse'");
+        checkoutPage().setSearchBar();
+        checkoutPage().clickSearchButton();
+        ExtentTestNGITestListener.log(Status.INFO, "The search engine is looking up for the keyword 'mouse'");
+    }
+
+    // The customers and products of checkoutTest, read row by row from -Dcheckout.data (CSV or JSONL, any size).
+    // The rows run in parallel on -Ddataprovider.threads browsers.
+    @DataProvider(name = "checkoutCustomers", parallel = true)
+    public Iterator<Object[]> checkoutCustomers() {
+        return StreamingRows.provider(FrameworkConfig.checkoutData());
     }
 
-    @Test(description = "Purchasing a simple product from a guest user")
-    public void checkoutTest() {
-        checkoutPage.clickAwesomeChipsLink();
-        checkoutPage.clickCartIcon();
-        checkoutPage.clickShoppingCartIcon();
-        checkoutPage.clickCheckoutButton();
-        checkoutPage.insertFirstName();
-        checkoutPage.insertLastName();
-        checkoutPage.insertAddress();
-        checkoutPage.clickContinueCheckout();
-        checkoutPage.clickCompleteOrder();
-        assertEquals(checkoutPage.getSuccessMessage().getText(), "Order complete");
+    @Test(description = "Purchasing a product from a guest user", dataProvider = "checkoutCustomers")
+    public void checkoutTest(StreamingRows.Row customer) {
+        checkoutPage().checkOutAsGuest(customer.get("productId"), customer.getInt("quantity"),
+                customer.get("firstName"), customer.get("lastName"), customer.get("address"));
+        assertEquals(checkoutPage().getSuccessMessage().getText(), "Order complete");
     }
 
     @Test(description = "Add element to wishlist")
     public void wishlistTest(){
-        checkoutPage.addProductToWishlist();
-        assertEquals(checkoutPage.getAwesomeChipsProduct().getText(), "Awesome Granite Chips");
-        ExtentTestNGITestListener.getTest().log(Status.PASS, "Awesome granite chips product was found in the wishlist.");
-        //assertNotEquals(checkoutPage.getAwesomeChipsProduct().getText(), "Awesome Granite Chips");
-        softAssert.assertAll();
+        checkoutPage().addProductToWishlist();
     }
 
     @Test(description = "Removing a product from wishlist")
     public void removeItemFromWishlist() {
-        checkoutPage.addProductToWishlist();
-        checkoutPage.clickBrokenHeartIcon();
-        try {
-            driver.findElement(By.linkText("Awesome Granite Chips"));
-            Assert.fail("Element should not be present");
-        } catch (NoSuchElementException e) {
-            Assert.assertTrue(true, "Element is not present");
-        }
+        checkoutPage().addProductToWishlist();
+        checkoutPage().clickBrokenHeartIcon();
+        checkoutPage().expect()
+                .absent("Wishlist product", By.linkText("Awesome Granite Chips"))
+                .assertAll();
     }
 
     @Test(description = "Increase the amount of a product")
     public void increasedAmountTest() {
-        checkoutPage.addProductToCart();
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The price of the product is: " + checkoutPage.productPrice());
-        double expectedTotal = checkoutPage.productPrice() * 2;
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The price of the product after quantity increase should be: " + expectedTotal);
-        checkoutPage.clickPlusOne();
-        assertEquals(checkoutPage.productPrice(), expectedTotal);
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The price of the product matches expected total " + checkoutPage.productPrice() + " = " + expectedTotal);
+        checkoutPage().addProductToCart();
+        ExtentTestNGITestListener.log(Status.INFO, "The price of the product is: " + checkoutPage().productPrice());
+        double expectedTotal = checkoutPage().productPrice() * 2;
+        ExtentTestNGITestListener.log(Status.INFO, "The price of the product after quantity increase should be: " + expectedTotal);
+        checkoutPage().clickPlusOne();
+        assertEquals(checkoutPage().productPrice(), expectedTotal);
+        ExtentTestNGITestListener.log(Status.INFO, "The price of the product matches expected total " + checkoutPage().productPrice() + " = " + expectedTotal);
     }
 
     @Test(description = "Calculate the total price for a product")
     public void totalPriceForAProduct() {
-        checkoutPage.addProductToCart();
-        System.out.println(checkoutPage.taxPrice());
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The price of a product is: " + checkoutPage.productPrice());
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The price of a product is: " + checkoutPage.taxPrice());
-        double expectedTotal = checkoutPage.productPrice() + checkoutPage.taxPrice();
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The actual total price of a product is: " + checkoutPage.productPrice());
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "The expected total price of a product is: " + expectedTotal);
-        assertEquals(checkoutPage.totalPrice(), expectedTotal);
+        checkoutPage().addProductToCart();
+        List<Double> amounts = checkoutPage().cartAmounts();
+        assertEquals(amounts.size(), 3, "Cart amounts (product price, tax, total) " + amounts);
+        double productPrice = amounts.get(0);
+        double taxPrice = amounts.get(1);
+        double totalPrice = amounts.get(2);
+        ExtentTestNGITestListener.log(Status.INFO, "The price of a product is: " + productPrice);
+        ExtentTestNGITestListener.log(Status.INFO, "The tax of a product is: " + taxPrice);
+        double expectedTotal = productPrice + taxPrice;
+        ExtentTestNGITestListener.log(Status.INFO, "The actual total price of a product is: " + totalPrice);
+        ExtentTestNGITestListener.log(Status.INFO, "The expected total price of a product is: " + expectedTotal);
+        assertEquals(totalPrice, expectedTotal);
     }
 
     @Test(description = "Compare two smartphones on www.emag.ro")
-    public void compareTwoSmartphones() throws InterruptedException {
-        checkoutPage.insertTextInSearchBox("google pixel 9 pro");
-        Thread.sleep(1000);
-        checkoutPage.clickMainSearchButton();
-        Thread.sleep(1000);
-        checkoutPage.clickFirstSmartphone();
-        Thread.sleep(1000);
-        checkoutPage.clickCompareCheckbox();
-        Thread.sleep(1000);
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "First smartphone is added to comparison");
-        checkoutPage.insertTextInSearchBox("samsung galaxy s24 ultra");
-        Thread.sleep(1000);
-        checkoutPage.clickMainSearchButton();
-        Thread.sleep(10000);//page takes longer to load
-        checkoutPage.clickSecondSmartphone();
-        Thread.sleep(1000);
-        checkoutPage.clickCompareCheckbox();
-        Thread.sleep(1000);
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "Second smartphone is added to comparison");
-        checkoutPage.clickCompareButton();
-        Thread.sleep(1000);
+    public void compareTwoSmartphones() {
+        checkoutPage().insertTextInSearchBox("google pixel 9 pro");
+        checkoutPage().clickMainSearchButton();
+        checkoutPage().clickFirstSmartphone();
+        checkoutPage().clickCompareCheckbox();
+        ExtentTestNGITestListener.log(Status.INFO, "First smartphone is added to comparison");
+        checkoutPage().insertTextInSearchBox("samsung galaxy s24 ultra");
+        checkoutPage().clickMainSearchButton();
+        checkoutPage().clickSecondSmartphone();
+        checkoutPage().clickCompareCheckbox();
+        ExtentTestNGITestListener.log(Status.INFO, "Second smartphone is added to comparison");
+        checkoutPage().clickCompareButton();
     }
 
     @Test(description = "Add/Delete product to/from favorite on emag")
-    public void AddToFavorite() throws InterruptedException {
-        checkoutPage.insertTextInSearchBox("google pixel 9 pro");
-        Thread.sleep(1000);
-        checkoutPage.clickMainSearchButton();
-        Thread.sleep(10000);
-        checkoutPage.clickAddToFavoriteButton();
-        Thread.sleep(1000);
-        checkoutPage.clickWishlist();
-        Thread.sleep(1000);
-        assertEquals(checkoutPage.favoriteProducts(), "1");
-        checkoutPage.clickDeleteProductButton();
-        Thread.sleep(1000);
-        assertEquals(checkoutPage.favoriteProducts(), "0");
+    public void AddToFavorite() {
+        checkoutPage().insertTextInSearchBox("google pixel 9 pro");
+        checkoutPage().clickMainSearchButton();
+        checkoutPage().clickAddToFavoriteButton();
+        checkoutPage().clickWishlist();
+        assertEquals(checkoutPage().favoriteProducts(), "1");
+        checkoutPage().clickDeleteProductButton();
+        assertEquals(checkoutPage().favoriteProducts(), "0");
     }
 
     @Test(description = "Apply some filters for laptop category on emag")
-    public void applyFilters() throws InterruptedException {
-        checkoutPage.clickMenu();
-        Thread.sleep(1000);
-        checkoutPage.clickLaptopTabletPhoneCategory();
-        Thread.sleep(1000);
-        checkoutPage.clickLaptopsAndAccessories();
-        Thread.sleep(1000);
-        checkoutPage.clickLaptops();
-        Thread.sleep(1000);
-        checkoutPage.insertMinimPrice();
-        Thread.sleep(1000);
-        checkoutPage.insertMaximPrice();
-        Thread.sleep(1000);
-        checkoutPage.clickIntervalFilterButton();
-        Thread.sleep(5000);
+    public void applyFilters() {
+        checkoutPage().clickMenu();
+        checkoutPage().clickLaptopTabletPhoneCategory();
+        checkoutPage().clickLaptopsAndAccessories();
+        checkoutPage().clickLaptops();
+        checkoutPage().insertMinimPrice();
+        checkoutPage().insertMaximPrice();
+        checkoutPage().clickIntervalFilterButton();
     }
 
     @Test(description = "Remove item from cart and check that is empty")
-    public void removeItemFromCart() throws InterruptedException {
-        checkoutPage.clickAwesomeChipsLink();
-        Thread.sleep(1000);
-        checkoutPage.clickCartIcon();
-        Thread.sleep(1000);
-        checkoutPage.clickShoppingCartIcon();
-        Thread.sleep(1000);
-        checkoutPage.clickDeleteItemButton();
-        Thread.sleep(1000);
-        assertEquals(checkoutPage.getEmptyCartText().getText(), "How about adding some products in your cart?");
-        ExtentTestNGITestListener.getTest().log(Status.INFO, "Cart is empty");
+    public void removeItemFromCart() {
+        checkoutPage().openCartWith(CheckoutPage.AWESOME_GRANITE_CHIPS_ID, 1);
+        checkoutPage().clickDeleteItemButton();
+        checkoutPage().expect()
+                .text("Empty cart text", "emptyCartText", "How about adding some products in your cart?")
+                .absent("Cart amounts", By.cssSelector("td.amount"))
+                .assertAll();
     }
 }
-
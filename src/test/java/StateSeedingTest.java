@@ -0,0 +1,82 @@
+import Utils.BrowserLaunchProfile;
+import Utils.LocalShopServer;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+// Verifies the state seeding of CheckoutPage against the local stand-in of the shop, so it runs offline.
+// It starts its own browser instead of extending Hooks: it needs neither the start URL nor the database cleanup,
+// and it seeds regardless of -Dseed.state.
+public class StateSeedingTest {
+
+    private LocalShopServer shop;
+    private WebDriver driver;
+    private CheckoutPage checkoutPage;
+
+    @BeforeClass
+    public void startShopAndBrowser() throws IOException {
+        shop = new LocalShopServer();
+        BrowserLaunchProfile.resolveDriverOnce();
+        ChromeOptions options = BrowserLaunchProfile.chromeOptions();
+        options.addArguments("--headless=new", "--disable-gpu");
+        driver = new ChromeDriver(options);
+        checkoutPage = new CheckoutPage(driver);
+        checkoutPage.useShop(shop.getBaseUrl());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopShopAndBrowser() {
+        if (driver != null) {
+            driver.quit();
+        }
+        if (shop != null) {
+            shop.close();
+        }
+    }
+
+    private void openCartWith(String productId, int quantity) {
+        checkoutPage.seedState().cart(productId, quantity).open("cart");
+        checkoutPage.waitForPageReady();
+    }
+
+    @Test(description = "A seeded cart is shown on the cart page without visiting the product page")
+    public void seededCartIsShownOnCartPage() {
+        openCartWith(CheckoutPage.AWESOME_SOFT_SHIRT_ID, 2);
+        List<Double> amounts = checkoutPage.cartAmounts();
+        assertEquals(amounts.size(), 3, "Cart amounts: " + amounts);
+        assertEquals(amounts.get(0), 59.98, 0.001);
+        assertEquals(driver.getCurrentUrl(), shop.getBaseUrl() + "#/cart");
+    }
+
+    @Test(description = "A seeded wishlist is shown on the wishlist page")
+    public void seededWishlistIsShownOnWishlistPage() {
+        checkoutPage.seedState().wishlist(CheckoutPage.AWESOME_GRANITE_CHIPS_ID).open("wishlist");
+        checkoutPage.waitForPageReady();
+        assertEquals(checkoutPage.getAwesomeChipsProduct().getText(), "Awesome Granite Chips");
+        assertEquals(checkoutPage.getShoppingCartBadge().getText(), "1");
+    }
+
+    @Test(description = "A product of a seeded cart can be removed from the cart")
+    public void seededCartItemCanBeRemoved() {
+        openCartWith(CheckoutPage.AWESOME_GRANITE_CHIPS_ID, 1);
+        checkoutPage.clickDeleteItemButton();
+        assertEquals(checkoutPage.getEmptyCartText().getText(), "How about adding some products in your cart?");
+    }
+
+    @Test(description = "Seeding replaces whatever the cart contained before")
+    public void seedingReplacesThePreviousCart() {
+        openCartWith(CheckoutPage.AWESOME_GRANITE_CHIPS_ID, 3);
+        openCartWith(CheckoutPage.AWESOME_SOFT_SHIRT_ID, 1);
+        List<Double> amounts = checkoutPage.cartAmounts();
+        assertEquals(amounts.size(), 3, "Cart amounts: " + amounts);
+        assertEquals(amounts.get(0), 29.99, 0.001);
+    }
+}
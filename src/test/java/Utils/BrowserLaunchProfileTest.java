@@ -0,0 +1,35 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BrowserLaunchProfileTest {
+
+    @Test(description = "The cached chromedriver with the highest version is used, not the last path in text order")
+    public void picksTheNewestCachedChromedriver() throws IOException {
+        Path cache = Files.createTempDirectory("driver-cache");
+        for (String version : new String[]{"99.0.4844.51", "114.0.5735.90", "114.0.5735.9"}) {
+            Path directory = Files.createDirectories(cache.resolve("chromedriver/linux64").resolve(version));
+            Files.createFile(directory.resolve("chromedriver"));
+        }
+
+        Path found = BrowserLaunchProfile.findCachedChromedriver(cache).get();
+
+        assertEquals(BrowserLaunchProfile.versionOf(found), "114.0.5735.90");
+    }
+
+    @Test(description = "Versions are compared segment by segment as numbers")
+    public void comparesVersionsNumerically() {
+        assertTrue(BrowserLaunchProfile.compareVersions("114.0", "99.0") > 0);
+        assertTrue(BrowserLaunchProfile.compareVersions("9.10", "9.9") > 0);
+        assertTrue(BrowserLaunchProfile.compareVersions("1.2", "1.2.1") < 0);
+        assertTrue(BrowserLaunchProfile.compareVersions("", "1") < 0);
+        assertEquals(BrowserLaunchProfile.compareVersions("1.02", "1.2"), 0);
+    }
+}
@@ -0,0 +1,49 @@
+package Utils;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CommandMetricsTest {
+
+    @BeforeMethod
+    public void forgetPreviousCommands() {
+        CommandMetrics.reset();
+    }
+
+    @Test(description = "Each invocation of a test reports only its own commands; the export adds them up")
+    public void invocationsAreCountedSeparately() {
+        CommandMetrics.startTest("CheckoutTest.checkoutTest");
+        CommandMetrics.record("clickElement", "CheckoutPage.clickCheckoutButton", 2_000_000);
+        CommandMetrics.record("findElement", "CheckoutPage.clickCheckoutButton", 1_000_000);
+        CommandMetrics.TestStats first = CommandMetrics.finishTest();
+
+        CommandMetrics.startTest("CheckoutTest.checkoutTest");
+        CommandMetrics.record("get", null, 5_000_000);
+        CommandMetrics.TestStats second = CommandMetrics.finishTest();
+
+        assertEquals(first.getCommandCount(), 2);
+        assertEquals(first.getTotalMillis(), 3, 0.001);
+        assertEquals(first.getPageMethodCount("CheckoutPage.clickCheckoutButton"), 2);
+        assertEquals(second.getCommandCount(), 1);
+        assertEquals(second.getPageMethodCount("CheckoutPage.clickCheckoutButton"), 0);
+
+        CommandMetrics.TestStats total = CommandMetrics.getTestTotals().get("CheckoutTest.checkoutTest");
+        assertEquals(total.getCommandCount(), 3);
+        assertEquals(total.getInvocations(), 2);
+        assertTrue(CommandMetrics.toJson().contains("\"CheckoutTest.checkoutTest\": {\"invocations\": 2, \"commands\": 3"),
+                CommandMetrics.toJson());
+    }
+
+    @Test(description = "Commands outside a test are kept apart, and every command is in the latency histograms")
+    public void commandsOutsideTestsAreKeptApart() {
+        CommandMetrics.record("get", null, 1_000_000);
+        assertEquals(CommandMetrics.finishTest().getCommandCount(), 0);
+
+        assertEquals(CommandMetrics.getTestTotals().get("(outside tests)").getCommandCount(), 1);
+        assertEquals(CommandMetrics.getCommandHistograms().get("get").getCount(), 1);
+        assertTrue(CommandMetrics.toOpenMetrics().contains("webdriver_command_duration_seconds_count{command=\"get\"} 1"));
+    }
+}
@@ -0,0 +1,103 @@
+package Utils;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.testng.Assert.assertEquals;
+
+// Runs the database fixtures against an in-memory H2 database instead of the shared MySQL.
+public class DatabaseUtilsTest {
+
+    private static final String URL = "jdbc:h2:mem:fixtures;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    private Connection connection;
+
+    @BeforeClass
+    public void createSchema() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE venues (id INT AUTO_INCREMENT PRIMARY KEY, organisation_id VARCHAR(64))");
+        }
+        DatabaseUtils.configure(URL, "sa", "");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void dropSchema() throws SQLException {
+        DatabaseUtils.shutdown();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE venues");
+        }
+        connection.close();
+    }
+
+    @BeforeMethod
+    public void insertVenues() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM venues");
+            statement.execute("INSERT INTO venues (organisation_id) VALUES ('org_a'), ('org_a'), ('org_b'), ('org_c')");
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void resetCleanupMode() {
+        System.clearProperty("db.cleanup");
+        DatabaseUtils.flush();
+    }
+
+    @Test(description = "Batched cleanups are only queued until the queue is flushed")
+    public void batchedCleanupWaitsForFlush() throws SQLException {
+        DatabaseUtils.deleteVenueByOrganisationId("org_a");
+        DatabaseUtils.deleteVenueByOrganisationId("org_b");
+
+        assertEquals(countVenues(), 4);
+        assertEquals(DatabaseUtils.flush(), 3);
+        assertEquals(countVenues(), 1);
+    }
+
+    @Test(description = "The same organisation queued several times is deleted once")
+    public void repeatedCleanupsAreCoalesced() {
+        for (int i = 0; i < 10; i++) {
+            DatabaseUtils.deleteVenueByOrganisationId("org_c");
+        }
+
+        assertEquals(DatabaseUtils.pendingCleanups(), 1);
+        assertEquals(DatabaseUtils.flush(), 1);
+    }
+
+    @Test(description = "Inline cleanups delete immediately")
+    public void inlineCleanupDeletesImmediately() throws SQLException {
+        System.setProperty("db.cleanup", "inline");
+
+        DatabaseUtils.deleteVenueByOrganisationId("org_a");
+
+        assertEquals(DatabaseUtils.pendingCleanups(), 0);
+        assertEquals(countVenues(), 2);
+    }
+
+    @Test(description = "Background flushes and repeated flushes reuse pooled connections")
+    public void asyncFlushesCanBeRepeated() throws Exception {
+        DatabaseUtils.deleteVenueByOrganisationId("org_a");
+        assertEquals((int) DatabaseUtils.flushAsync().get(), 2);
+        DatabaseUtils.deleteVenueByOrganisationId("org_b");
+        assertEquals((int) DatabaseUtils.flushAsync().get(), 1);
+
+        assertEquals(countVenues(), 1);
+    }
+
+    private int countVenues() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM venues")) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EventReportRendererTest {
+
+    @Test(description = "Logs of several shards are merged, and a second render only adds what was appended since")
+    public void mergesShardsIncrementally() throws Exception {
+        Path directory = Files.createTempDirectory("event-report");
+        Path firstLog = directory.resolve("events-shard-0-of-2.jsonl");
+        Path secondLog = directory.resolve("events-shard-1-of-2.jsonl");
+        Path output = directory.resolve("report");
+
+        ResultEventLog first = new ResultEventLog(firstLog, "run-shard-0");
+        first.start(1, "checkoutTest", null);
+        first.text(1, "INFO", "Opened the cart");
+        first.end(1, "PASS", 1200);
+        first.close();
+        ResultEventLog second = new ResultEventLog(secondLog, "run-shard-1");
+        second.start(1, "wishlistTest", "");
+        second.html(1, "FAIL", "<table><tr><td>Badge</td></tr></table>");
+        second.flush();
+
+        EventReportRenderer.render(Arrays.asList(firstLog, secondLog), output);
+        String tests = read(output.resolve("tests.js"));
+        assertTrue(tests.contains("\"name\":\"checkoutTest\",\"status\":\"PASS\""), tests);
+        assertTrue(tests.contains("\"name\":\"wishlistTest\",\"status\":\"RUNNING\""), tests);
+        assertTrue(read(output.resolve("steps/2-0.js")).contains("\"html\":\"<table>"));
+        assertTrue(Files.exists(output.resolve("index.html")));
+
+        second.text(1, "FAIL", "Test Failed");
+        second.end(1, "FAIL", 900);
+        second.close();
+        EventReportRenderer.render(Arrays.asList(firstLog, secondLog), output);
+        tests = read(output.resolve("tests.js"));
+        assertTrue(tests.contains("\"name\":\"wishlistTest\",\"status\":\"FAIL\""), tests);
+        assertTrue(tests.contains("\"steps\":2"), tests);
+        // The step of the first render is not written a second time.
+        assertEquals(read(output.resolve("steps/2-0.js")).split("\n").length, 2);
+        assertEquals(read(output.resolve("steps/1-0.js")).split("\n").length, 1);
+    }
+
+    @Test(description = "Steps are split into pages, and a line still being written waits for the next render")
+    public void pagesStepsAndSkipsIncompleteLines() throws Exception {
+        Path directory = Files.createTempDirectory("event-report");
+        Path log = directory.resolve("report-events.jsonl");
+        ResultEventLog events = new ResultEventLog(log, "run");
+        events.start(1, "searchTest", null);
+        for (int i = 0; i < EventReportRenderer.STEPS_PER_PAGE + 5; i++) {
+            events.text(1, "INFO", "step " + i);
+        }
+        events.close();
+        Files.write(log, "{\"run\":\"run\",\"type\":\"log\",\"te".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Path output = directory.resolve("report");
+        EventReportRenderer.render(Collections.singletonList(log), output);
+        assertEquals(read(output.resolve("steps/1-0.js")).split("\n").length, EventReportRenderer.STEPS_PER_PAGE);
+        assertEquals(read(output.resolve("steps/1-1.js")).split("\n").length, 5);
+        assertFalse(Files.exists(output.resolve("steps/1-2.js")));
+    }
+
+    @Test(description = "Renders into the same report at the same time take turns and write every step once")
+    public void concurrentRendersDoNotDuplicateSteps() throws Exception {
+        Path directory = Files.createTempDirectory("event-report");
+        Path log = directory.resolve("report-events.jsonl");
+        ResultEventLog events = new ResultEventLog(log, "run");
+        events.start(1, "checkoutTest", null);
+        for (int i = 0; i < 50; i++) {
+            events.text(1, "INFO", "step " + i);
+        }
+        events.end(1, "PASS", 100);
+        events.close();
+        Path output = directory.resolve("report");
+
+        ExecutorService renders = Executors.newFixedThreadPool(4);
+        List<Future<Path>> done = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            done.add(renders.submit(() -> EventReportRenderer.render(Collections.singletonList(log), output)));
+        }
+        for (Future<Path> render : done) {
+            render.get();
+        }
+        renders.shutdown();
+
+        assertEquals(read(output.resolve("steps/1-0.js")).split("\n").length, 50);
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
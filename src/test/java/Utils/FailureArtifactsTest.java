@@ -0,0 +1,89 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class FailureArtifactsTest {
+
+    @Test(description = "A screen with a tiny difference, like a blinking caret, hashes the same")
+    public void smallDifferencesKeepTheHash() {
+        BufferedImage screen = page(Color.WHITE);
+        BufferedImage withCaret = page(Color.WHITE);
+        withCaret.setRGB(400, 300, Color.BLACK.getRGB());
+
+        assertEquals(FailureArtifacts.differenceHash(withCaret), FailureArtifacts.differenceHash(screen));
+    }
+
+    @Test(description = "A different screen gets a clearly different hash")
+    public void differentScreensGetDifferentHashes() {
+        BufferedImage screen = page(Color.WHITE);
+        BufferedImage other = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = other.createGraphics();
+        for (int x = 0; x < 800; x += 100) {
+            graphics.setColor(x % 200 == 0 ? Color.BLACK : Color.WHITE);
+            graphics.fillRect(x, 0, 100, 600);
+        }
+        graphics.dispose();
+
+        long distance = Long.bitCount(FailureArtifacts.differenceHash(screen) ^ FailureArtifacts.differenceHash(other));
+        assertTrue(distance > 4, "Hamming distance was " + distance);
+    }
+
+    @Test(description = "A screenshot is only reused by a later attempt of the same test with an identical hash")
+    public void screenshotsAreOnlyReusedWithinTheSameTest() throws IOException {
+        byte[] screen = png(page(Color.WHITE));
+        BufferedImage similar = page(Color.WHITE);
+        Graphics2D graphics = similar.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(700, 80, 100, 520);
+        graphics.dispose();
+
+        FailureArtifacts.Capture first = process("FailureArtifactsTest#first", screen);
+        FailureArtifacts.Capture retry = process("FailureArtifactsTest#first", screen);
+        FailureArtifacts.Capture otherTest = process("FailureArtifactsTest#second", screen);
+        FailureArtifacts.Capture otherScreen = process("FailureArtifactsTest#first", png(similar));
+
+        assertFalse(first.isSameScreen());
+        assertTrue(retry.isSameScreen());
+        assertEquals(retry.getScreenshot(), first.getScreenshot());
+        assertFalse(otherTest.isSameScreen());
+        assertNotEquals(otherTest.getScreenshot(), first.getScreenshot());
+        assertFalse(otherScreen.isSameScreen());
+    }
+
+    private static FailureArtifacts.Capture process(String testName, byte[] png) throws IOException {
+        return FailureArtifacts.process(testName, png, null, new ArrayList<>(), 0);
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    // A page with a dark header and a lighter sidebar, like a typical shop screen.
+    private static BufferedImage page(Color background) {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, 800, 600);
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.fillRect(0, 0, 800, 80);
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.fillRect(0, 80, 200, 520);
+        graphics.dispose();
+        return image;
+    }
+}
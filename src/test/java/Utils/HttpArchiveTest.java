@@ -0,0 +1,72 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class HttpArchiveTest {
+
+    @Test(description = "Status, headers (including non-ASCII values) and body come back as they were recorded")
+    public void responsesRoundTrip() throws IOException {
+        Path directory = Files.createTempDirectory("archive");
+        try (HttpArchive archive = HttpArchive.forRecording(directory)) {
+            archive.record("GET http://shop/a", response(200, "Content-Disposition", "inline; filename=\"co\u0219.txt\"", "a"));
+            archive.record("GET http://shop/b", response(404, "X-Empty", "", ""));
+        }
+
+        HttpArchive replay = HttpArchive.forReplay(directory);
+
+        HttpArchive.RecordedResponse a = replay.find("GET http://shop/a");
+        assertEquals(a.status, 200);
+        assertEquals(a.headers.get(0), new String[]{"Content-Disposition", "inline; filename=\"co\u0219.txt\""});
+        assertEquals(new String(a.body, StandardCharsets.UTF_8), "a");
+        assertEquals(replay.find("GET http://shop/b").status, 404);
+        assertNull(replay.find("GET http://shop/c"));
+    }
+
+    @Test(description = "A data file larger than one mapping is split into regions that each hold whole responses")
+    public void largeArchivesAreMappedInRegions() throws IOException {
+        Path directory = Files.createTempDirectory("archive");
+        try (HttpArchive archive = HttpArchive.forRecording(directory)) {
+            for (int i = 0; i < 10; i++) {
+                archive.record("GET http://shop/" + i, response(200, "X-Index", String.valueOf(i), "body " + i));
+            }
+        }
+        // Each entry is 47 or 48 bytes, so at most two fit into a region of 100 bytes.
+        HttpArchive replay = HttpArchive.forReplay(directory, 100);
+
+        assertEquals(replay.regionCount(), 5);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new String(replay.find("GET http://shop/" + i).body, StandardCharsets.UTF_8), "body " + i);
+        }
+    }
+
+    @Test(description = "Recording a request again replaces the earlier recording")
+    public void lastRecordingWins() throws IOException {
+        Path directory = Files.createTempDirectory("archive");
+        try (HttpArchive archive = HttpArchive.forRecording(directory)) {
+            archive.record("GET http://shop/a", response(200, "X-Try", "1", "first"));
+        }
+        try (HttpArchive archive = HttpArchive.forRecording(directory)) {
+            archive.record("GET http://shop/a", response(200, "X-Try", "2", "second"));
+        }
+
+        HttpArchive replay = HttpArchive.forReplay(directory);
+
+        assertEquals(replay.size(), 1);
+        assertEquals(new String(replay.find("GET http://shop/a").body, StandardCharsets.UTF_8), "second");
+    }
+
+    private static HttpArchive.RecordedResponse response(int status, String header, String value, String body) {
+        List<String[]> headers = Arrays.<String[]>asList(new String[]{header, value});
+        return new HttpArchive.RecordedResponse(status, headers, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,182 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ImpactSelectorTest {
+
+    private static final List<String> PAGE = Arrays.asList(
+            "import org.openqa.selenium.WebElement;",                       // 1
+            "",                                                             // 2
+            "public class ShopPage extends BasePage {",                     // 3
+            "",                                                             // 4
+            "    @FindBy(css = \".cart { color: red }\")",                  // 5
+            "    private WebElement cartIcon;",                             // 6
+            "",                                                             // 7
+            "    // Opens the cart (the '{' in this comment is ignored).",  // 8
+            "    public void clickCartIcon() {",                            // 9
+            "        click(cartIcon);",                                     // 10
+            "    }",                                                        // 11
+            "",                                                             // 12
+            "    @FindBy(id = \"search\")",                                 // 13
+            "    private WebElement searchBar;",                            // 14
+            "",                                                             // 15
+            "    public void search(String text) throws Exception {",       // 16
+            "        if (text != null) {",                                  // 17
+            "            type(searchBar, text);",                           // 18
+            "        }",                                                    // 19
+            "    }",                                                        // 20
+            "",                                                             // 21
+            "    private boolean seeding() {",                              // 22
+            "        return Boolean.getBoolean(\"seed.state\");",           // 23
+            "    }",                                                        // 24
+            "}");                                                           // 25
+
+    @Test(description = "Members of a page object are found with their lines, ignoring braces in literals and comments")
+    public void findsMembers() {
+        List<ImpactSelector.Member> members = ImpactSelector.members(PAGE);
+        assertEquals(members.size(), 5);
+        assertMember(members.get(0), ImpactSelector.Member.Kind.LOCATOR, "cartIcon", 4, 6);
+        assertMember(members.get(1), ImpactSelector.Member.Kind.METHOD, "clickCartIcon", 7, 11);
+        assertMember(members.get(2), ImpactSelector.Member.Kind.LOCATOR, "searchBar", 12, 14);
+        assertMember(members.get(3), ImpactSelector.Member.Kind.METHOD, "search", 15, 20);
+        assertMember(members.get(4), ImpactSelector.Member.Kind.METHOD, "seeding", 21, 24);
+    }
+
+    @Test(description = "A changed locator selects only the tests that used it, plus tests never recorded")
+    public void selectsTestsOfChangedLocator() throws Exception {
+        Path repository = repository();
+        List<ImpactSelector.FileChange> changes = ImpactSelector.parseDiff(Arrays.asList(
+                "diff --git a/src/main/java/ShopPage.java b/src/main/java/ShopPage.java",
+                "--- a/src/main/java/ShopPage.java",
+                "+++ b/src/main/java/ShopPage.java",
+                "@@ -13 +13 @@",
+                "-    @FindBy(id = \"query\")",
+                "+    @FindBy(id = \"search\")",
+                "diff --git a/README.md b/README.md",
+                "--- a/README.md",
+                "+++ b/README.md",
+                "@@ -1,0 +2,1 @@",
+                "+More docs"));
+
+        ImpactSelector.Selection selection = ImpactSelector.select(changes, impactMap(),
+                Arrays.asList("ShopTest#cartTest", "ShopTest#searchTest", "ShopTest#newTest"), repository);
+
+        assertFalse(selection.isAll());
+        assertEquals(new TreeSet<>(selection.getTests()), new TreeSet<>(Arrays.asList("ShopTest#searchTest", "ShopTest#newTest")));
+    }
+
+    @Test(description = "A change outside any member selects every test of the class; a framework change runs everything")
+    public void widensSelectionWhenChangeCannotBePlaced() throws Exception {
+        Path repository = repository();
+        List<String> known = Arrays.asList("ShopTest#cartTest", "ShopTest#searchTest");
+        ImpactSelector.Selection imports = ImpactSelector.select(ImpactSelector.parseDiff(Arrays.asList(
+                "diff --git a/src/main/java/ShopPage.java b/src/main/java/ShopPage.java",
+                "--- a/src/main/java/ShopPage.java",
+                "+++ b/src/main/java/ShopPage.java",
+                "@@ -1,0 +1 @@")), impactMap(), known, repository);
+        assertEquals(imports.getTests().size(), 2);
+
+        ImpactSelector.Selection framework = ImpactSelector.select(ImpactSelector.parseDiff(Arrays.asList(
+                "diff --git a/src/main/java/Utils/Readiness.java b/src/main/java/Utils/Readiness.java",
+                "--- a/src/main/java/Utils/Readiness.java",
+                "+++ b/src/main/java/Utils/Readiness.java",
+                "@@ -10 +10 @@")), impactMap(), known, repository);
+        assertTrue(framework.isAll());
+    }
+
+    @Test(description = "A changed method that never reached the browser, so is missing from the map, selects every test of the class")
+    public void changedUnrecordedMethodSelectsTheClass() throws Exception {
+        Path repository = repository();
+        List<String> known = Arrays.asList("ShopTest#cartTest", "ShopTest#searchTest");
+        ImpactSelector.Selection selection = ImpactSelector.select(ImpactSelector.parseDiff(Arrays.asList(
+                "diff --git a/src/main/java/ShopPage.java b/src/main/java/ShopPage.java",
+                "--- a/src/main/java/ShopPage.java",
+                "+++ b/src/main/java/ShopPage.java",
+                "@@ -23 +23 @@")), impactMap(), known, repository);
+
+        assertFalse(selection.isAll());
+        assertEquals(new TreeSet<>(selection.getTests()), new TreeSet<>(known));
+    }
+
+    @Test(description = "A changed test method selects that test; a changed helper of the test class the whole class")
+    public void changedHelperOfTestClassSelectsTheClass() throws Exception {
+        Path repository = repository();
+        List<String> known = Arrays.asList("ShopTest#cartTest", "ShopTest#searchTest");
+
+        ImpactSelector.Selection testMethod = ImpactSelector.select(testChange("@@ -9 +9 @@"), impactMap(), known, repository);
+        assertEquals(testMethod.getTests(), new TreeSet<>(Arrays.asList("ShopTest#searchTest")));
+
+        ImpactSelector.Selection helper = ImpactSelector.select(testChange("@@ -5 +5 @@"), impactMap(), known, repository);
+        assertEquals(new TreeSet<>(helper.getTests()), new TreeSet<>(known));
+
+        ImpactSelector.Selection dataProvider = ImpactSelector.select(testChange("@@ -13 +13 @@"), impactMap(), known, repository);
+        assertEquals(new TreeSet<>(dataProvider.getTests()), new TreeSet<>(known));
+    }
+
+    private static List<ImpactSelector.FileChange> testChange(String hunk) {
+        return ImpactSelector.parseDiff(Arrays.asList(
+                "diff --git a/src/test/java/ShopTest.java b/src/test/java/ShopTest.java",
+                "--- a/src/test/java/ShopTest.java",
+                "+++ b/src/test/java/ShopTest.java",
+                hunk));
+    }
+
+    private static Map<String, Set<String>> impactMap() {
+        Map<String, Set<String>> map = new TreeMap<>();
+        map.put("ShopTest#cartTest", new TreeSet<>(Arrays.asList("ShopPage.clickCartIcon()", "ShopPage.cartIcon")));
+        map.put("ShopTest#searchTest", new TreeSet<>(Arrays.asList("ShopPage.search()", "ShopPage.searchBar")));
+        return map;
+    }
+
+    private static Path repository() throws Exception {
+        Path repository = Files.createTempDirectory("impact");
+        Path page = repository.resolve("src/main/java/ShopPage.java");
+        Files.createDirectories(page.getParent());
+        Files.write(page, PAGE);
+        Path framework = repository.resolve("src/main/java/Utils/Readiness.java");
+        Files.createDirectories(framework.getParent());
+        Files.write(framework, Arrays.asList("package Utils;", "public class Readiness {", "}"));
+        Path test = repository.resolve("src/test/java/ShopTest.java");
+        Files.createDirectories(test.getParent());
+        Files.write(test, Arrays.asList(
+                "public class ShopTest extends Hooks {",                                  // 1
+                "",                                                                       // 2
+                "    @BeforeMethod",                                                      // 3
+                "    public void SetupPageObject() {",                                    // 4
+                "        shopPage = new ShopPage();",                                     // 5
+                "    }",                                                                  // 6
+                "",                                                                       // 7
+                "    @Test",                                                              // 8
+                "    public void searchTest() {",                                         // 9
+                "        shopPage.search(\"laptop\");",                                   // 10
+                "    }",                                                                  // 11
+                "",                                                                       // 12
+                "    @DataProvider(name = \"carts\")",                                    // 13
+                "    public Object[][] carts() {",                                        // 14
+                "        return new Object[][]{{1}};",                                    // 15
+                "    }",                                                                  // 16
+                "}"));                                                                    // 17
+        return repository;
+    }
+
+    private static void assertMember(ImpactSelector.Member member, ImpactSelector.Member.Kind kind, String name,
+                                     int firstLine, int lastLine) {
+        assertEquals(member.kind, kind);
+        assertEquals(member.name, name);
+        assertEquals(member.firstLine, firstLine);
+        assertEquals(member.lastLine, lastLine);
+    }
+}
@@ -0,0 +1,38 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test(description = "Percentiles fall in the 10% bucket of the value and never exceed the maximum")
+    public void percentilesAreWithinTenPercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(histogram.getCount(), 100);
+        assertEquals(histogram.getSumMillis(), 5050, 0.001);
+        assertEquals(histogram.getMaxMillis(), 100, 0.001);
+        assertBetween(histogram.percentileMillis(50), 50, 55);
+        assertBetween(histogram.percentileMillis(95), 95, 100);
+        assertEquals(histogram.percentileMillis(100), 100, 0.001);
+    }
+
+    @Test(description = "An empty histogram reports zero, values below a microsecond land in the first bucket")
+    public void handlesEmptyAndTinyValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.percentileMillis(99), 0.0);
+
+        histogram.record(10);
+        assertEquals(histogram.getCount(), 1);
+        assertTrue(histogram.percentileMillis(50) <= 0.001);
+    }
+
+    private static void assertBetween(double value, double low, double high) {
+        assertTrue(value >= low && value <= high, value + " is not between " + low + " and " + high);
+    }
+}
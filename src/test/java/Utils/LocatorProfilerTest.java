@@ -0,0 +1,122 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class LocatorProfilerTest {
+
+    private static final WebElement TRASH = element("trash");
+    private static final WebElement CELL = element("cell");
+
+    @Test(description = "A cheaper locator is proposed only when it finds exactly the same element")
+    public void proposesOnlyUniqueCheaperLocators() {
+        FakeDriver browser = new FakeDriver();
+        browser.add("By.xpath: //div/span/button[3]", 400, TRASH);
+        browser.add("By.cssSelector: .fa-trash", 20, TRASH, CELL);
+        browser.add("By.cssSelector: button.delete", 40, TRASH);
+        browser.add("By.cssSelector: [data-test=delete]", 60, TRASH);
+        browser.candidates = Arrays.asList(
+                Arrays.asList("css", ".fa-trash"),
+                Arrays.asList("css", "button.delete"),
+                Arrays.asList("css", "[data-test=delete]"));
+
+        List<LocatorProfiler.LocatorReport> reports = new LocatorProfiler(browser.driver(), 3).profile(Page.class);
+
+        LocatorProfiler.LocatorReport trash = report(reports, "trash");
+        assertEquals(trash.getMatchCount(), 1);
+        assertEquals(trash.getProposal(), By.cssSelector("button.delete"));
+        assertTrue(trash.getMeanMicros() > 300, "mean " + trash.getMeanMicros());
+    }
+
+    @Test(description = "Locators shared by two fields and locators matching several nodes are flagged")
+    public void flagsDuplicatesAndAmbiguousLocators() {
+        FakeDriver browser = new FakeDriver();
+        browser.add("By.xpath: //div/span/button[3]", 10, TRASH);
+        browser.add("By.cssSelector: .fa-trash", 10, TRASH, CELL);
+
+        List<LocatorProfiler.LocatorReport> reports = new LocatorProfiler(browser.driver(), 2).profile(Page.class);
+
+        assertEquals(report(reports, "sameTrash").getWarnings(), Collections.singletonList("same locator as field 'trash'"));
+        LocatorProfiler.LocatorReport icon = report(reports, "icon");
+        assertEquals(icon.getWarnings(), Collections.singletonList("matches 2 nodes, the first one is used"));
+        assertNull(icon.getProposal());
+    }
+
+    private static LocatorProfiler.LocatorReport report(List<LocatorProfiler.LocatorReport> reports, String field) {
+        return reports.stream().filter(report -> report.getFieldName().equals(field)).findFirst().orElseThrow();
+    }
+
+    private static WebElement element(String name) {
+        return (WebElement) Proxy.newProxyInstance(LocatorProfilerTest.class.getClassLoader(), new Class[]{WebElement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return name;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unused")
+    private static class Page {
+        @FindBy(xpath = "//div/span/button[3]")
+        private WebElement trash;
+
+        @FindBy(xpath = "//div/span/button[3]")
+        private WebElement sameTrash;
+
+        @FindBy(css = ".fa-trash")
+        private WebElement icon;
+    }
+
+    // A browser whose locators take a fixed time, so the cheaper one is known in advance.
+    private static class FakeDriver {
+        private final Map<String, List<WebElement>> matches = new HashMap<>();
+        private final Map<String, Long> costMicros = new HashMap<>();
+        private List<List<String>> candidates = Collections.emptyList();
+
+        void add(String by, long micros, WebElement... elements) {
+            matches.put(by, Arrays.asList(elements));
+            costMicros.put(by, micros);
+        }
+
+        WebDriver driver() {
+            return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "findElements":
+                                String by = args[0].toString();
+                                long until = System.nanoTime() + costMicros.getOrDefault(by, 0L) * 1000;
+                                while (System.nanoTime() < until) {
+                                    Thread.onSpinWait();
+                                }
+                                return matches.getOrDefault(by, Collections.emptyList());
+                            case "executeScript":
+                                return candidates;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class PerformanceCollectorTest {
+
+    @Test(description = "Budget lines are read with comments and blank lines left out")
+    public void parsesBudgetFiles() throws Exception {
+        Path file = write("# budgets of the checkout",
+                "",
+                "CheckoutPage.clickMainSearchButton  lcp  <  2500   # first paint of the search",
+                "CheckoutPage.*\trequests\t<\t40");
+
+        List<PerformanceCollector.Budget> budgets = PerformanceCollector.loadBudgets(file.toString());
+
+        assertEquals(budgets.size(), 2);
+        assertTrue(budgets.get(0).appliesTo("CheckoutPage.clickMainSearchButton"));
+        assertTrue(budgets.get(1).appliesTo("CheckoutPage.openCartWith"));
+        Files.delete(file);
+    }
+
+    @Test(description = "A malformed line or an unknown metric names the line")
+    public void rejectsMalformedBudgets() throws Exception {
+        Path unknownMetric = write("CheckoutPage.* requests < 40", "CheckoutPage.* paint < 100");
+        Path noOperator = write("CheckoutPage.* requests 40");
+
+        IllegalArgumentException error = parseError(unknownMetric);
+        assertTrue(error.getMessage().startsWith(unknownMetric + ":2:"), error.getMessage());
+        assertTrue(parseError(noOperator).getMessage().startsWith(noOperator + ":1:"));
+        Files.delete(unknownMetric);
+        Files.delete(noOperator);
+    }
+
+    @Test(description = "Missing budgets mean no budgets")
+    public void missingBudgetFileIsEmpty() {
+        assertTrue(PerformanceCollector.loadBudgets("no-such-budgets.txt").isEmpty());
+    }
+
+    @Test(description = "'*' matches anything, every other character of the step only itself")
+    public void stepPatternsAreGlobs() {
+        PerformanceCollector.Budget anyCheckoutStep = budget("CheckoutPage.*");
+        PerformanceCollector.Budget anyOpenCart = budget("*.openCartWith");
+        PerformanceCollector.Budget exact = budget("CheckoutPage.open(Cart)");
+
+        assertTrue(anyCheckoutStep.appliesTo("CheckoutPage.openCartWith"));
+        assertFalse(anyCheckoutStep.appliesTo("LoginPage.openCartWith"));
+        assertFalse(anyCheckoutStep.appliesTo("CheckoutPageXopenCartWith"));
+        assertTrue(anyOpenCart.appliesTo("CheckoutPage.openCartWith"));
+        assertFalse(anyOpenCart.appliesTo("CheckoutPage.openCartWithDiscount"));
+        assertTrue(exact.appliesTo("CheckoutPage.open(Cart)"));
+        assertFalse(exact.appliesTo("CheckoutPage.openCart"));
+    }
+
+    @Test(description = "Only the budgets of the step are checked, and only for the metrics the step reported")
+    public void checksOnlyReportedMetrics() {
+        List<PerformanceCollector.Budget> budgets = Arrays.asList(
+                new PerformanceCollector.Budget("CheckoutPage.*", "lcp", 2500),
+                new PerformanceCollector.Budget("CheckoutPage.*", "requests", 40),
+                new PerformanceCollector.Budget("LoginPage.*", "requests", 1));
+        Map<String, Double> routeChange = new LinkedHashMap<>();
+        routeChange.put("requests", 45.0);
+
+        List<String> exceeded = PerformanceCollector.exceededBudgets(budgets, "CheckoutPage.clickCartIcon", routeChange);
+
+        assertEquals(exceeded, Arrays.asList(
+                "Performance budget of CheckoutPage.clickCartIcon exceeded: requests was 45, limit 40"));
+    }
+
+    private static PerformanceCollector.Budget budget(String step) {
+        return new PerformanceCollector.Budget(step, "requests", 1);
+    }
+
+    private static IllegalArgumentException parseError(Path file) {
+        return expectThrows(IllegalArgumentException.class, () -> PerformanceCollector.loadBudgets(file.toString()));
+    }
+
+    private static Path write(String... lines) throws Exception {
+        Path file = Files.createTempFile("perf-budgets", ".txt");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,63 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ProfileTemplateTest {
+
+    @Test(description = "A clone shares the cache entries, copies the rest and leaves out cookies, storage and locks")
+    public void clonesTemplateWithoutState() throws Exception {
+        Path template = Files.createTempDirectory("profile-template");
+        Path entry = write(template.resolve("Default/Cache/Cache_Data/4f2a_0"), "bundle");
+        write(template.resolve("Default/Cache/Cache_Data/index-dir/the-real-index"), "index");
+        write(template.resolve("Default/Preferences"), "{}");
+        write(template.resolve("Default/Cookies"), "session=1");
+        write(template.resolve("Default/Local Storage/leveldb/000003.log"), "cart");
+        write(template.resolve("SingletonLock"), "");
+
+        Path clone = template.resolveSibling(template.getFileName() + "-clone");
+        ProfileTemplate.cloneTree(template, clone, true);
+
+        Path linked = clone.resolve("Default/Cache/Cache_Data/4f2a_0");
+        assertEquals(Files.readString(linked), "bundle");
+        assertTrue(Files.isSameFile(linked, entry), "cache entries are hard links to the template");
+        assertFalse(Files.isSameFile(clone.resolve("Default/Cache/Cache_Data/index-dir/the-real-index"),
+                template.resolve("Default/Cache/Cache_Data/index-dir/the-real-index")), "cache indexes are copied");
+        assertEquals(Files.readString(clone.resolve("Default/Preferences")), "{}");
+        assertFalse(Files.exists(clone.resolve("Default/Cookies")));
+        assertFalse(Files.exists(clone.resolve("Default/Local Storage")));
+        assertFalse(Files.exists(clone.resolve("SingletonLock")));
+    }
+
+    @Test(description = "The application build is recognised by the scripts and stylesheets its pages reference")
+    public void findsReferencedAssets() {
+        String before = ProfileTemplate.assetsOf("<html><head><link rel=\"stylesheet\" href=\"/css/app.3f9c.css\">"
+                + "<script type=\"module\" src='/js/app.81d2.js'></script></head><body><a href=\"/cart\">Cart</a></body></html>");
+        assertEquals(before, "/css/app.3f9c.css\n/js/app.81d2.js\n");
+        String after = ProfileTemplate.assetsOf("<link rel=\"stylesheet\" href=\"/css/app.3f9c.css\"><script src=\"/js/app.77aa.js\"></script>");
+        assertNotEquals(after, before);
+    }
+
+    @Test(description = "Hard links are only used when the read-only template files cannot be written")
+    public void detectsWritableTemplateFiles() throws Exception {
+        Path template = Files.createTempDirectory("profile-template");
+        Path entry = write(template.resolve("Default/Cache/Cache_Data/4f2a_0"), "bundle");
+        assertTrue(ProfileTemplate.hasWritableFile(template));
+
+        entry.toFile().setReadOnly();
+        // Root can still write to a read-only file, which is exactly the case hard links must be avoided in.
+        assertEquals(ProfileTemplate.hasWritableFile(template), Files.isWritable(entry));
+    }
+
+    private static Path write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
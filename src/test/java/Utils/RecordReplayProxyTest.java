@@ -0,0 +1,140 @@
+package Utils;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+// Records the local stand-in of the shop through the proxy, then replays it with the shop stopped.
+public class RecordReplayProxyTest {
+
+    private LocalShopServer shop;
+    private Path archive;
+
+    @BeforeMethod
+    public void startShop() throws IOException {
+        shop = new LocalShopServer();
+        archive = Files.createTempDirectory("recordings");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopShop() {
+        shop.close();
+    }
+
+    @Test(description = "Pages recorded from the shop are replayed without the shop")
+    public void recordedPagesAreReplayedOffline() throws Exception {
+        String index;
+        String script;
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.RECORD)) {
+            index = get(proxy, shop.getBaseUrl()).body();
+            script = get(proxy, shop.getBaseUrl() + "shop.js").body();
+        }
+        shop.close();
+
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.REPLAY)) {
+            HttpResponse<String> replayedIndex = get(proxy, shop.getBaseUrl());
+            assertEquals(replayedIndex.statusCode(), 200);
+            assertEquals(replayedIndex.body(), index);
+            assertEquals(replayedIndex.headers().firstValue("Content-Type").orElse(""), "text/html; charset=UTF-8");
+            assertEquals(get(proxy, shop.getBaseUrl() + "shop.js").body(), script);
+            assertTrue(proxy.report().contains("served=2 "), proxy.report());
+            assertTrue(proxy.report().contains("missing from recording=0"), proxy.report());
+        }
+    }
+
+    @Test(description = "A cache-busting query string still finds the recording; an unknown path is a miss, not served")
+    public void replayIgnoresTheQueryOnlyWhenTheExactRequestIsMissing() throws Exception {
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.RECORD)) {
+            get(proxy, shop.getBaseUrl() + "shop.js?v=1");
+        }
+
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.REPLAY)) {
+            assertEquals(get(proxy, shop.getBaseUrl() + "shop.js?v=2").statusCode(), 200);
+            HttpResponse<String> miss = get(proxy, shop.getBaseUrl() + "missing.js");
+            assertEquals(miss.statusCode(), 404);
+            assertEquals(miss.headers().firstValue("X-Replay-Miss").orElse(""), "true");
+            assertTrue(proxy.report().contains("served=1 (of which with another query string=1)"), proxy.report());
+            assertTrue(proxy.report().contains("missing from recording=1"), proxy.report());
+        }
+    }
+
+    @Test(description = "Block mode answers blocked hosts itself and forwards everything else")
+    public void blockModeOnlyDropsTheBlockList() throws Exception {
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.BLOCK)) {
+            assertEquals(get(proxy, "http://tracker.example/pixel.gif").statusCode(), 403);
+            assertEquals(get(proxy, "http://www.google-analytics.com/collect").statusCode(), 403);
+            assertEquals(get(proxy, shop.getBaseUrl()).statusCode(), 200);
+            assertTrue(proxy.report().contains("blocked=2"), proxy.report());
+        }
+    }
+
+    @Test(description = "A chunked request body is recorded under the same key as the same body with a length")
+    public void chunkedRequestBodiesAreSupported() throws Exception {
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.RECORD)) {
+            String response = raw(proxy, "POST " + shop.getBaseUrl() + "shop.js HTTP/1.1\r\n"
+                    + "Host: 127.0.0.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + "5;name=value\r\nhello\r\n6\r\n world\r\n0\r\nX-Trailer: 1\r\n\r\n");
+            assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        }
+        shop.close();
+
+        try (RecordReplayProxy proxy = proxy(RecordReplayProxy.Mode.REPLAY)) {
+            String response = raw(proxy, "POST " + shop.getBaseUrl() + "shop.js HTTP/1.1\r\n"
+                    + "Host: 127.0.0.1\r\nContent-Length: 11\r\n\r\nhello world");
+            assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        }
+    }
+
+    private RecordReplayProxy proxy(RecordReplayProxy.Mode mode) throws Exception {
+        List<String> extra = mode == RecordReplayProxy.Mode.BLOCK
+                ? Collections.singletonList("tracker.example") : Collections.emptyList();
+        return new RecordReplayProxy(mode, archive, extra);
+    }
+
+    private static HttpResponse<String> get(RecordReplayProxy proxy, String url) throws Exception {
+        String[] address = proxy.getAddress().split(":");
+        HttpClient client = HttpClient.newBuilder()
+                .proxy(ProxySelector.of(new InetSocketAddress(address[0], Integer.parseInt(address[1]))))
+                .build();
+        return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Sends one request as written and returns the status line and headers of the response.
+    private static String raw(RecordReplayProxy proxy, String request) throws IOException {
+        String[] address = proxy.getAddress().split(":");
+        try (Socket socket = new Socket(address[0], Integer.parseInt(address[1]))) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            StringBuilder head = new StringBuilder();
+            while (!head.toString().endsWith("\r\n\r\n")) {
+                int b = in.read();
+                if (b == -1) {
+                    break;
+                }
+                head.append((char) b);
+            }
+            return head.toString();
+        }
+    }
+}
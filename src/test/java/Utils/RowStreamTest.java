@@ -0,0 +1,91 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+public class RowStreamTest {
+
+    @Test(description = "CSV fields may be quoted, contain commas, doubled quotes and line breaks")
+    public void readsQuotedCsvFields() throws Exception {
+        Path file = write(".csv", "firstName,address",
+                "Ana,\"Str. Eminescu 12, Cluj\"",
+                "",
+                "\"Ion \"\"Johnny\"\"\",\"Bloc A",
+                "Ap. 3\"");
+
+        try (RowStream rows = new RowStream(file.toString())) {
+            Map<String, String> first = rows.next();
+            assertEquals(first.get("address"), "Str. Eminescu 12, Cluj");
+            Map<String, String> second = rows.next();
+            assertEquals(second.get("firstName"), "Ion \"Johnny\"");
+            assertEquals(second.get("address"), "Bloc A\nAp. 3");
+            assertFalse(rows.hasNext());
+        }
+        assertEquals(RowStream.count(file.toString()), 2);
+        Files.delete(file);
+    }
+
+    @Test(description = "Each JSONL line is a flat object; numbers and booleans are read as text")
+    public void readsJsonLines() throws Exception {
+        Path file = write(".jsonl",
+                "{\"firstName\": \"Ana\", \"quantity\": 2, \"guest\": true}",
+                "{\"firstName\": \"Ion\\u0103\", \"address\": \"Str. \\\"Noua\\\"\", \"coupon\": null}");
+
+        try (RowStream rows = new RowStream(file.toString())) {
+            Map<String, String> first = rows.next();
+            assertEquals(first.get("quantity"), "2");
+            assertEquals(first.get("guest"), "true");
+            Map<String, String> second = rows.next();
+            assertEquals(second.get("firstName"), "Ion\u0103");
+            assertEquals(second.get("address"), "Str. \"Noua\"");
+            assertEquals(second.get("coupon"), "");
+        }
+        Files.delete(file);
+    }
+
+    @Test(description = "Every handle of the provider reads a different row, in file order")
+    public void providerHandsOutEveryRowOnce() throws Exception {
+        Path file = write(".csv", "id", "1", "2", "3");
+
+        Iterator<Object[]> provider = StreamingRows.provider(file.toString());
+        StringBuilder ids = new StringBuilder();
+        while (provider.hasNext()) {
+            ids.append(((StreamingRows.Row) provider.next()[0]).get("id"));
+        }
+
+        assertEquals(ids.toString(), "123");
+        Files.delete(file);
+    }
+
+    @Test(description = "A released row lets go of its values and cannot be read again")
+    public void releasedRowsDropTheirValues() throws Exception {
+        Path file = write(".csv", "id,name", "1,Ana", "2,Dan");
+
+        Iterator<Object[]> provider = StreamingRows.provider(file.toString());
+        StreamingRows.Row row = (StreamingRows.Row) provider.next()[0];
+        assertEquals(row.get("name"), "Ana");
+        row.release();
+
+        assertEquals(row.toString(), "row 1");
+        assertEquals(row.getNumber(), 1);
+        assertThrows(IllegalStateException.class, () -> row.get("name"));
+        assertEquals(((StreamingRows.Row) provider.next()[0]).get("name"), "Dan");
+        Files.delete(file);
+    }
+
+    private static Path write(String extension, String... lines) throws Exception {
+        Path file = Files.createTempFile("rows", extension);
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ShardPlannerTest {
+
+    @Test(description = "Long tests are spread so the shards end at about the same time")
+    public void balancesShardsByDuration() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        estimates.put("a", 60000L);
+        estimates.put("b", 50000L);
+        estimates.put("c", 40000L);
+        estimates.put("d", 30000L);
+        estimates.put("e", 20000L);
+        estimates.put("f", 10000L);
+
+        Map<String, Integer> plan = ShardPlanner.plan(estimates, 3);
+
+        long[] loads = ShardPlanner.loads(estimates, plan, 3);
+        assertEquals(Arrays.stream(loads).max().getAsLong(), 70000L);
+        assertEquals(Arrays.stream(loads).min().getAsLong(), 70000L);
+    }
+
+    @Test(description = "Every node computes the same plan, whatever order the tests were listed in")
+    public void planDoesNotDependOnInputOrder() {
+        Map<String, Long> forward = new LinkedHashMap<>();
+        Map<String, Long> backward = new LinkedHashMap<>();
+        String[] names = {"t1", "t2", "t3", "t4", "t5"};
+        for (String name : names) {
+            forward.put(name, 1000L);
+        }
+        for (int i = names.length - 1; i >= 0; i--) {
+            backward.put(names[i], 1000L);
+        }
+
+        assertEquals(ShardPlanner.plan(forward, 2), ShardPlanner.plan(backward, 2));
+    }
+
+    @Test(description = "Every test lands on exactly one existing shard")
+    public void everyUnitIsAssigned() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (int i = 0; i < 25; i++) {
+            estimates.put("test" + i, (long) (i * 37 % 11) * 1000);
+        }
+
+        Map<String, Integer> plan = ShardPlanner.plan(estimates, 4);
+
+        assertEquals(plan.keySet(), estimates.keySet());
+        plan.values().forEach(shard -> assertTrue(shard >= 0 && shard < 4));
+    }
+}
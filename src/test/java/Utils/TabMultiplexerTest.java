@@ -0,0 +1,146 @@
+package Utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TabMultiplexerTest {
+
+    @Test(description = "Tabs fill a browser up to the limit before the next browser is started")
+    public void fillsBrowsersUpToTheTabLimit() {
+        List<FakeBrowser> started = new ArrayList<>();
+        TabMultiplexer tabs = new TabMultiplexer(() -> {
+            FakeBrowser browser = new FakeBrowser();
+            started.add(browser);
+            return browser;
+        }, 2);
+
+        WebDriver first = tabs.get();
+        WebDriver second = tabs.get();
+        WebDriver third = tabs.get();
+
+        assertEquals(started.size(), 2);
+        assertEquals(tabs.browserCount(), 2);
+        assertEquals(started.get(0).handles.size(), 2);
+        assertNotEquals(first.getWindowHandle(), second.getWindowHandle());
+        assertEquals(((TabDriver) third).getHost(), started.get(1));
+    }
+
+    @Test(description = "Closing a tab keeps the browser for the other tabs; closing its last tab quits it")
+    public void quitsBrowserWithItsLastTab() {
+        FakeBrowser browser = new FakeBrowser();
+        TabMultiplexer tabs = new TabMultiplexer(() -> browser, 4);
+        WebDriver first = tabs.get();
+        WebDriver second = tabs.get();
+
+        first.quit();
+        assertEquals(browser.handles.size(), 1);
+        assertFalse(browser.quit);
+        assertTrue(browser.handles.contains(second.getWindowHandle()));
+
+        second.quit();
+        assertTrue(browser.quit);
+        assertEquals(tabs.browserCount(), 0);
+        assertNull(browser.tabs().bound());
+    }
+
+    // A browser that only knows about its tabs.
+    private static class FakeBrowser implements TabHost, JavascriptExecutor {
+        private final TabBinding binding = new TabBinding();
+        private final Set<String> handles = new LinkedHashSet<>(List.of("tab-0"));
+        private boolean quit;
+
+        @Override
+        public TabBinding tabs() {
+            return binding;
+        }
+
+        @Override
+        public Object executeScript(String script, Object... args) {
+            handles.add("tab-" + handles.size() + "-" + System.nanoTime());
+            return null;
+        }
+
+        @Override
+        public Object executeAsyncScript(String script, Object... args) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            handles.remove(binding.bound());
+        }
+
+        @Override
+        public void quit() {
+            quit = true;
+        }
+
+        @Override
+        public Set<String> getWindowHandles() {
+            return new LinkedHashSet<>(handles);
+        }
+
+        @Override
+        public String getWindowHandle() {
+            return handles.iterator().next();
+        }
+
+        @Override
+        public void get(String url) {
+        }
+
+        @Override
+        public String getCurrentUrl() {
+            return "about:blank";
+        }
+
+        @Override
+        public String getTitle() {
+            return "";
+        }
+
+        @Override
+        public List<WebElement> findElements(By by) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public WebElement findElement(By by) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPageSource() {
+            return "";
+        }
+
+        @Override
+        public TargetLocator switchTo() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Navigation navigate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Options manage() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package Utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHistoryTest {
+
+    @Test(description = "A failing invocation makes the whole method count as failed for the run")
+    public void anyFailedInvocationFailsTheMethod() {
+        Map<String, TestHistory.Entry> history = new TreeMap<>();
+
+        TestHistory.fold(history, Arrays.asList(
+                new TestHistory.Result("CheckoutTest#totalPriceForAProduct", "PASS", 1000),
+                new TestHistory.Result("CheckoutTest#totalPriceForAProduct", "FAIL", 3000)));
+
+        TestHistory.Entry entry = history.get("CheckoutTest#totalPriceForAProduct");
+        assertTrue(entry.failedLastRun());
+        assertEquals(entry.getAverageMillis(), 4000);
+    }
+
+    @Test(description = "A test that keeps changing its outcome becomes flaky, a skipped run changes nothing")
+    public void outcomeChangesRaiseFlakiness() {
+        Map<String, TestHistory.Entry> history = new TreeMap<>();
+        String key = "CheckoutTest#wishlistTest";
+
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result(key, "PASS", 1000)));
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result(key, "FAIL", 1000)));
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result(key, "SKIP", 0)));
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result(key, "PASS", 1000)));
+
+        TestHistory.Entry entry = history.get(key);
+        assertFalse(entry.failedLastRun());
+        assertEquals(entry.getRuns(), 4);
+        assertEquals(entry.getFlakiness(), 0.75, 0.001);
+    }
+
+    @Test(description = "A test that only passed on a retry counts as passed but becomes flaky")
+    public void passOnRetryIsFlaky() {
+        Map<String, TestHistory.Entry> history = new TreeMap<>();
+        String key = "CheckoutTest#wishlistTest";
+
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result(key, "PASS", 1000)));
+        TestHistory.fold(history, Arrays.asList(
+                new TestHistory.Result(key, "RETRY", 800),
+                new TestHistory.Result(key, "FLAKY", 1200)));
+
+        TestHistory.Entry entry = history.get(key);
+        assertFalse(entry.failedLastRun());
+        assertEquals(entry.getAverageMillis(), 1500);
+        assertEquals(entry.getFlakiness(), 0.5, 0.001);
+    }
+
+    @Test(description = "The history survives a save and load")
+    public void historyRoundTrips() throws Exception {
+        Path file = Files.createTempFile("history", ".tsv");
+        Map<String, TestHistory.Entry> history = new TreeMap<>();
+        TestHistory.fold(history, Arrays.asList(new TestHistory.Result("A#b", "FAIL", 1500)));
+
+        TestHistory.save(file, history);
+        TestHistory.Entry loaded = TestHistory.load(file).get("A#b");
+
+        assertEquals(loaded.getAverageMillis(), 1500);
+        assertTrue(loaded.failedLastRun());
+        assertEquals(loaded.getFailureScore(), 1.0, 0.001);
+        Files.delete(file);
+    }
+}
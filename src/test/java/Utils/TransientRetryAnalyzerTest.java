@@ -0,0 +1,77 @@
+package Utils;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+// Uses the default -Dretry.on list: StaleElementReferenceException, TimeoutException, ElementClickInterceptedException.
+public class TransientRetryAnalyzerTest {
+
+    private final TransientRetryAnalyzer analyzer = new TransientRetryAnalyzer();
+
+    @Test(description = "A listed exception is transient, anywhere in the cause chain")
+    public void listedExceptionsInTheCauseChainAreTransient() {
+        assertTrue(analyzer.isTransient(new StaleElementReferenceException("stale")));
+        assertTrue(analyzer.isTransient(new RuntimeException("wrapped", new TimeoutException("timed out"))));
+        assertTrue(analyzer.isTransient(new WebDriverException(new IllegalStateException(
+                new ElementClickInterceptedException("covered")))));
+    }
+
+    @Test(description = "Other failures are not transient")
+    public void otherFailuresAreNotTransient() {
+        assertFalse(analyzer.isTransient(new NoSuchElementException("missing")));
+        assertFalse(analyzer.isTransient(new IllegalStateException("bug", new NullPointerException())));
+        assertFalse(analyzer.isTransient(null));
+    }
+
+    @Test(description = "An assertion failure is never retried, even when a transient exception caused it")
+    public void assertionErrorsShortCircuit() {
+        assertFalse(analyzer.isTransient(new AssertionError("expected 3 items")));
+        assertFalse(analyzer.isTransient(new AssertionError("badge missing", new TimeoutException("timed out"))));
+        assertFalse(analyzer.isTransient(new RuntimeException(new AssertionError("wrapped",
+                new StaleElementReferenceException("stale")))));
+    }
+
+    @Test(description = "An attempt that is retried counts as failed in @AfterMethod, although TestNG reports it as skipped")
+    public void retriedAttemptIsAFailedAttempt() {
+        FlakyOnce.attempts.clear();
+        TestNG testng = new TestNG(false);
+        testng.setTestClasses(new Class[]{FlakyOnce.class});
+        testng.setOutputDirectory(System.getProperty("java.io.tmpdir") + "/retry-analyzer-test");
+        testng.run();
+
+        assertEquals(FlakyOnce.attempts, Arrays.asList("SKIP failed", "SUCCESS passed"));
+    }
+
+    public static class FlakyOnce {
+
+        static final List<String> attempts = new ArrayList<>();
+
+        @Test
+        public void staleOnce() {
+            if (attempts.isEmpty()) {
+                throw new StaleElementReferenceException("stale");
+            }
+        }
+
+        @AfterMethod(alwaysRun = true)
+        public void record(ITestResult result) {
+            String status = result.getStatus() == ITestResult.SKIP ? "SKIP" : result.isSuccess() ? "SUCCESS" : "FAILURE";
+            attempts.add(status + (TransientRetryAnalyzer.failedAttempt(result) ? " failed" : " passed"));
+        }
+    }
+}